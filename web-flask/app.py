@@ -9,6 +9,7 @@ import logging
 # 导入配置和响应工具
 from config import TEMP_DIR
 from utils.response import success, error
+from utils.deadline import deadline_exceeded
 
 # 导入路由模块
 from routes.health import health_bp
@@ -36,5 +37,13 @@ app.register_blueprint(prediction_bp, url_prefix='/api/prediction')
 app.register_blueprint(heart_image)
 
 
+@app.before_request
+def drop_expired_request():
+    """调用方已超过截止时间的请求直接放弃，不再处理"""
+    if deadline_exceeded():
+        logger.warning(f"请求已超过调用方截止时间，放弃处理: {request.path}")
+        return error('请求已超过调用方截止时间', code=504)
+
+
 if __name__ == '__main__':
     app.run(host='0.0.0.0', port=5000, debug=True) 
\ No newline at end of file
@@ -11,6 +11,8 @@ class ModelClient:
     
     def __init__(self):
         self.client = springboot_client
+        # 已获取的模型信息及其ETag，再次获取时做条件请求，未变化时服务端不返回内容
+        self._model_info_cache = {}
     
     def get_model_info(self, model_id):
         """
@@ -26,8 +28,18 @@ class ModelClient:
             # 构建请求路径
             path = f"/model/detail/{model_id}"
             
-            # 发送GET请求
-            return self.client.get(path)
+            # 发送条件GET请求
+            cached = self._model_info_cache.get(model_id)
+            etag = cached[0] if cached else None
+            data, etag, not_modified = self.client.get_if_modified(path, etag)
+            if not_modified:
+                return dict(cached[1])
+            
+            if data is not None and etag:
+                self._model_info_cache[model_id] = (etag, dict(data))
+            else:
+                self._model_info_cache.pop(model_id, None)
+            return data
             
         except Exception as e:
             logger.error(f"获取模型信息时发生错误: {e}")
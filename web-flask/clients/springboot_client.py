@@ -3,7 +3,7 @@
 """
 import requests
 from config import SPRINGBOOT_SERVER_URL, INTERNAL_AUTH_TOKEN
-from typing import Optional, Any, Dict
+from typing import Optional, Any, Dict, Tuple
 
 class SpringbootClient:
     """业务服务客户端"""
@@ -58,6 +58,32 @@ class SpringbootClient:
         except Exception as e:
             raise Exception(f"GET请求失败: {str(e)}")
 
+    def get_if_modified(self, path: str, etag: Optional[str] = None) -> Tuple[Any, Optional[str], bool]:
+        """
+        发送条件GET请求，持有的版本未变化时服务端返回304，不传输内容
+        
+        Args:
+            path: 请求路径
+            etag: 上次响应返回的ETag
+            
+        Returns:
+            (响应数据, 最新的ETag, 是否未变化)，未变化时响应数据为None
+            
+        Raises:
+            Exception: 请求失败时抛出异常
+        """
+        try:
+            url = f"{self.server_url}{path}"
+            headers = dict(self.headers)
+            if etag:
+                headers['If-None-Match'] = etag
+            response = requests.get(url, headers=headers)
+            if response.status_code == 304:
+                return None, etag, True
+            return self._handle_response(response), response.headers.get('ETag'), False
+        except Exception as e:
+            raise Exception(f"GET请求失败: {str(e)}")
+
     def post(self, path: str, json: Optional[Dict] = None, data: Optional[Dict] = None) -> Any:
         """
         发送POST请求
@@ -32,4 +32,7 @@ class StatusConstant:
     MODEL_STATUS_TRAINED_FAILED = 3  # 与Java端MODEL_STATUS_TRAINED_FAILED一致
     
     # 模型状态: 已发布
-    MODEL_STATUS_PUBLISHED = 4  # 与Java端MODEL_STATUS_PUBLISHED一致 
\ No newline at end of file
+    MODEL_STATUS_PUBLISHED = 4  # 与Java端MODEL_STATUS_PUBLISHED一致 
+    
+    # 响应码: 模型已经在训练中，拒绝重复提交
+    CODE_ALREADY_TRAINING = 409  # 与Java端ALGORITHM_CODE_ALREADY_TRAINING一致
@@ -39,3 +39,5 @@ os.makedirs(TEMP_DIR, exist_ok=True)  # 创建临时文件目录
 MODEL_WEIGHTS_CACHE_DIR = os.environ.get('MODEL_WEIGHTS_CACHE_DIR', os.path.join(get_application_root(), 'model_weights_cache'))
 os.makedirs(MODEL_WEIGHTS_CACHE_DIR, exist_ok=True)  # 创建缓存模型权重目录
 
+# 批量预测单批次最多图片数，业务端合并请求时的批次上限不应超过该值
+PREDICT_MAX_BATCH_SIZE = int(os.environ.get('PREDICT_MAX_BATCH_SIZE', 16))
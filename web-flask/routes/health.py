@@ -1,5 +1,7 @@
 from flask import Blueprint
 from utils.response import success
+from routes.training_routes import training_threads
+from routes.prediction_routes import model_cache
 
 # url前缀统一需要添加/api，这里的url已经和其他端对齐，禁止修改
 health_bp = Blueprint('health_bp', __name__)
@@ -10,6 +12,9 @@ def health_check():
     data = {
         'status': 'ok',
         'service': 'algorithm-service',
-        'version': '1.0.0'
+        'version': '1.0.0',
+        # 节点负载信息，业务端据此选择训练节点
+        'trainingModels': list(training_threads.keys()),
+        'loadedModels': list(model_cache.keys())
     }
     return success(data, msg='服务状态检查成功') 
\ No newline at end of file
@@ -27,11 +27,12 @@ from monai.transforms import (
 from monai.networks.nets import UNet
 from monai.metrics import DiceMetric
 
-from config import TEMP_DIR, MODEL_WEIGHTS_CACHE_DIR  # 导入配置中的临时目录和权重目录
+from config import TEMP_DIR, MODEL_WEIGHTS_CACHE_DIR, PREDICT_MAX_BATCH_SIZE  # 导入配置中的临时目录、权重目录和批量预测上限
 from clients.file_client import file_client
 from clients.model_client import model_client
 from common.constants import StatusConstant  # 使用常量类
 from utils.response import api_response, success, error  # 导入统一响应函数
+from utils.deadline import deadline_exceeded
 
 # 创建蓝图
 prediction_bp = Blueprint('prediction', __name__)
@@ -115,6 +116,55 @@ class MonaiPredictor:
         
         return image_np, pred_mask_np
     
+    def predict_batch(self, image_paths):
+        """
+        批量图像预测，所有能正常加载的图像堆叠成一个批次做一次前向推理
+        
+        Args:
+            image_paths: 图像路径列表
+            
+        Returns:
+            与输入顺序一致的列表，每项为(image_np, pred_mask_np)，加载失败的图像为异常对象
+        """
+        results = [None] * len(image_paths)
+        tensors = []
+        indexes = []
+        expected_shape = (self.in_channels, self.img_size, self.img_size)
+        for i, image_path in enumerate(image_paths):
+            try:
+                tensor = self.transforms_image(image_path)
+                if tuple(tensor.shape) != expected_shape:
+                    raise ValueError(f"图像尺寸{tuple(tensor.shape)}与模型输入{expected_shape}不匹配")
+                tensors.append(tensor)
+                indexes.append(i)
+            except Exception as e:
+                results[i] = e
+        
+        if not tensors:
+            return results
+        
+        # 堆叠成一个批次进行推理
+        images = torch.stack(tensors).to(self.device)
+        with torch.no_grad():
+            output = self.model(images)
+            
+            if self.num_classes <= 2:
+                # 二分类
+                output_np = (torch.sigmoid(output) > 0.5).float().cpu().numpy()
+            else:
+                # 多分类
+                output_np = torch.argmax(torch.softmax(output, dim=1), dim=1).cpu().numpy()
+        images_np = images.cpu().numpy()
+        
+        # 按批次下标拆分结果，与单张预测的输出格式保持一致
+        for j, i in enumerate(indexes):
+            image_np = (images_np[j].squeeze() * 255).astype(np.uint8)
+            mask_np = output_np[j].squeeze()
+            pred_mask_np = (mask_np * 255).astype(np.uint8) if self.num_classes <= 2 else mask_np.astype(np.uint8)
+            results[i] = (image_np, pred_mask_np)
+        
+        return results
+    
     def evaluate(self, image_path, label_path):
         """评估单张图像"""
         # 加载并处理数据
@@ -357,6 +407,60 @@ def get_predictor(model_id: int) -> Optional[MonaiPredictor]:
         logger.error(traceback.format_exc())
         return None
 
+def upload_prediction_result(predictor: MonaiPredictor, orig_img, pred_mask, temp_dir: str) -> Dict[str, Any]:
+    """
+    上传预处理后的原图、预测掩码图和叠加图
+    
+    Args:
+        predictor: 模型预测器
+        orig_img: 预处理后的原图
+        pred_mask: 预测掩码
+        temp_dir: 保存中间文件的临时目录
+        
+    Returns:
+        result: 三张图片的存储信息
+    """
+    # 上传预处理后的原图
+    orig_img_path = os.path.join(temp_dir, 'pred_processed_orig_img.png')
+    cv2.imwrite(orig_img_path, orig_img)
+    orig_img_upload_result = file_client.upload('pred_processed_orig_imgs', orig_img_path)
+    
+    # 上传预测掩码图
+    pred_mask_path = os.path.join(temp_dir, 'pred_processed_prediction.png')
+    cv2.imwrite(pred_mask_path, pred_mask)
+    pred_upload_result = file_client.upload('pred_processed_predictions', pred_mask_path)
+    
+    # 创建叠加结果图
+    overlay_img = predictor.create_overlay(orig_img, pred_mask)
+    
+    # 保存叠加结果图片
+    overlay_path = os.path.join(temp_dir, 'pred_overlay.png')
+    cv2.imwrite(overlay_path, cv2.cvtColor(overlay_img, cv2.COLOR_RGB2BGR) if len(overlay_img.shape) == 3 else overlay_img)
+    
+    # 上传叠加结果图片
+    overlay_upload_result = file_client.upload('pred_overlay', overlay_path)
+    
+    # 返回结果
+    result = {
+        'processedOrigImg': {
+            'bucket': orig_img_upload_result['bucket'],
+            'objectKey': orig_img_upload_result['objectKey'],
+            'url': orig_img_upload_result['url']
+        },
+        'predictionMask': {
+            'bucket': pred_upload_result['bucket'],
+            'objectKey': pred_upload_result['objectKey'],
+            'url': pred_upload_result['url']
+        },
+        'overlayImage': {
+            'bucket': overlay_upload_result['bucket'],
+            'objectKey': overlay_upload_result['objectKey'],
+            'url': overlay_upload_result['url']
+        }
+    }
+    
+    return result
+
 @prediction_bp.route('/predict', methods=['POST'])
 def predict_image():
     """
@@ -393,54 +497,100 @@ def predict_image():
             # 使用MONAI预测器进行预测
             orig_img, pred_mask = predictor.predict(image_path)
 
-            # 上传预处理后的原图
-            orig_img_path = os.path.join(temp_dir, 'pred_processed_orig_img.png')
-            cv2.imwrite(orig_img_path, orig_img)
-            orig_img_upload_result = file_client.upload('pred_processed_orig_imgs', orig_img_path)
+            # 上传预测结果
+            result = upload_prediction_result(predictor, orig_img, pred_mask, temp_dir)
             
-            # 上传预测掩码图
-            pred_mask_path = os.path.join(temp_dir, 'pred_processed_prediction.png')
-            cv2.imwrite(pred_mask_path, pred_mask)
-            pred_upload_result = file_client.upload('pred_processed_predictions', pred_mask_path)
+            return success(result)
+        finally:
+            # 清理临时文件
+            shutil.rmtree(temp_dir, ignore_errors=True)
+        
+    except Exception as e:
+        logger.error(f"图像分割预测失败: {str(e)}")
+        logger.error(traceback.format_exc())
+        return error(f"图像分割预测失败: {str(e)}")
+
+@prediction_bp.route('/predict/batch', methods=['POST'])
+def predict_images_batch():
+    """
+    批量图像分割预测接口
+    业务端把同一模型的并发预测请求合并后调用，所有图片做一次前向推理，
+    每张图片单独返回结果，下载或处理失败的图片不影响同批次的其他图片
+    """
+    try:
+        # 获取请求参数
+        data = request.get_json()
+        model_id = data.get('modelId')
+        images = data.get('images') or []
+        
+        # 参数校验
+        if not model_id or not images:
+            return error('参数不完整')
+        if len(images) > PREDICT_MAX_BATCH_SIZE:
+            return error(f'单批次图片数量不能超过{PREDICT_MAX_BATCH_SIZE}')
+        
+        # 获取预测器
+        predictor = get_predictor(model_id)
+        if not predictor:
+            return error('模型不可用或加载失败')
+        
+        # 创建临时目录，并发批次之间用uuid区分
+        temp_dir = os.path.join(TEMP_DIR, f'pred_batch_{uuid.uuid4().hex}')
+        os.makedirs(temp_dir, exist_ok=True)
+        
+        try:
+            results: List[Optional[Dict[str, Any]]] = [None] * len(images)
+            image_paths = []
+            indexes = []
             
-            # 创建叠加结果图
-            overlay_img = predictor.create_overlay(orig_img, pred_mask)
+            # 下载图片
+            for i, image in enumerate(images):
+                image_bucket = image.get('imageBucket')
+                image_key = image.get('imageKey')
+                if not image_bucket or not image_key:
+                    results[i] = {'success': False, 'msg': '参数不完整'}
+                    continue
+                try:
+                    image_path = os.path.join(temp_dir, f'image_{i}{os.path.splitext(image_key)[1]}')
+                    file_client.download(image_bucket, image_key, image_path)
+                    image_paths.append(image_path)
+                    indexes.append(i)
+                except Exception as e:
+                    logger.error(f"下载待预测图片失败, bucket: {image_bucket}, key: {image_key}, 原因: {str(e)}")
+                    results[i] = {'success': False, 'msg': f'下载图片失败: {str(e)}'}
             
-            # 保存叠加结果图片
-            overlay_path = os.path.join(temp_dir, 'pred_overlay.png')
-            cv2.imwrite(overlay_path, cv2.cvtColor(overlay_img, cv2.COLOR_RGB2BGR) if len(overlay_img.shape) == 3 else overlay_img)
+            # 加载模型和下载图片耗时较长，推理前再确认调用方仍在等待
+            if deadline_exceeded():
+                logger.warning(f"批量预测已超过调用方截止时间，放弃推理，模型ID: {model_id}")
+                return error('请求已超过调用方截止时间', code=504)
             
-            # 上传叠加结果图片
-            overlay_upload_result = file_client.upload('pred_overlay', overlay_path)
+            # 一次前向推理
+            predictions = predictor.predict_batch(image_paths) if image_paths else []
             
-            # 返回结果
-            result = {
-                'processedOrigImg': {
-                    'bucket': orig_img_upload_result['bucket'],
-                    'objectKey': orig_img_upload_result['objectKey'],
-                    'url': orig_img_upload_result['url']
-                },
-                'predictionMask': {
-                    'bucket': pred_upload_result['bucket'],
-                    'objectKey': pred_upload_result['objectKey'],
-                    'url': pred_upload_result['url']
-                },
-                'overlayImage': {
-                    'bucket': overlay_upload_result['bucket'],
-                    'objectKey': overlay_upload_result['objectKey'],
-                    'url': overlay_upload_result['url']
-                }
-            }
+            # 逐张上传预测结果
+            for i, prediction in zip(indexes, predictions):
+                if isinstance(prediction, Exception):
+                    results[i] = {'success': False, 'msg': f'图像分割预测失败: {str(prediction)}'}
+                    continue
+                try:
+                    item_dir = os.path.join(temp_dir, str(i))
+                    os.makedirs(item_dir, exist_ok=True)
+                    orig_img, pred_mask = prediction
+                    results[i] = {'success': True, 'data': upload_prediction_result(predictor, orig_img, pred_mask, item_dir)}
+                except Exception as e:
+                    logger.error(f"上传预测结果失败: {str(e)}")
+                    results[i] = {'success': False, 'msg': f'上传预测结果失败: {str(e)}'}
             
-            return success(result)
+            logger.info(f"批量预测完成，模型ID: {model_id}, 图片数量: {len(images)}, 成功数量: {sum(1 for r in results if r['success'])}")
+            return success({'results': results})
         finally:
             # 清理临时文件
             shutil.rmtree(temp_dir, ignore_errors=True)
         
     except Exception as e:
-        logger.error(f"图像分割预测失败: {str(e)}")
+        logger.error(f"批量图像分割预测失败: {str(e)}")
         logger.error(traceback.format_exc())
-        return error(f"图像分割预测失败: {str(e)}")
+        return error(f"批量图像分割预测失败: {str(e)}")
 
 @prediction_bp.route('/evaluate', methods=['POST'])
 def evaluate_model():
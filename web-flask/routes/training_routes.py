@@ -523,7 +523,7 @@ def train_model():
             
         # 检查模型是否已经在训练
         if model_id in training_threads:
-            return error("该模型已经在训练中，请勿重复提交", code=400)
+            return error("该模型已经在训练中，请勿重复提交", code=StatusConstant.CODE_ALREADY_TRAINING)
         
         # 获取训练超参数
         hyperparams = data.get('hyperparams', {})
@@ -0,0 +1,33 @@
+"""
+请求截止时间工具
+业务端在请求头X-Request-Deadline中带上调用方放弃等待的时间点(毫秒时间戳)，
+已过截止时间的请求不再处理，避免为已经放弃的调用方占用GPU和磁盘
+"""
+import time
+from flask import request, has_request_context
+
+DEADLINE_HEADER = 'X-Request-Deadline'
+
+
+def get_deadline():
+    """
+    获取当前请求的截止时间
+    
+    Returns:
+        截止时间(毫秒时间戳)，请求未携带或格式错误时返回None
+    """
+    if not has_request_context():
+        return None
+    value = request.headers.get(DEADLINE_HEADER)
+    if not value:
+        return None
+    try:
+        return int(value)
+    except ValueError:
+        return None
+
+
+def deadline_exceeded() -> bool:
+    """当前请求是否已超过调用方的截止时间"""
+    deadline = get_deadline()
+    return deadline is not None and int(time.time() * 1000) >= deadline
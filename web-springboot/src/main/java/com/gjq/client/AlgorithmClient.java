@@ -3,7 +3,7 @@ package com.gjq.client;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -11,6 +11,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -18,6 +20,8 @@ import java.util.Map;
 
 /**
  * 算法服务客户端
+ * <p>
+ * 请求由{@link AlgorithmNodePool}选择节点：模型预测按模型ID路由，训练选择负载最低的节点，其他请求选择最空闲的节点。
  */
 @Component
 public class AlgorithmClient {
@@ -25,11 +29,11 @@ public class AlgorithmClient {
     private static final Logger logger = LoggerFactory.getLogger(AlgorithmClient.class);
     
     @Autowired
+    @Qualifier("algorithmRestTemplate")
     private RestTemplate restTemplate;
     
-    // 算法服务请求接口统一前缀为/api，已经在application.yml中配置(http://localhost:5000/api)，禁止修改
-    @Value("${algorithm.server.url}")
-    private String serverUrl;
+    @Autowired
+    private AlgorithmNodePool nodePool;
 
     /**
      * 通用响应格式(已经和算法端联调好，禁止修改)
@@ -63,7 +67,27 @@ public class AlgorithmClient {
         if (response != null && response.getCode() == 200) {
             return response.getData();
         }
-        throw new RuntimeException(response != null ? response.getMsg() : "请求失败");
+        if (response != null) {
+            throw new ResponseException(response.getCode(), response.getMsg());
+        }
+        throw new RuntimeException("请求失败");
+    }
+
+    /**
+     * 算法服务返回了非成功的响应码，调用方按响应码区分可以忽略的情况（如重复提交训练）
+     */
+    public static class ResponseException extends RuntimeException {
+
+        private final int code;
+
+        public ResponseException(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
     }
 
     /**
@@ -76,15 +100,7 @@ public class AlgorithmClient {
      */
     public <T> T get(String path, Map<String, Object> params) {
         try {
-            String url = serverUrl + path;
-            ResponseEntity<Response<T>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<Response<T>>() {},
-                params
-            );
-            return handleResponse(response.getBody());
+            return exchange(nodePool.selectLeastBusy(), path, HttpMethod.GET, null, params);
         } catch (Exception e) {
             logger.error("GET请求失败", e);
             throw new RuntimeException("GET请求失败: " + e.getMessage());
@@ -101,14 +117,49 @@ public class AlgorithmClient {
      */
     public <T> T post(String path, Object body) {
         try {
-            String url = serverUrl + path;
-            ResponseEntity<Response<T>> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                new HttpEntity<>(body),
-                new ParameterizedTypeReference<Response<T>>() {}
-            );
-            return handleResponse(response.getBody());
+            return exchange(nodePool.selectLeastBusy(), path, HttpMethod.POST, new HttpEntity<>(body), Map.of());
+        } catch (Exception e) {
+            logger.error("POST请求失败", e);
+            throw new RuntimeException("POST请求失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 发送模型相关的POST请求，按模型ID路由到固定的节点，使模型保持加载在少数节点上
+     *
+     * @param modelId 模型ID
+     * @param path 请求路径
+     * @param body 请求体
+     * @return 响应数据
+     * @throws RuntimeException 请求失败时抛出异常
+     */
+    public <T> T postForModel(Long modelId, String path, Object body) {
+        try {
+            return exchange(nodePool.selectForModel(modelId), path, HttpMethod.POST, new HttpEntity<>(body), Map.of());
+        } catch (Exception e) {
+            logger.error("POST请求失败", e);
+            throw new RuntimeException("POST请求失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 发送训练请求，发给训练负载最低的节点
+     *
+     * @param modelId 模型ID
+     * @param path 请求路径
+     * @param body 请求体
+     * @return 响应数据
+     * @throws RuntimeException 请求失败时抛出异常
+     */
+    public <T> T postForTraining(Long modelId, String path, Object body) {
+        try {
+            AlgorithmNodePool.Node node = nodePool.selectForTraining(modelId);
+            T data = exchange(node, path, HttpMethod.POST, new HttpEntity<>(body), Map.of());
+            nodePool.onTrainingDispatched(node, modelId);
+            return data;
+        } catch (ResponseException e) {
+            logger.error("POST请求失败", e);
+            throw new ResponseException(e.getCode(), "POST请求失败: " + e.getMessage());
         } catch (Exception e) {
             logger.error("POST请求失败", e);
             throw new RuntimeException("POST请求失败: " + e.getMessage());
@@ -126,8 +177,6 @@ public class AlgorithmClient {
      */
     public <T> T postWithFile(String path, MultipartFile file, Map<String, Object> params) {
         try {
-            String url = serverUrl + path;
-            
             // 构建表单数据
             MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
             if (file != null) {
@@ -137,13 +186,7 @@ public class AlgorithmClient {
                 params.forEach((key, value) -> body.add(key, value));
             }
 
-            ResponseEntity<Response<T>> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                new HttpEntity<>(body),
-                new ParameterizedTypeReference<Response<T>>() {}
-            );
-            return handleResponse(response.getBody());
+            return exchange(nodePool.selectLeastBusy(), path, HttpMethod.POST, new HttpEntity<>(body), Map.of());
         } catch (Exception e) {
             logger.error("POST文件请求失败", e);
             throw new RuntimeException("POST文件请求失败: " + e.getMessage());
@@ -160,14 +203,7 @@ public class AlgorithmClient {
      */
     public <T> T put(String path, Object body) {
         try {
-            String url = serverUrl + path;
-            ResponseEntity<Response<T>> response = restTemplate.exchange(
-                url,
-                HttpMethod.PUT,
-                new HttpEntity<>(body),
-                new ParameterizedTypeReference<Response<T>>() {}
-            );
-            return handleResponse(response.getBody());
+            return exchange(nodePool.selectLeastBusy(), path, HttpMethod.PUT, new HttpEntity<>(body), Map.of());
         } catch (Exception e) {
             logger.error("PUT请求失败", e);
             throw new RuntimeException("PUT请求失败: " + e.getMessage());
@@ -184,18 +220,37 @@ public class AlgorithmClient {
      */
     public <T> T delete(String path, Object body) {
         try {
-            String url = serverUrl + path;
-            ResponseEntity<Response<T>> response = restTemplate.exchange(
-                url,
-                HttpMethod.DELETE,
-                new HttpEntity<>(body),
-                new ParameterizedTypeReference<Response<T>>() {}
-            );
-            return handleResponse(response.getBody());
+            return exchange(nodePool.selectLeastBusy(), path, HttpMethod.DELETE, new HttpEntity<>(body), Map.of());
         } catch (Exception e) {
             logger.error("DELETE请求失败", e);
             throw new RuntimeException("DELETE请求失败: " + e.getMessage());
         }
     }
-    
-} 
\ No newline at end of file
+
+    /**
+     * 向指定节点发送请求，连接失败和网关类错误计为节点故障
+     */
+    private <T> T exchange(AlgorithmNodePool.Node node, String path, HttpMethod method,
+                           HttpEntity<?> entity, Map<String, ?> uriVariables) {
+        boolean nodeFailure = false;
+        nodePool.acquire(node);
+        try {
+            ResponseEntity<Response<T>> response = restTemplate.exchange(
+                node.getUrl() + path,
+                method,
+                entity,
+                new ParameterizedTypeReference<Response<T>>() {},
+                uriVariables
+            );
+            return handleResponse(response.getBody());
+        } catch (ResourceAccessException e) {
+            nodeFailure = true;
+            throw e;
+        } catch (HttpServerErrorException e) {
+            nodeFailure = e.getStatusCode().value() >= 502;
+            throw e;
+        } finally {
+            nodePool.release(node, nodeFailure);
+        }
+    }
+}
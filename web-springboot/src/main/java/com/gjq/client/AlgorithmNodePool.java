@@ -0,0 +1,415 @@
+package com.gjq.client;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 算法服务节点池
+ * <p>
+ * 每个算法服务节点各自缓存已加载的模型和下载的权重文件，多节点部署时按请求类型选择节点：
+ * <ul>
+ *     <li>预测请求按模型ID在一致性哈希环上选择节点，同一模型固定落在少数几个节点上，避免每个节点都加载所有模型；
+ *     节点增减时只有相邻区段的模型迁移</li>
+ *     <li>训练请求选择按权重折算后负载最低的节点，负载为节点上报的训练任务数加上本地执行中的请求数；
+ *     节点上报正在训练该模型时优先发给该节点，避免重启后重新分发的训练任务在其他节点上重复训练</li>
+ *     <li>其他请求选择执行中请求数最少的节点</li>
+ * </ul>
+ * 定时调用各节点的健康检查接口刷新状态，连续请求失败或健康检查失败的节点暂时摘除，恢复后重新加入；
+ * 所有节点都被摘除时忽略健康状态继续选择，由请求本身的结果决定成败。
+ * 每个节点有独立的{@link DependencyGuard}（按节点地址维护），一个节点过载或熔断不影响发往其他节点的请求。
+ * algorithm.server.url始终作为默认节点，未配置其他节点时与单节点部署行为一致。
+ */
+@Component
+public class AlgorithmNodePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlgorithmNodePool.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 算法服务请求接口统一前缀为/api，已经在application.yml中配置(http://localhost:5000/api)，禁止修改
+    @Value("${algorithm.server.url}")
+    private String serverUrl;
+
+    @Value("${algorithm-pool.default-weight:1}")
+    private int defaultWeight;
+
+    /**
+     * 其他节点，格式为"地址|权重"，权重省略时为1，如 http://192.168.1.12:5000/api|2
+     */
+    @Value("${algorithm-pool.nodes:}")
+    private String[] nodeSpecs;
+
+    /**
+     * 每单位权重在哈希环上的虚拟节点数
+     */
+    @Value("${algorithm-pool.virtual-nodes:100}")
+    private int virtualNodes;
+
+    /**
+     * 同一模型的预测请求在哈希环上顺序取的候选节点数，在候选节点中选择执行中请求最少的一个
+     */
+    @Value("${algorithm-pool.prediction-replicas:1}")
+    private int predictionReplicas;
+
+    @Value("${algorithm-pool.max-failures:3}")
+    private int maxFailures;
+
+    @Value("${algorithm-pool.eject-duration:30000}")
+    private long ejectDuration;
+
+    @Value("${algorithm-pool.health-timeout:2000}")
+    private int healthTimeout;
+
+    @Value("${resilience.algorithm.initial-limit:10}")
+    private int guardInitialLimit;
+
+    @Value("${resilience.algorithm.min-limit:2}")
+    private int guardMinLimit;
+
+    /**
+     * 单个节点的并发上限，不超过连接池对单个目标主机的连接数
+     */
+    @Value("${http.client.algorithm.max-per-route:20}")
+    private int guardMaxLimit;
+
+    @Value("${resilience.algorithm.backoff-ratio:0.9}")
+    private double guardBackoffRatio;
+
+    /**
+     * 数据集验证和批量预测的响应时间本身较长，默认不按耗时判断过载
+     */
+    @Value("${resilience.algorithm.slow-call-threshold:0}")
+    private long guardSlowCallThreshold;
+
+    @Value("${resilience.algorithm.failure-threshold:5}")
+    private int guardFailureThreshold;
+
+    @Value("${resilience.algorithm.open-duration:10000}")
+    private long guardOpenDuration;
+
+    /**
+     * 各节点的调用保护，键为节点地址
+     */
+    private final Map<String, DependencyGuard> guards = new ConcurrentHashMap<>();
+
+    private List<Node> nodes;
+
+    private TreeMap<Integer, Node> ring;
+
+    private RestTemplate healthRestTemplate;
+
+    /**
+     * 是否已完成过一次健康检查，完成前节点上报的训练中模型还未知
+     */
+    private volatile boolean healthChecked;
+
+    /**
+     * 算法服务节点
+     */
+    static class Node {
+        private final String url;
+        private final int weight;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long ejectedUntil;
+        private volatile int trainingCount;
+        private volatile Set<Long> trainingModels = Set.of();
+
+        private Node(String url, int weight) {
+            this.url = url;
+            this.weight = weight;
+        }
+
+        String getUrl() {
+            return url;
+        }
+
+        private boolean isAvailable(long now) {
+            return ejectedUntil <= now;
+        }
+
+        /**
+         * 按权重折算后的训练负载
+         */
+        private double trainingLoad() {
+            return (double) (trainingCount + inflight.get()) / weight;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, Node> byUrl = new LinkedHashMap<>();
+        byUrl.put(serverUrl, new Node(serverUrl, Math.max(defaultWeight, 1)));
+        for (String spec : nodeSpecs) {
+            if (!StringUtils.hasText(spec)) {
+                continue;
+            }
+            String[] parts = spec.trim().split("\\|");
+            String url = parts[0].trim();
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            byUrl.put(url, new Node(url, Math.max(weight, 1)));
+        }
+        nodes = List.copyOf(byUrl.values());
+        for (Node node : nodes) {
+            guardOf(node.url);
+        }
+
+        ring = new TreeMap<>();
+        for (Node node : nodes) {
+            for (int i = 0; i < node.weight * virtualNodes; i++) {
+                ring.put(hash(node.url + "#" + i), node);
+            }
+        }
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(healthTimeout);
+        requestFactory.setReadTimeout(healthTimeout);
+        healthRestTemplate = new RestTemplate(requestFactory);
+
+        for (Node node : nodes) {
+            Gauge.builder("algorithm.node.inflight", node.inflight, AtomicInteger::get)
+                    .description("算法服务节点执行中的请求数")
+                    .tag("node", node.url)
+                    .register(meterRegistry);
+            Gauge.builder("algorithm.node.available", node, n -> n.isAvailable(System.currentTimeMillis()) ? 1 : 0)
+                    .description("算法服务节点是否可用")
+                    .tag("node", node.url)
+                    .register(meterRegistry);
+        }
+        logger.info("算法服务节点: {}", nodes.stream().map(n -> n.url + "|" + n.weight).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * 为模型的预测请求选择节点
+     *
+     * @param modelId 模型ID
+     * @return 节点
+     */
+    Node selectForModel(Long modelId) {
+        if (nodes.size() == 1) {
+            return nodes.get(0);
+        }
+        long now = System.currentTimeMillis();
+        List<Node> candidates = walkRing(modelId, now, true);
+        if (candidates.isEmpty()) {
+            candidates = walkRing(modelId, now, false);
+        }
+        return candidates.stream().min(Comparator.comparingInt(n -> n.inflight.get())).orElse(nodes.get(0));
+    }
+
+    /**
+     * 为训练请求选择节点
+     *
+     * @param modelId 模型ID
+     * @return 节点
+     */
+    Node selectForTraining(Long modelId) {
+        if (nodes.size() == 1) {
+            return nodes.get(0);
+        }
+        // 服务重启后恢复的训练任务可能在定时健康检查之前分发，先同步查询各节点正在训练的模型，避免在其他节点上重复训练
+        if (!healthChecked) {
+            checkHealth();
+        }
+        Collection<Node> candidates = availableNodes();
+        for (Node node : candidates) {
+            if (node.trainingModels.contains(modelId)) {
+                return node;
+            }
+        }
+        return candidates.stream().min(Comparator.comparingDouble(Node::trainingLoad)).orElse(nodes.get(0));
+    }
+
+    /**
+     * 为其他请求选择执行中请求数最少的节点
+     *
+     * @return 节点
+     */
+    Node selectLeastBusy() {
+        if (nodes.size() == 1) {
+            return nodes.get(0);
+        }
+        return availableNodes().stream()
+                .min(Comparator.comparingDouble(n -> (double) n.inflight.get() / n.weight))
+                .orElse(nodes.get(0));
+    }
+
+    /**
+     * 请求开始
+     */
+    void acquire(Node node) {
+        node.inflight.incrementAndGet();
+    }
+
+    /**
+     * 请求结束，连接失败等节点故障累计达到上限后摘除节点
+     *
+     * @param node 节点
+     * @param nodeFailure 是否为节点故障（业务错误不算）
+     */
+    void release(Node node, boolean nodeFailure) {
+        node.inflight.decrementAndGet();
+        if (!nodeFailure) {
+            node.failures.set(0);
+            return;
+        }
+        if (node.failures.incrementAndGet() >= maxFailures && nodes.size() > 1) {
+            eject(node, "连续请求失败" + node.failures.get() + "次");
+        }
+    }
+
+    /**
+     * 训练请求分发成功，在下次健康检查刷新前计入节点的训练负载
+     */
+    void onTrainingDispatched(Node node, Long modelId) {
+        Set<Long> models = new HashSet<>(node.trainingModels);
+        if (models.add(modelId)) {
+            node.trainingModels = Set.copyOf(models);
+            node.trainingCount++;
+        }
+    }
+
+    /**
+     * 请求地址所属节点的调用保护，供{@link GuardedClientHttpRequestFactory}在发送请求前取用
+     *
+     * @param uri 请求地址
+     * @return 地址前缀匹配的节点的调用保护，不属于任何已配置节点时按地址的协议、主机和端口单独创建
+     */
+    public DependencyGuard guardFor(URI uri) {
+        String url = uri.toString();
+        Node matched = null;
+        for (Node node : nodes) {
+            if ((url.equals(node.url) || url.startsWith(node.url + "/"))
+                    && (matched == null || node.url.length() > matched.url.length())) {
+                matched = node;
+            }
+        }
+        return guardOf(matched != null ? matched.url : uri.getScheme() + "://" + uri.getRawAuthority());
+    }
+
+    /**
+     * 所有节点的调用保护
+     */
+    public Collection<DependencyGuard> getGuards() {
+        return guards.values();
+    }
+
+    private DependencyGuard guardOf(String nodeUrl) {
+        return guards.computeIfAbsent(nodeUrl, url -> new DependencyGuard("algorithm", url, guardInitialLimit,
+                guardMinLimit, guardMaxLimit, guardBackoffRatio, guardSlowCallThreshold, guardFailureThreshold,
+                guardOpenDuration, meterRegistry));
+    }
+
+    /**
+     * 定时健康检查，刷新节点的训练负载，健康检查失败的节点摘除，成功的节点恢复
+     */
+    @Scheduled(fixedDelayString = "${algorithm-pool.health-check-interval:10000}")
+    public synchronized void checkHealth() {
+        if (nodes.size() == 1) {
+            return;
+        }
+        for (Node node : nodes) {
+            try {
+                Map<String, Object> data = healthRestTemplate.exchange(
+                        node.url + "/health/health_check",
+                        HttpMethod.GET,
+                        null,
+                        new ParameterizedTypeReference<Map<String, Object>>() {}
+                ).getBody();
+                Object status = data == null ? null : data.get("data");
+                if (!(status instanceof Map<?, ?> health) || !"ok".equals(health.get("status"))) {
+                    eject(node, "健康检查状态异常");
+                    continue;
+                }
+                if (health.get("trainingModels") instanceof List<?> models) {
+                    node.trainingModels = models.stream()
+                            .map(String::valueOf)
+                            .filter(id -> id.matches("\\d+"))
+                            .map(Long::valueOf)
+                            .collect(Collectors.toUnmodifiableSet());
+                    node.trainingCount = models.size();
+                }
+                if (!node.isAvailable(System.currentTimeMillis())) {
+                    logger.info("算法服务节点恢复: {}", node.url);
+                }
+                node.failures.set(0);
+                node.ejectedUntil = 0;
+            } catch (Exception e) {
+                eject(node, "健康检查失败: " + e.getMessage());
+            }
+        }
+        healthChecked = true;
+    }
+
+    /**
+     * 从指定模型的哈希位置顺时针取不同的节点
+     */
+    private List<Node> walkRing(Long modelId, long now, boolean availableOnly) {
+        int replicas = Math.max(1, Math.min(predictionReplicas, nodes.size()));
+        List<Node> candidates = new ArrayList<>(replicas);
+        int hash = hash(String.valueOf(modelId));
+        SortedMap<Integer, Node> tail = ring.tailMap(hash);
+        for (Iterable<Node> section : List.of(tail.values(), ring.headMap(hash).values())) {
+            for (Node node : section) {
+                if (candidates.contains(node) || (availableOnly && !node.isAvailable(now))) {
+                    continue;
+                }
+                candidates.add(node);
+                if (candidates.size() >= replicas) {
+                    return candidates;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 可用节点，全部被摘除时返回所有节点
+     */
+    private Collection<Node> availableNodes() {
+        long now = System.currentTimeMillis();
+        List<Node> available = nodes.stream().filter(n -> n.isAvailable(now)).collect(Collectors.toList());
+        return available.isEmpty() ? nodes : available;
+    }
+
+    private void eject(Node node, String reason) {
+        if (node.isAvailable(System.currentTimeMillis())) {
+            logger.warn("摘除算法服务节点: {}, 原因: {}", node.url, reason);
+        }
+        node.ejectedUntil = System.currentTimeMillis() + ejectDuration;
+    }
+
+    private static int hash(String key) {
+        return MurmurHash.hash32(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,256 @@
+package com.gjq.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestClientException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下游服务调用保护：自适应并发限制 + 熔断
+ * <p>
+ * 每个下游服务节点一个实例（文件服务一个，算法服务每个节点一个，由{@link AlgorithmNodePool}按节点地址维护），
+ * 由{@link GuardedClientHttpRequestFactory}在每次请求前后调用。
+ * <ul>
+ *     <li>并发限制按AIMD调整：请求成功时上限每轮加1（每次加1/上限），请求失败或首字节耗时超过阈值时上限乘以回退系数，
+ *     执行中的请求数达到上限后新请求直接拒绝，不再占用Tomcat线程排队等待慢服务</li>
+ *     <li>熔断：连续失败达到阈值后打开，打开期间所有请求直接拒绝；打开时长过后进入半开状态，只放行一个探测请求，
+ *     探测成功则关闭，失败则重新打开</li>
+ * </ul>
+ * 连接失败、超时和5xx响应计为失败，4xx等业务错误不计。
+ */
+public class DependencyGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGuard.class);
+
+    /**
+     * 熔断状态
+     */
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    /**
+     * 请求结果
+     */
+    public enum Outcome {
+        /**
+         * 成功
+         */
+        SUCCESS,
+        /**
+         * 连接失败、超时或5xx响应
+         */
+        FAILURE,
+        /**
+         * 下游服务明确表示过载（429、503）
+         */
+        OVERLOAD
+    }
+
+    /**
+     * 请求被拒绝，未发往下游服务
+     */
+    public static class RejectedException extends RestClientException {
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 一次放行的请求，结束时交回
+     */
+    public class Permit {
+        private volatile long startTime = System.nanoTime();
+        private final boolean probe;
+        private boolean released;
+
+        private Permit(boolean probe) {
+            this.probe = probe;
+        }
+
+        /**
+         * 请求体发送完成，首字节耗时从此刻重新计算，上传大文件时请求体的传输时间不计入
+         */
+        public void onBodySent() {
+            startTime = System.nanoTime();
+        }
+
+        /**
+         * 收到响应头，按首字节耗时判断是否过慢
+         */
+        public void onResponse(Outcome outcome) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            boolean slow = slowCallThreshold > 0 && elapsed > slowCallThreshold;
+            release(this, outcome == Outcome.SUCCESS && slow ? Outcome.OVERLOAD : outcome, outcome != Outcome.FAILURE);
+        }
+
+        /**
+         * 请求异常结束
+         */
+        public void onError() {
+            release(this, Outcome.FAILURE, false);
+        }
+    }
+
+    private final String name;
+    private final String node;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long slowCallThreshold;
+    private final int failureThreshold;
+    private final long openDuration;
+    private final MeterRegistry meterRegistry;
+
+    private double limit;
+    private int inflight;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+
+    /**
+     * @param name 下游服务名称，用作指标标签
+     * @param node 下游服务节点地址，用作指标标签
+     * @param initialLimit 初始并发上限
+     * @param minLimit 并发上限的下限
+     * @param maxLimit 并发上限的上限，一般等于连接池大小
+     * @param backoffRatio 失败时并发上限的回退系数
+     * @param slowCallThreshold 首字节耗时超过该值(毫秒)时视为过载，0表示不按耗时判断
+     * @param failureThreshold 连续失败多少次后打开熔断
+     * @param openDuration 熔断打开时长(毫秒)
+     */
+    public DependencyGuard(String name, String node, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                           long slowCallThreshold, int failureThreshold, long openDuration, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.node = node;
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.slowCallThreshold = slowCallThreshold;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("dependency.concurrency.limit", this, DependencyGuard::getLimit)
+                .description("下游服务当前的并发上限").tags("dependency", name, "node", node).register(meterRegistry);
+        Gauge.builder("dependency.inflight", this, DependencyGuard::getInflight)
+                .description("下游服务执行中的请求数").tags("dependency", name, "node", node).register(meterRegistry);
+        Gauge.builder("dependency.breaker.state", this, g -> g.getState().ordinal())
+                .description("熔断状态：0关闭，1半开，2打开").tags("dependency", name, "node", node).register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInflight() {
+        return inflight;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 申请放行一个请求
+     *
+     * @return 放行凭证
+     * @throws RejectedException 熔断打开或并发已达上限时抛出
+     */
+    public synchronized Permit acquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDuration) {
+                throw reject("breaker_open", name + "服务暂时不可用，请稍后重试");
+            }
+            state = State.HALF_OPEN;
+            probing = false;
+            logger.info("{}服务({})熔断进入半开状态，放行探测请求", name, node);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) {
+                throw reject("breaker_open", name + "服务暂时不可用，请稍后重试");
+            }
+            probing = true;
+            inflight++;
+            return new Permit(true);
+        }
+        if (inflight >= (int) limit) {
+            throw reject("limit", name + "服务繁忙，请稍后重试");
+        }
+        inflight++;
+        return new Permit(false);
+    }
+
+    /**
+     * 当前状态快照
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("node", node);
+        snapshot.put("state", state.name());
+        snapshot.put("limit", (int) limit);
+        snapshot.put("inflight", inflight);
+        snapshot.put("consecutiveFailures", consecutiveFailures);
+        return snapshot;
+    }
+
+    private synchronized void release(Permit permit, Outcome outcome, boolean breakerSuccess) {
+        if (permit.released) {
+            return;
+        }
+        permit.released = true;
+        inflight--;
+
+        // 并发上限：成功时加性增长，失败或过载时乘性回退
+        if (outcome == Outcome.SUCCESS) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        } else {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        }
+
+        // 熔断：过慢的成功请求不计为失败
+        if (breakerSuccess) {
+            consecutiveFailures = 0;
+            if (permit.probe) {
+                probing = false;
+                state = State.CLOSED;
+                logger.info("{}服务({})探测成功，熔断关闭", name, node);
+            }
+            return;
+        }
+        consecutiveFailures++;
+        if (permit.probe) {
+            probing = false;
+            open("探测请求失败");
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open("连续失败" + consecutiveFailures + "次");
+        }
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        meterRegistry.counter("dependency.breaker.opened", "dependency", name, "node", node).increment();
+        logger.warn("{}服务({})熔断打开，原因: {}，{}毫秒后探测", name, node, reason, openDuration);
+    }
+
+    private RejectedException reject(String reason, String message) {
+        meterRegistry.counter("dependency.rejected", "dependency", name, "node", node, "reason", reason).increment();
+        return new RejectedException(message);
+    }
+}
@@ -0,0 +1,37 @@
+package com.gjq.client;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 下游服务调用保护状态端点（/actuator/dependencies），列出各服务节点的熔断状态、并发上限和执行中的请求数，
+ * 键为"服务名 节点地址"。包含内部节点地址，和其他监控端点一样只在management.server端口(默认仅本机)暴露
+ */
+@Component
+@Endpoint(id = "dependencies")
+public class DependencyGuardEndpoint {
+
+    @Autowired
+    private List<DependencyGuard> guards;
+
+    @Autowired
+    private AlgorithmNodePool nodePool;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> dependencies() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (DependencyGuard guard : guards) {
+            result.put(guard.getName() + " " + guard.getNode(), guard.snapshot());
+        }
+        for (DependencyGuard guard : nodePool.getGuards()) {
+            result.put(guard.getName() + " " + guard.getNode(), guard.snapshot());
+        }
+        return result;
+    }
+}
@@ -1,19 +1,35 @@
 package com.gjq.client;
 
+import cn.hutool.crypto.digest.DigestUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.LinkedHashMap;
+import java.util.List;
 
 /**
  * 文件对象存储服务客户端
@@ -24,10 +40,14 @@ public class FileClient {
     private static final Logger logger = LoggerFactory.getLogger(FileClient.class);
     
     @Autowired
+    @Qualifier("fileRestTemplate")
     private RestTemplate restTemplate;
     
     @Value("${file.server.url}")
     private String serverUrl;
+    
+    @Autowired
+    private FileDiskCache fileDiskCache;
 
     /**
      * 通用响应格式
@@ -105,44 +125,9 @@ public class FileClient {
      * @throws RuntimeException 上传失败时抛出异常
      */
     public UploadResult upload(String bucket, MultipartFile file, boolean isCache) {
-        try {
-            String url = serverUrl + "/upload/" + bucket;
-            
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-            
-            // 设置请求体
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add("file", new ByteArrayResource(file.getBytes()) {
-                @Override
-                public String getFilename() {
-                    return file.getOriginalFilename();
-                }
-            });
-            body.add("is_cache", isCache);
-            
-            // 发送请求
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-            @SuppressWarnings("unchecked")
-            Response<LinkedHashMap<String, Object>> response = (Response<LinkedHashMap<String, Object>>) restTemplate.postForObject(
-                url,
-                requestEntity,
-                Response.class
-            );
-            
-            // 检查响应
-            if (response != null && response.getCode() == 200 && response.getData() != null) {
-                LinkedHashMap<String, Object> data = response.getData();
-                UploadResult result = new UploadResult();
-                result.setUrl((String) data.get("url"));
-                result.setBucket((String) data.get("bucket"));
-                result.setObjectKey((String) data.get("objectKey"));
-                return result;
-            }
-            throw new RuntimeException(response != null ? response.getMsg() : "上传失败");
-            
-        } catch (Exception e) {
+        try (InputStream inputStream = file.getInputStream()) {
+            return upload(bucket, inputStream, file.getSize(), file.getOriginalFilename(), isCache);
+        } catch (IOException e) {
             logger.error("上传文件失败", e);
             throw new RuntimeException("上传文件失败: " + e.getMessage());
         }
@@ -159,6 +144,68 @@ public class FileClient {
      * @throws RuntimeException 上传失败时抛出异常
      */
     public UploadResult upload(String bucket, byte[] fileContent, String fileName, boolean isCache) {
+        return doUpload(bucket, new ByteArrayResource(fileContent) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        }, isCache);
+    }
+    
+    /**
+     * 流式上传本地文件，文件内容不会整体读入内存
+     *
+     * @param bucket 存储桶名称
+     * @param filePath 本地文件路径
+     * @param fileName 文件名
+     * @param isCache 是否缓存，默认false
+     * @return 上传结果
+     * @throws RuntimeException 上传失败时抛出异常
+     */
+    public UploadResult upload(String bucket, Path filePath, String fileName, boolean isCache) {
+        try (InputStream inputStream = Files.newInputStream(filePath)) {
+            return upload(bucket, inputStream, Files.size(filePath), fileName, isCache);
+        } catch (IOException e) {
+            logger.error("上传文件失败", e);
+            throw new RuntimeException("上传文件失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 流式上传，边读边以分块multipart形式写给文件服务，堆内存占用与文件大小无关
+     *
+     * @param bucket 存储桶名称
+     * @param inputStream 文件输入流（由调用方负责关闭）
+     * @param contentLength 文件长度，未知时传-1
+     * @param fileName 文件名
+     * @param isCache 是否缓存，默认false
+     * @return 上传结果
+     * @throws RuntimeException 上传失败时抛出异常
+     */
+    public UploadResult upload(String bucket, InputStream inputStream, long contentLength, String fileName, boolean isCache) {
+        return doUpload(bucket, new InputStreamResource(inputStream) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+            
+            @Override
+            public long contentLength() {
+                // 必须覆盖，默认实现会把整个流读一遍来计算长度
+                return contentLength;
+            }
+        }, isCache);
+    }
+    
+    /**
+     * 发送multipart上传请求
+     *
+     * @param bucket 存储桶名称
+     * @param resource 文件资源
+     * @param isCache 是否缓存
+     * @return 上传结果
+     */
+    private UploadResult doUpload(String bucket, Resource resource, boolean isCache) {
         try {
             String url = serverUrl + "/upload/" + bucket;
             
@@ -168,12 +215,7 @@ public class FileClient {
             
             // 设置请求体
             MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add("file", new ByteArrayResource(fileContent) {
-                @Override
-                public String getFilename() {
-                    return fileName;
-                }
-            });
+            body.add("file", resource);
             body.add("is_cache", isCache);
             
             // 发送请求
@@ -207,44 +249,240 @@ public class FileClient {
      *
      * @param bucket 存储桶名称
      * @param objectKey 对象键
+     * @throws HttpClientErrorException.NotFound 文件不存在时抛出
      * @throws RuntimeException 删除失败时抛出异常
      */
     public void delete(String bucket, String objectKey) {
         String url = serverUrl + "/" + bucket + "/" + objectKey;
         Response<?> response = restTemplate.exchange(url, org.springframework.http.HttpMethod.DELETE, null, Response.class).getBody();
         
-        // 检查响应
+        // 检查响应，响应体中的404与HTTP状态码404一样按文件不存在处理
+        if (response != null && response.getCode() == 404) {
+            fileDiskCache.invalidate(bucket, objectKey);
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, String.valueOf(response.getMsg()),
+                    HttpHeaders.EMPTY, null, null);
+        }
         if (response == null || response.getCode() != 200) {
             throw new RuntimeException(response != null ? response.getMsg() : "删除失败");
         }
+        fileDiskCache.invalidate(bucket, objectKey);
     }
     
     /**
-     * 获取文件
+     * 复制文件到目标存储桶
+     * <p>
+     * 文件服务没有提供服务端复制接口，这里把源对象的下载响应流直接接到上传请求上，
+     * 数据只经过JVM一次且只占用固定大小的缓冲区，不会整体读入内存。
+     *
+     * @param srcBucket 源存储桶名称
+     * @param srcObjectKey 源对象键
+     * @param dstBucket 目标存储桶名称
+     * @param dstFileName 目标文件名
+     * @return 目标文件的上传结果
+     * @throws RuntimeException 复制失败时抛出异常
+     */
+    public UploadResult copy(String srcBucket, String srcObjectKey, String dstBucket, String dstFileName) {
+        try (FileDiskCache.CachedFile cachedFile = openCachedFile(srcBucket, srcObjectKey)) {
+            if (cachedFile != null) {
+                return upload(dstBucket, cachedFile.getPath(), dstFileName, false);
+            }
+        }
+        try {
+            String url = serverUrl + "/" + srcBucket + "/" + srcObjectKey;
+            UploadResult result = restTemplate.execute(url, HttpMethod.GET, null, response -> {
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    throw new RuntimeException("源文件读取失败: " + response.getStatusCode());
+                }
+                long contentLength = response.getHeaders().getContentLength();
+                try (InputStream inputStream = response.getBody()) {
+                    return upload(dstBucket, inputStream, contentLength, dstFileName, false);
+                }
+            });
+            if (result == null) {
+                throw new RuntimeException("复制失败");
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("复制文件失败", e);
+            throw new RuntimeException("复制文件失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 流式计算文件内容的SHA-256，不在内存中缓存文件内容
      *
      * @param bucket 存储桶名称
      * @param objectKey 对象键
-     * @return 文件字节数组
-     * @throws RuntimeException 获取失败时抛出异常
+     * @return 十六进制SHA-256
+     * @throws RuntimeException 读取失败时抛出异常
      */
-    public byte[] get(String bucket, String objectKey) {
+    public String sha256(String bucket, String objectKey) {
+        try (FileDiskCache.CachedFile cachedFile = openCachedFile(bucket, objectKey)) {
+            if (cachedFile != null) {
+                return DigestUtil.sha256Hex(cachedFile.getPath().toFile());
+            }
+        }
         try {
             String url = serverUrl + "/" + bucket + "/" + objectKey;
-            return restTemplate.getForObject(url, byte[].class);
+            String hash = restTemplate.execute(url, HttpMethod.GET, null, response -> {
+                try (InputStream inputStream = response.getBody()) {
+                    return DigestUtil.sha256Hex(inputStream);
+                }
+            });
+            if (hash == null) {
+                throw new RuntimeException("读取文件失败");
+            }
+            return hash;
         } catch (Exception e) {
-            logger.error("获取文件失败", e);
-            throw new RuntimeException("获取文件失败: " + e.getMessage());
+            logger.error("计算文件哈希失败", e);
+            throw new RuntimeException("计算文件哈希失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 下载响应处理器
+     */
+    @FunctionalInterface
+    public interface DownloadHandler<T> {
+        
+        /**
+         * 处理文件服务的下载响应，方法返回后响应流会被关闭
+         *
+         * @param status 响应状态码（2xx或304）
+         * @param headers 响应头
+         * @param body 响应体，304时为空流
+         * @return 处理结果
+         */
+        T handle(HttpStatusCode status, HttpHeaders headers, InputStream body) throws IOException;
+    }
     
     /**
-     * 获取文件URL
+     * 流式下载文件，请求头（Range、If-None-Match等）原样转发给文件服务
      *
      * @param bucket 存储桶名称
      * @param objectKey 对象键
-     * @return 文件URL
+     * @param requestHeaders 需要转发的请求头
+     * @param handler 响应处理器
+     * @return 处理结果
+     * @throws org.springframework.web.client.HttpStatusCodeException 文件服务返回4xx/5xx时抛出
      */
-    public String getFileUrl(String bucket, String objectKey) {
-        return String.format("%s/%s/%s", serverUrl, bucket, objectKey);
+    public <T> T download(String bucket, String objectKey, HttpHeaders requestHeaders, DownloadHandler<T> handler) {
+        String url = serverUrl + "/" + bucket + "/" + objectKey;
+        return restTemplate.execute(url, HttpMethod.GET,
+                request -> request.getHeaders().putAll(requestHeaders),
+                response -> handler.handle(response.getStatusCode(), response.getHeaders(), response.getBody()));
+    }
+
+    /**
+     * 获取文件的响应头（大小、是否支持范围读取等），不下载内容
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @return 响应头
+     */
+    public HttpHeaders head(String bucket, String objectKey) {
+        String url = serverUrl + "/" + bucket + "/" + objectKey;
+        return restTemplate.headForHeaders(url);
+    }
+
+    /**
+     * 读取文件中的一段内容
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @param offset 起始位置
+     * @param length 读取长度
+     * @return 读取的内容
+     * @throws org.springframework.web.client.ResourceAccessException 文件服务没有按范围返回时抛出
+     */
+    public byte[] readRange(String bucket, String objectKey, long offset, int length) {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setRange(List.of(HttpRange.createByteRange(offset, offset + length - 1)));
+        return download(bucket, objectKey, requestHeaders, (status, headers, body) -> {
+            if (status.value() != HttpStatus.PARTIAL_CONTENT.value()) {
+                throw new IOException("文件服务未按范围返回内容，状态码: " + status.value());
+            }
+            byte[] bytes = body.readNBytes(length);
+            if (bytes.length != length) {
+                throw new IOException("读取的内容长度不足");
+            }
+            return bytes;
+        });
+    }
+
+    /**
+     * 获取本地缓存的文件，未命中时从文件服务下载到缓存，用于需要读取完整内容的场景
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @return 已固定的缓存文件，使用完后关闭；缓存未启用、对象超过缓存大小上限或下载失败时返回null
+     */
+    public FileDiskCache.CachedFile openCachedFile(String bucket, String objectKey) {
+        if (!fileDiskCache.isEnabled()) {
+            return null;
+        }
+        try {
+            return fileDiskCache.get(bucket, objectKey, cacheLoader(bucket, objectKey));
+        } catch (Exception e) {
+            logger.warn("缓存文件失败, bucket: {}, objectKey: {}", bucket, objectKey, e);
+            return null;
+        }
+    }
+
+    /**
+     * 获取已缓存的文件，未命中时在后台下载到缓存，不等待下载完成
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @return 已固定的缓存文件，使用完后关闭；未命中或缓存未启用时返回null
+     */
+    public FileDiskCache.CachedFile peekCachedFile(String bucket, String objectKey) {
+        if (!fileDiskCache.isEnabled()) {
+            return null;
+        }
+        return fileDiskCache.getOrFillAsync(bucket, objectKey, cacheLoader(bucket, objectKey));
+    }
+
+    /**
+     * 下载对象到缓存文件，同时记录文件服务返回的元数据
+     * <p>
+     * 先按Content-Length判断是否超过缓存大小上限，超过时不读取响应体，调用方随后只需直接读取文件服务一次；
+     * 没有Content-Length时最多读取上限加一个字节，超过即放弃。
+     */
+    private FileDiskCache.Loader cacheLoader(String bucket, String objectKey) {
+        String url = serverUrl + "/" + bucket + "/" + objectKey;
+        return (target, maxSize) -> restTemplate.execute(url, HttpMethod.GET, null, response -> {
+            HttpHeaders headers = response.getHeaders();
+            if (headers.getContentLength() > maxSize) {
+                return null;
+            }
+            try (InputStream inputStream = response.getBody()) {
+                long size = copyAtMost(inputStream, target, maxSize + 1);
+                if (size > maxSize) {
+                    return null;
+                }
+                MediaType contentType = headers.getContentType();
+                return new FileDiskCache.Metadata(size, contentType != null ? contentType.toString() : null,
+                        headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED));
+            }
+        });
+    }
+
+    /**
+     * 最多复制limit个字节到目标文件
+     *
+     * @return 实际复制的字节数
+     */
+    private static long copyAtMost(InputStream inputStream, Path target, long limit) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        try (OutputStream outputStream = Files.newOutputStream(target)) {
+            int read;
+            while (total < limit && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, limit - total))) != -1) {
+                outputStream.write(buffer, 0, read);
+                total += read;
+            }
+        }
+        return total;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,538 @@
+package com.gjq.client;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 文件服务对象的本地磁盘缓存（读穿透）
+ * <p>
+ * 对象存储中的文件上传后内容不再变化（更新文件都会生成新的对象键），适合在本地磁盘缓存热点文件。
+ * 缓存目录总大小有上限，超过后按最近最少使用淘汰；未命中时先下载到临时文件再原子重命名，
+ * 同一对象的并发未命中只向文件服务请求一次。默认关闭。
+ * <p>
+ * 每个缓存文件旁保存文件服务返回的Content-Type、ETag和Last-Modified，命中时原样返回，
+ * 条件请求和范围请求的结果不受对象是否被缓存影响。读取缓存文件前先固定缓存项，
+ * 读取期间不会被淘汰，使用完后必须关闭{@link CachedFile}。
+ */
+@Component
+public class FileDiskCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileDiskCache.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String META_SUFFIX = ".meta";
+
+    /**
+     * 缓存键为64位十六进制SHA-256，文件名为"缓存键-随机后缀"
+     */
+    private static final int KEY_LENGTH = 64;
+
+    /**
+     * 文件服务返回的对象元数据
+     *
+     * @param size 对象大小
+     * @param contentType Content-Type，可为null
+     * @param eTag ETag，可为null
+     * @param lastModified Last-Modified响应头原文，可为null
+     */
+    public record Metadata(long size, String contentType, String eTag, String lastModified) {
+    }
+
+    /**
+     * 从文件服务下载对象到指定文件
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * 对象大小超过上限时不下载内容，直接返回null；文件服务返回了Content-Length时应在读取响应体之前判断，
+         * 否则边下载边计数，超过上限后停止
+         *
+         * @param target 目标文件
+         * @param maxSize 允许缓存的最大对象大小
+         * @return 下载的对象元数据，对象超过大小上限时返回null
+         */
+        Metadata load(Path target, long maxSize) throws IOException;
+    }
+
+    /**
+     * 缓存项
+     */
+    private static class Entry {
+        private final Path file;
+        private final Metadata metadata;
+        private int pins;
+        private boolean removed;
+
+        private Entry(Path file, Metadata metadata) {
+            this.file = file;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * 已固定的缓存文件，关闭前不会被淘汰或删除
+     */
+    public final class CachedFile implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private CachedFile(Entry entry) {
+            this.entry = entry;
+        }
+
+        public Path getPath() {
+            return entry.file;
+        }
+
+        public Metadata getMetadata() {
+            return entry.metadata;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
+    @Value("${file-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${file-cache.dir:${java.io.tmpdir}/gjq-file-cache}")
+    private String dir;
+
+    @Value("${file-cache.max-size:10737418240}")
+    private long maxSize;
+
+    /**
+     * 超过该大小的对象不缓存
+     */
+    @Value("${file-cache.max-object-size:2147483647}")
+    private long maxObjectSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("cacheFillExecutor")
+    private Executor cacheFillExecutor;
+
+    /**
+     * 缓存索引，按访问顺序排列，队首为最久未访问
+     */
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ReentrantLock indexLock = new ReentrantLock();
+
+    private long totalSize;
+
+    /**
+     * 正在下载的对象，同一对象的并发未命中等待同一次下载
+     */
+    private final Map<String, CompletableFuture<Void>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 超过大小上限的对象，记录后不再尝试缓存
+     */
+    private final Set<String> oversized = ConcurrentHashMap.newKeySet();
+
+    private Path root;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    private Counter evictions;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        root = Paths.get(dir);
+        Files.createDirectories(root);
+
+        // 重启后恢复索引：删除未完成的临时文件和缺少元数据的文件，已有文件按修改时间排列
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(root)) {
+            files = stream.sorted(Comparator.comparingLong(this::lastModified)).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            try {
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(META_SUFFIX)) {
+                    if (!Files.exists(dataFileOf(file))) {
+                        Files.deleteIfExists(file);
+                    }
+                } else if (Files.isRegularFile(file)) {
+                    restore(file, name);
+                }
+            } catch (IOException e) {
+                logger.warn("恢复文件缓存失败: {}", file, e);
+            }
+        }
+        evictIfNeeded();
+
+        hits = Counter.builder("file.cache.requests").tag("result", "hit").description("文件缓存命中次数").register(meterRegistry);
+        misses = Counter.builder("file.cache.requests").tag("result", "miss").description("文件缓存未命中次数").register(meterRegistry);
+        evictions = Counter.builder("file.cache.evictions").description("文件缓存淘汰次数").register(meterRegistry);
+        Gauge.builder("file.cache.size", this, cache -> cache.totalSize).baseUnit("bytes").description("文件缓存占用空间").register(meterRegistry);
+        Gauge.builder("file.cache.entries", index, Map::size).description("文件缓存对象数").register(meterRegistry);
+        logger.info("文件缓存已启用，目录: {}, 容量: {} 字节, 已缓存: {} 个", root, maxSize, index.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取缓存文件，未命中时调用loader同步下载，用于需要读取完整内容的场景
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @param loader 下载方法
+     * @return 已固定的缓存文件，使用完后关闭；缓存未启用或对象超过大小上限时返回null
+     */
+    public CachedFile get(String bucket, String objectKey, Loader loader) {
+        if (!enabled) {
+            return null;
+        }
+        String key = cacheKey(bucket, objectKey);
+        if (oversized.contains(key)) {
+            return null;
+        }
+        CachedFile cachedFile = acquire(key);
+        if (cachedFile != null) {
+            hits.increment();
+            return cachedFile;
+        }
+        misses.increment();
+        await(load(key, loader));
+        // 下载完成后可能立即被淘汰，此时返回null，由调用方直接读取文件服务
+        return acquire(key);
+    }
+
+    /**
+     * 只查找缓存，未命中时在后台下载，当前请求由调用方直接读取文件服务
+     * 用于下载代理等不需要完整内容的场景（HEAD、范围请求），未命中时不必等待整个对象下载完成
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @param loader 下载方法
+     * @return 已固定的缓存文件，使用完后关闭；未命中时返回null
+     */
+    public CachedFile getOrFillAsync(String bucket, String objectKey, Loader loader) {
+        if (!enabled) {
+            return null;
+        }
+        String key = cacheKey(bucket, objectKey);
+        if (oversized.contains(key)) {
+            return null;
+        }
+        CachedFile cachedFile = acquire(key);
+        if (cachedFile != null) {
+            hits.increment();
+            return cachedFile;
+        }
+        misses.increment();
+        if (!loading.containsKey(key)) {
+            try {
+                cacheFillExecutor.execute(() -> {
+                    try {
+                        await(load(key, loader));
+                    } catch (Exception e) {
+                        logger.warn("后台缓存文件失败, bucket: {}, objectKey: {}", bucket, objectKey, e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.debug("缓存填充线程池已满，跳过: {}/{}", bucket, objectKey);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 使缓存失效，文件删除后调用；正在被读取的文件在读取结束后删除
+     */
+    public void invalidate(String bucket, String objectKey) {
+        if (!enabled) {
+            return;
+        }
+        String key = cacheKey(bucket, objectKey);
+        oversized.remove(key);
+        indexLock.lock();
+        try {
+            Entry entry = index.remove(key);
+            if (entry != null) {
+                discard(entry);
+            }
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * 下载对象，同一对象的并发下载共用一次请求
+     */
+    private CompletableFuture<Void> load(String key, Loader loader) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            // 其他线程可能刚刚完成下载
+            if (!contains(key)) {
+                fill(key, loader);
+            }
+            future.complete(null);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        } finally {
+            loading.remove(key);
+        }
+        return future;
+    }
+
+    /**
+     * 下载到临时文件，完成后原子重命名为缓存文件，写入元数据后加入索引
+     */
+    private void fill(String key, Loader loader) throws IOException {
+        String name = key + "-" + UUID.randomUUID().toString().replace("-", "");
+        Path temp = root.resolve(name + TEMP_SUFFIX);
+        Path target = root.resolve(name);
+        try {
+            Metadata metadata = loader.load(temp, Math.min(maxObjectSize, maxSize));
+            if (metadata == null) {
+                logger.info("对象超过缓存大小上限，不缓存: {}", key);
+                oversized.add(key);
+                return;
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            try {
+                writeMetadata(metaFileOf(target), metadata);
+            } catch (IOException e) {
+                deleteQuietly(target);
+                throw e;
+            }
+
+            indexLock.lock();
+            try {
+                Entry previous = index.put(key, new Entry(target, metadata));
+                totalSize += metadata.size();
+                if (previous != null) {
+                    discard(previous);
+                }
+            } finally {
+                indexLock.unlock();
+            }
+            evictIfNeeded();
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * 从缓存目录恢复一个缓存项，缺少元数据时删除
+     */
+    private void restore(Path file, String name) throws IOException {
+        Path metaFile = metaFileOf(file);
+        if (name.length() <= KEY_LENGTH || name.charAt(KEY_LENGTH) != '-' || !Files.exists(metaFile)) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(metaFile);
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(metaFile)) {
+            properties.load(inputStream);
+        }
+        Metadata metadata = new Metadata(Files.size(file), properties.getProperty("contentType"),
+                properties.getProperty("eTag"), properties.getProperty("lastModified"));
+        String key = name.substring(0, KEY_LENGTH);
+        Entry previous = index.put(key, new Entry(file, metadata));
+        totalSize += metadata.size();
+        if (previous != null) {
+            discard(previous);
+        }
+    }
+
+    /**
+     * 固定缓存项，命中时更新访问顺序
+     */
+    private CachedFile acquire(String key) {
+        indexLock.lock();
+        try {
+            Entry entry = index.get(key);
+            if (entry == null) {
+                return null;
+            }
+            entry.pins++;
+            return new CachedFile(entry);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private void release(Entry entry) {
+        indexLock.lock();
+        try {
+            entry.pins--;
+            if (entry.pins == 0 && entry.removed) {
+                deleteFiles(entry);
+            }
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * 从索引中移除后调用，没有被固定时立即删除文件，否则在最后一次释放时删除
+     */
+    private void discard(Entry entry) {
+        totalSize -= entry.metadata.size();
+        entry.removed = true;
+        if (entry.pins == 0) {
+            deleteFiles(entry);
+        }
+    }
+
+    /**
+     * 总大小超过上限时淘汰最久未访问的文件，正在被读取的文件跳过
+     */
+    private void evictIfNeeded() {
+        indexLock.lock();
+        try {
+            Iterator<Entry> iterator = index.values().iterator();
+            while (totalSize > maxSize && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                if (eldest.pins > 0) {
+                    continue;
+                }
+                iterator.remove();
+                discard(eldest);
+                if (evictions != null) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * 是否已缓存，不更新访问顺序
+     */
+    private boolean contains(String key) {
+        indexLock.lock();
+        try {
+            return index.containsKey(key);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    private void writeMetadata(Path metaFile, Metadata metadata) throws IOException {
+        Properties properties = new Properties();
+        if (metadata.contentType() != null) {
+            properties.setProperty("contentType", metadata.contentType());
+        }
+        if (metadata.eTag() != null) {
+            properties.setProperty("eTag", metadata.eTag());
+        }
+        if (metadata.lastModified() != null) {
+            properties.setProperty("lastModified", metadata.lastModified());
+        }
+        try (OutputStream outputStream = Files.newOutputStream(metaFile)) {
+            properties.store(outputStream, null);
+        }
+    }
+
+    private void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private String cacheKey(String bucket, String objectKey) {
+        return DigestUtil.sha256Hex(bucket + "/" + objectKey);
+    }
+
+    private Path metaFileOf(Path file) {
+        return file.resolveSibling(file.getFileName() + META_SUFFIX);
+    }
+
+    private Path dataFileOf(Path metaFile) {
+        String name = metaFile.getFileName().toString();
+        return metaFile.resolveSibling(name.substring(0, name.length() - META_SUFFIX.length()));
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void deleteFiles(Entry entry) {
+        deleteQuietly(entry.file);
+        deleteQuietly(metaFileOf(entry.file));
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("删除缓存文件失败: {}", file, e);
+        }
+    }
+}
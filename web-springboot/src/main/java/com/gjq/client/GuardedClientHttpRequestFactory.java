@@ -0,0 +1,194 @@
+package com.gjq.client;
+
+import com.gjq.utils.RequestProfile;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * 带调用保护的请求工厂
+ * <p>
+ * 包装连接池请求工厂：发送前按请求地址取得目标节点的{@link DependencyGuard}申请放行并写入截止时间请求头，
+ * 收到响应头或出错时交回。判断过慢的首字节耗时从请求体发送完成开始计算，上传大文件不会被当作下游过载。
+ * 不使用RestTemplate拦截器，拦截器会把请求体整体缓冲到内存；这里透传流式请求体，文件上传仍是流式的。
+ * 每次请求按路径和状态码记录到收到响应头为止的耗时（dependency.requests），路径中的对象键和数字ID归并为占位符。
+ */
+public class GuardedClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    private final ClientHttpRequestFactory delegate;
+
+    /**
+     * 按请求地址取得目标节点的调用保护
+     */
+    private final Function<URI, DependencyGuard> guardResolver;
+
+    /**
+     * 未设置截止时间时使用的默认时长(毫秒)，一般等于读取超时
+     */
+    private final long defaultTimeout;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 对象键（含扩展名）、数字ID和长十六进制串
+     */
+    private static final Pattern VARIABLE_SEGMENT = Pattern.compile("[^/]*\\.[^/]*|\\d+|[0-9a-fA-F-]{16,}");
+
+    public GuardedClientHttpRequestFactory(ClientHttpRequestFactory delegate, DependencyGuard guard, long defaultTimeout,
+                                           MeterRegistry meterRegistry) {
+        this(delegate, uri -> guard, defaultTimeout, meterRegistry);
+    }
+
+    public GuardedClientHttpRequestFactory(ClientHttpRequestFactory delegate, Function<URI, DependencyGuard> guardResolver,
+                                           long defaultTimeout, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.guardResolver = guardResolver;
+        this.defaultTimeout = defaultTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return new GuardedRequest(delegate.createRequest(uri, httpMethod), guardResolver.apply(uri));
+    }
+
+    private class GuardedRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+        private final ClientHttpRequest request;
+
+        private final DependencyGuard guard;
+
+        /**
+         * 执行期间持有的放行凭证，流式请求体写完后通知凭证重新计时
+         */
+        private volatile DependencyGuard.Permit permit;
+
+        private GuardedRequest(ClientHttpRequest request, DependencyGuard guard) {
+            this.request = request;
+            this.guard = guard;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            Long deadline = RequestDeadline.current();
+            long now = System.currentTimeMillis();
+            if (deadline != null && deadline <= now) {
+                throw new DependencyGuard.RejectedException("请求已超过截止时间，不再发送到" + guard.getName() + "服务");
+            }
+            request.getHeaders().set(RequestDeadline.HEADER, String.valueOf(deadline != null ? deadline : now + defaultTimeout));
+
+            DependencyGuard.Permit permit = guard.acquire();
+            this.permit = permit;
+            long start = System.nanoTime();
+            ClientHttpResponse response;
+            try {
+                response = request.execute();
+            } catch (IOException | RuntimeException e) {
+                permit.onError();
+                record(start, "IO_ERROR");
+                throw e;
+            }
+            HttpStatusCode status = response.getStatusCode();
+            permit.onResponse(outcomeOf(status));
+            record(start, String.valueOf(status.value()));
+            return response;
+        }
+
+        private void record(long start, String status) {
+            long elapsed = System.nanoTime() - start;
+            String path = normalizePath(request.getURI().getPath());
+            Timer.builder("dependency.requests")
+                    .description("下游服务请求到收到响应头的耗时")
+                    .tag("dependency", guard.getName())
+                    .tag("node", guard.getNode())
+                    .tag("method", request.getMethod().name())
+                    .tag("path", path)
+                    .tag("status", status)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            RequestProfile.record(guard.getName(), request.getMethod().name() + " " + path, elapsed);
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return request.getBody();
+        }
+
+        @Override
+        public void setBody(Body body) {
+            if (request instanceof StreamingHttpOutputMessage streaming) {
+                // 流式请求体在execute中写出，写完后重新开始计算首字节耗时
+                streaming.setBody(new Body() {
+                    @Override
+                    public void writeTo(OutputStream outputStream) throws IOException {
+                        body.writeTo(outputStream);
+                        DependencyGuard.Permit current = permit;
+                        if (current != null) {
+                            current.onBodySent();
+                        }
+                    }
+
+                    @Override
+                    public boolean repeatable() {
+                        return body.repeatable();
+                    }
+                });
+                return;
+            }
+            try {
+                body.writeTo(request.getBody());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return request.getURI();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return request.getHeaders();
+        }
+    }
+
+    /**
+     * 路径中的可变部分替换为占位符，控制指标标签的数量
+     */
+    private static String normalizePath(String path) {
+        StringBuilder builder = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            builder.append('/').append(VARIABLE_SEGMENT.matcher(segment).matches() ? "{var}" : segment);
+        }
+        return builder.length() == 0 ? "/" : builder.toString();
+    }
+
+    private static DependencyGuard.Outcome outcomeOf(HttpStatusCode status) {
+        if (status.value() == 429 || status.value() == 503) {
+            return DependencyGuard.Outcome.OVERLOAD;
+        }
+        return status.is5xxServerError() ? DependencyGuard.Outcome.FAILURE : DependencyGuard.Outcome.SUCCESS;
+    }
+}
@@ -0,0 +1,51 @@
+package com.gjq.client;
+
+import java.util.function.Supplier;
+
+/**
+ * 请求截止时间
+ * <p>
+ * 调用方在当前线程上设置放弃等待的时间点，期间发往下游服务的请求通过{@link #HEADER}请求头带上该时间
+ * （毫秒时间戳，各服务器时钟需同步），下游服务收到已过截止时间的请求时直接放弃处理。
+ * 未设置时由{@link GuardedClientHttpRequestFactory}按客户端读取超时计算。
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Deadline";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * 在指定截止时间内执行
+     *
+     * @param deadline 截止时间(毫秒时间戳)
+     * @param action 要执行的操作
+     * @return 操作结果
+     */
+    public static <T> T call(long deadline, Supplier<T> action) {
+        Long previous = DEADLINE.get();
+        // 嵌套调用时取更早的截止时间
+        DEADLINE.set(previous == null ? deadline : Math.min(previous, deadline));
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 当前线程的截止时间
+     *
+     * @return 截止时间(毫秒时间戳)，未设置时返回null
+     */
+    public static Long current() {
+        return DEADLINE.get();
+    }
+}
@@ -54,4 +54,41 @@ public class StatusConstant {
      * 模型状态: 已发布
      */
     public static final int MODEL_STATUS_PUBLISHED = 4;
-} 
\ No newline at end of file
+    
+    /**
+     * 算法任务状态: 排队中
+     */
+    public static final int JOB_STATUS_PENDING = 0;
+    
+    /**
+     * 算法任务状态: 执行中
+     * 训练任务在算法服务回调训练结束前都处于该状态
+     */
+    public static final int JOB_STATUS_RUNNING = 1;
+    
+    /**
+     * 算法任务状态: 已完成
+     */
+    public static final int JOB_STATUS_SUCCESS = 2;
+    
+    /**
+     * 算法任务状态: 失败
+     */
+    public static final int JOB_STATUS_FAILED = 3;
+    
+    /**
+     * 文件清理任务状态: 等待删除(包括失败后等待重试)
+     */
+    public static final int CLEANUP_STATUS_PENDING = 0;
+    
+    /**
+     * 文件清理任务状态: 多次重试后仍删除失败，不再自动重试，需要人工处理
+     */
+    public static final int CLEANUP_STATUS_FAILED = 1;
+    
+    /**
+     * 算法服务响应码: 模型已经在训练中，拒绝重复提交
+     * 与算法端StatusConstant.CODE_ALREADY_TRAINING一致
+     */
+    public static final int ALGORITHM_CODE_ALREADY_TRAINING = 409;
+}
@@ -1,28 +1,58 @@
 package com.gjq.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 异步任务配置
+ * <p>
+ * 不同类型的阻塞任务使用各自独立的线程池（舱壁隔离），慢的数据集验证不会占满训练分发和文件清理的线程。
+ * 线程池的活跃线程数、队列长度等指标由actuator按Bean名称自动采集（executor.active、executor.queued等），
+ * 这里额外记录拒绝次数（executor.rejected）和任务从提交到执行完成的耗时（executor.task.latency）。
  */
 @Configuration
 @EnableAsync
 public class AsyncConfig implements AsyncConfigurer {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 是否使用虚拟线程，和Tomcat请求线程共用spring.threads.virtual.enabled开关，
+     * 开启后各线程池改为按并发上限限流的虚拟线程执行器
+     */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean("taskExecutor")
     public Executor taskExecutor() {
+        if (useVirtualThreads()) {
+            return createVirtualExecutor("taskExecutor", "Async-", 10, true);
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
+
         // 核心线程数：线程池创建时初始化的线程数
         executor.setCorePoolSize(5);
         // 最大线程数：线程池最大的线程数，只有在缓冲队列满了之后才会申请超过核心线程数的线程
@@ -34,11 +64,221 @@ public class AsyncConfig implements AsyncConfigurer {
         // 线程池名的前缀：设置好了之后可以方便我们定位处理任务所在的线程池
         executor.setThreadNamePrefix("Async-");
         // 缓冲队列满了之后的拒绝策略：由调用线程处理（一般是主线程）
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setRejectedExecutionHandler(countRejections("taskExecutor", new ThreadPoolExecutor.CallerRunsPolicy()));
+        executor.setTaskDecorator(recordLatency("taskExecutor"));
         // 等待所有任务结束后再关闭线程池
         executor.setWaitForTasksToCompleteOnShutdown(true);
         // 初始化线程池
         executor.initialize();
         return executor;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 数据集验证线程池：每个任务同步阻塞等待算法服务返回验证结果，耗时长
+     * 队列满时拒绝，由任务队列重新排队，不占用调用线程
+     */
+    @Bean("validationExecutor")
+    public Executor validationExecutor(@Value("${async.validation.core-size:2}") int coreSize,
+                                       @Value("${async.validation.max-size:4}") int maxSize,
+                                       @Value("${async.validation.queue-capacity:10}") int queueCapacity) {
+        return createExecutor("validationExecutor", "Validate-", coreSize, maxSize, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 训练分发线程池：只负责把训练请求发给算法服务，算法服务启动训练线程后立即返回
+     */
+    @Bean("trainingExecutor")
+    public Executor trainingExecutor(@Value("${async.training.core-size:1}") int coreSize,
+                                     @Value("${async.training.max-size:2}") int maxSize,
+                                     @Value("${async.training.queue-capacity:10}") int queueCapacity) {
+        return createExecutor("trainingExecutor", "Train-", coreSize, maxSize, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 文件清理线程池：删除对象存储中不再引用的文件，失败不影响业务
+     * 队列满时拒绝，不在请求线程中执行删除；待删除文件已记录在清理任务表中，由定时任务稍后处理
+     */
+    @Bean("cleanupExecutor")
+    public Executor cleanupExecutor(@Value("${async.cleanup.core-size:2}") int coreSize,
+                                    @Value("${async.cleanup.max-size:4}") int maxSize,
+                                    @Value("${async.cleanup.queue-capacity:500}") int queueCapacity) {
+        return createExecutor("cleanupExecutor", "Cleanup-", coreSize, maxSize, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 文件缓存填充线程池：下载代理未命中缓存时在后台把对象下载到本地缓存
+     * 队列满时放弃本次填充，下次未命中时再缓存
+     */
+    @Bean("cacheFillExecutor")
+    public Executor cacheFillExecutor(@Value("${async.cache-fill.core-size:1}") int coreSize,
+                                      @Value("${async.cache-fill.max-size:2}") int maxSize,
+                                      @Value("${async.cache-fill.queue-capacity:20}") int queueCapacity) {
+        return createExecutor("cacheFillExecutor", "CacheFill-", coreSize, maxSize, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 孤立文件回收线程池：一次回收遍历整个存储目录，可能持续较长时间，不占用定时任务线程
+     * 同一时间只运行一次回收，已在运行时拒绝；应用关闭时不等待，中断后剩余文件下次处理
+     */
+    @Bean("orphanGcExecutor")
+    public Executor orphanGcExecutor() {
+        Executor executor = createExecutor("orphanGcExecutor", "OrphanGC-", 1, 1, 0,
+                new ThreadPoolExecutor.AbortPolicy());
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.setWaitForTasksToCompleteOnShutdown(false);
+        }
+        return executor;
+    }
+
+    /**
+     * 预测分发线程池：每个任务把同一模型合并后的一批预测请求发给算法服务并等待结果，
+     * 最大线程数即同时在算法服务上推理的批次数；队列满时拒绝，由调用方直接返回服务繁忙
+     */
+    @Bean("predictionExecutor")
+    public Executor predictionExecutor(@Value("${async.prediction.core-size:2}") int coreSize,
+                                       @Value("${async.prediction.max-size:2}") int maxSize,
+                                       @Value("${async.prediction.queue-capacity:50}") int queueCapacity) {
+        return createExecutor("predictionExecutor", "Predict-", coreSize, maxSize, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 创建线程池
+     *
+     * @param name 线程池名称，用于监控指标标签
+     * @param threadNamePrefix 线程名前缀
+     * @param coreSize 核心线程数
+     * @param maxSize 最大线程数，使用虚拟线程时作为并发上限
+     * @param queueCapacity 队列容量
+     * @param rejectedHandler 拒绝策略
+     */
+    private Executor createExecutor(String name, String threadNamePrefix, int coreSize, int maxSize,
+                                    int queueCapacity, RejectedExecutionHandler rejectedHandler) {
+        if (useVirtualThreads()) {
+            return createVirtualExecutor(name, threadNamePrefix, maxSize,
+                    rejectedHandler instanceof ThreadPoolExecutor.CallerRunsPolicy);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(countRejections(name, rejectedHandler));
+        executor.setTaskDecorator(recordLatency(name));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 创建虚拟线程执行器，每个任务一个虚拟线程
+     * 虚拟线程没有队列，执行中的任务数达到并发上限后按与线程池相同的拒绝策略处理：
+     * 由调用线程执行，或抛出RejectedExecutionException交给提交方重新排队，提交方不会阻塞等待
+     * <p>
+     * actuator只为线程池采集指标，这里按信号量已占用的许可注册同名指标，切换线程模式后监控面板不变：
+     * executor.active为执行中的任务数，executor.pool.max为并发上限，没有队列所以executor.queued恒为0
+     *
+     * @param callerRuns 达到上限时是否由调用线程执行
+     */
+    private Executor createVirtualExecutor(String name, String threadNamePrefix, int concurrencyLimit,
+                                           boolean callerRuns) {
+        SimpleAsyncTaskExecutor delegate = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        delegate.setVirtualThreads(true);
+        delegate.setTaskDecorator(recordLatency(name));
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("线程池拒绝的任务数")
+                .tag("name", name)
+                .register(meterRegistry);
+        Semaphore permits = new Semaphore(concurrencyLimit);
+        Gauge.builder("executor.active", permits, p -> concurrencyLimit - p.availablePermits())
+                .description("执行中的任务数")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("executor.queued", permits, p -> 0)
+                .description("排队中的任务数")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("executor.pool.max", permits, p -> concurrencyLimit)
+                .description("并发上限")
+                .tag("name", name)
+                .register(meterRegistry);
+        logger.info("线程池 {} 使用虚拟线程，并发上限: {}", name, concurrencyLimit);
+        return task -> {
+            if (!permits.tryAcquire()) {
+                rejected.increment();
+                logger.warn("线程池 {} 已达并发上限: {}", name, concurrencyLimit);
+                if (callerRuns) {
+                    task.run();
+                    return;
+                }
+                throw new RejectedExecutionException("线程池 " + name + " 已达并发上限");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * 虚拟线程需要JDK 21，低版本JDK下开启时忽略并继续使用平台线程
+     * 使用JDK 21构建时pom中的jdk21配置自动激活，编译目标版本随之改为21
+     */
+    private boolean useVirtualThreads() {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            logger.warn("当前JDK版本 {} 不支持虚拟线程，继续使用平台线程池", Runtime.version().feature());
+            return false;
+        }
+        return virtualThreads;
+    }
+
+    /**
+     * 统计拒绝次数后交给实际的拒绝策略处理
+     */
+    private RejectedExecutionHandler countRejections(String name, RejectedExecutionHandler delegate) {
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("线程池拒绝的任务数")
+                .tag("name", name)
+                .register(meterRegistry);
+        return (task, executor) -> {
+            rejected.increment();
+            logger.warn("线程池 {} 已满，活跃线程: {}, 队列长度: {}", name, executor.getActiveCount(), executor.getQueue().size());
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+
+    /**
+     * 记录任务从提交到执行完成的耗时（包含排队等待时间）
+     */
+    private TaskDecorator recordLatency(String name) {
+        Timer latency = Timer.builder("executor.task.latency")
+                .description("任务从提交到执行完成的耗时")
+                .tag("name", name)
+                .register(meterRegistry);
+        return task -> {
+            long submitTime = System.nanoTime();
+            return () -> {
+                try {
+                    task.run();
+                } finally {
+                    latency.record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
+    }
+}
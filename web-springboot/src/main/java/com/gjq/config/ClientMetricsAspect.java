@@ -0,0 +1,45 @@
+package com.gjq.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务客户端方法耗时统计
+ * <p>
+ * 按客户端和方法记录FileClient、AlgorithmClient每个公开方法的耗时（client.calls），包含重试、缓存命中和响应体读取；
+ * 单次HTTP请求按路径和状态码的耗时见dependency.requests。
+ */
+@Aspect
+@Component
+public class ClientMetricsAspect {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.gjq.client.FileClient.*(..)) || execution(public * com.gjq.client.AlgorithmClient.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            Timer.builder("client.calls")
+                    .description("服务客户端方法耗时")
+                    .tag("client", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
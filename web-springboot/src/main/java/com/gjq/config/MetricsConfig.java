@@ -0,0 +1,39 @@
+package com.gjq.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 监控指标配置
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 接口耗时（http.server.requests）在uri之外增加handler标签，值为"控制器#方法"，便于按控制器汇总
+     */
+    @Bean
+    public ServerRequestObservationConvention serverRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(handler(context));
+            }
+        };
+    }
+
+    private static KeyValue handler(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return KeyValue.of("handler", handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName());
+        }
+        return KeyValue.of("handler", "none");
+    }
+}
@@ -2,11 +2,15 @@ package com.gjq.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
-import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * MyBatis Plus 配置
  */
@@ -15,12 +19,35 @@ import org.springframework.context.annotation.Configuration;
 public class MybatisPlusConfig {
 
     /**
-     * 分页插件
+     * 分页插件，总数查询策略见{@link PageCountInterceptor}
+     *
+     * @param mode 默认的总数查询模式：exact、cached、approximate
+     * @param approximateMappers 使用近似总数的Mapper类名，适用于数据量大、只需要翻页的列表
+     * @param capacity 总数缓存条目上限
+     * @param ttl 总数缓存过期时间（毫秒）
      */
     @Bean
-    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+    public MybatisPlusInterceptor mybatisPlusInterceptor(@Value("${cache.page-count.mode:cached}") String mode,
+                                                         @Value("${cache.page-count.approximate-mappers:}") String[] approximateMappers,
+                                                         @Value("${cache.page-count.capacity:1000}") int capacity,
+                                                         @Value("${cache.page-count.ttl:30000}") long ttl,
+                                                         MeterRegistry meterRegistry) {
+        Map<String, PageCountInterceptor.Mode> mapperModes = new HashMap<>();
+        for (String mapper : approximateMappers) {
+            mapperModes.put(mapper.trim(), PageCountInterceptor.Mode.APPROXIMATE);
+        }
+
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
-        interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
+        interceptor.addInnerInterceptor(new PageCountInterceptor(DbType.MYSQL,
+                PageCountInterceptor.Mode.valueOf(mode.trim().toUpperCase()), mapperModes, capacity, ttl, meterRegistry));
         return interceptor;
     }
-} 
\ No newline at end of file
+
+    /**
+     * SQL语句耗时统计，见{@link SqlMetricsInterceptor}
+     */
+    @Bean
+    public SqlMetricsInterceptor sqlMetricsInterceptor(MeterRegistry meterRegistry) {
+        return new SqlMetricsInterceptor(meterRegistry);
+    }
+}
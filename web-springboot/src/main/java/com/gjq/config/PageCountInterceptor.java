@@ -0,0 +1,273 @@
+package com.gjq.config;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分页总数查询策略
+ * <p>
+ * 在MyBatis-Plus分页插件的基础上控制每次分页附带的COUNT查询，按Mapper可选三种模式：
+ * <ul>
+ *     <li>{@link Mode#EXACT}：每次都执行完整的COUNT，与原分页插件一致</li>
+ *     <li>{@link Mode#CACHED}：按查询语句和参数缓存COUNT结果，条目短时间过期；
+ *     查询涉及的任意一张表被写入后，缓存结果失效</li>
+ *     <li>{@link Mode#APPROXIMATE}：不统计总数，只在当前页之后多取一条判断是否还有下一页，
+ *     总数返回"当前页之前的记录数 + 本页取到的记录数"，最多比当前页末尾多1，前端据此显示下一页</li>
+ * </ul>
+ * 失效按表维护版本号：解析查询SQL得到读取的所有表（包括联表和子查询中的表），缓存键带上这些表的版本号；
+ * 写操作解析出写入的表后递增版本号，旧条目不再命中，等待过期淘汰。这样联表查询（如模型分页关联数据集和用户）
+ * 在被关联的表修改后也会重新统计，不会因为写操作发生在其他Mapper而读到旧的总数。
+ * SQL无法解析时：查询不使用缓存，按{@link Mode#EXACT}执行；写操作使所有缓存结果失效。
+ * 事务中的写操作在提交后再递增一次，避免提交前其他请求读到旧数据后重新写入缓存。
+ */
+@Slf4j
+public class PageCountInterceptor extends PaginationInnerInterceptor {
+
+    /**
+     * 总数查询模式
+     */
+    public enum Mode {
+        EXACT, CACHED, APPROXIMATE
+    }
+
+    private final Mode defaultMode;
+
+    /**
+     * 单独指定模式的Mapper，键为Mapper类名（不含包名）
+     */
+    private final Map<String, Mode> mapperModes;
+
+    private final LRUCache<String, Long> countCache;
+
+    /**
+     * 各表的版本号，键为小写表名
+     */
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 全局版本号，写操作的SQL无法解析时递增，使所有缓存结果失效
+     */
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    /**
+     * SQL涉及的表，键为SQL文本，无法解析时为空集合
+     */
+    private final LRUCache<String, Set<String>> tableCache;
+
+    private final MeterRegistry meterRegistry;
+
+    public PageCountInterceptor(DbType dbType, Mode defaultMode, Map<String, Mode> mapperModes,
+                                int capacity, long ttl, MeterRegistry meterRegistry) {
+        super(dbType);
+        this.defaultMode = defaultMode;
+        this.mapperModes = mapperModes;
+        this.countCache = CacheUtil.newLRUCache(capacity, ttl);
+        this.tableCache = CacheUtil.newLRUCache(capacity);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                               ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+        if (page == null || page.getSize() < 0 || !page.searchCount() || resultHandler != Executor.NO_RESULT_HANDLER) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+
+        Mode mode = mapperModes.getOrDefault(simpleName(namespaceOf(ms)), defaultMode);
+        switch (mode) {
+            case APPROXIMATE:
+                return countAhead(executor, ms, parameter, resultHandler, boundSql, page);
+            case CACHED:
+                return cachedCount(executor, ms, parameter, rowBounds, resultHandler, boundSql, page);
+            default:
+                return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+    }
+
+    @Override
+    public void beforeUpdate(Executor executor, MappedStatement ms, Object parameter) throws SQLException {
+        Set<String> tables = tablesOf(ms.getBoundSql(parameter).getSql());
+        bumpVersions(tables);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAfterCommit(tables);
+        }
+        super.beforeUpdate(executor, ms, parameter);
+    }
+
+    /**
+     * 缓存模式：命中时直接设置总数，未命中时执行COUNT并缓存结果
+     */
+    private boolean cachedCount(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                                ResultHandler resultHandler, BoundSql boundSql, IPage<?> page) throws SQLException {
+        Set<String> tables = tablesOf(boundSql.getSql());
+        if (tables.isEmpty()) {
+            count("cached", "unparsed");
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+
+        // 缓存键：涉及各表的版本号 + 语句ID + SQL + 参数值，分页参数不在SQL中，不同页共用同一个总数
+        CacheKey cacheKey = executor.createCacheKey(ms, parameter, RowBounds.DEFAULT, boundSql);
+        String key = versionKey(tables) + ":" + page.countId() + ":" + cacheKey;
+
+        Long total = countCache.get(key);
+        if (total != null) {
+            count("cached", "hit");
+            page.setTotal(total);
+            return continuePage(page);
+        }
+
+        count("cached", "miss");
+        boolean result = super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        countCache.put(key, page.getTotal());
+        return result;
+    }
+
+    /**
+     * 近似模式：在原查询上限定"当前页之前的记录数 + 页大小 + 1"条后计数，扫描量和查询当前页相当
+     */
+    private boolean countAhead(Executor executor, MappedStatement ms, Object parameter,
+                               ResultHandler resultHandler, BoundSql boundSql, IPage<?> page) throws SQLException {
+        count("approximate", "skip");
+        long offset = page.offset();
+        MappedStatement countMs = buildAutoCountMappedStatement(ms);
+        String countSqlStr = "SELECT COUNT(*) FROM (" + boundSql.getSql()
+                + " LIMIT " + offset + ", " + (page.getSize() + 1) + ") TOTAL";
+        PluginUtils.MPBoundSql mpBoundSql = PluginUtils.mpBoundSql(boundSql);
+        BoundSql countSql = new BoundSql(countMs.getConfiguration(), countSqlStr, mpBoundSql.parameterMappings(), parameter);
+        PluginUtils.setAdditionalParameter(countSql, mpBoundSql.additionalParameters());
+
+        CacheKey cacheKey = executor.createCacheKey(countMs, parameter, RowBounds.DEFAULT, countSql);
+        List<Object> result = executor.query(countMs, parameter, RowBounds.DEFAULT, resultHandler, cacheKey, countSql);
+        long fetched = 0;
+        if (CollectionUtils.isNotEmpty(result) && result.get(0) != null) {
+            fetched = Long.parseLong(result.get(0).toString());
+        }
+        page.setTotal(offset + fetched);
+        return continuePage(page);
+    }
+
+    /**
+     * 事务提交后再次递增版本号，同一事务内只注册一次，写入的表合并后统一递增
+     */
+    @SuppressWarnings("unchecked")
+    private void invalidateAfterCommit(Set<String> tables) {
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<String> written = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, written);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpVersions(written);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PageCountInterceptor.this);
+                }
+            });
+            pending = written;
+        }
+        // 无法解析的写操作用空集合表示，提交后同样使所有缓存失效
+        if (tables.isEmpty()) {
+            pending.add("");
+        }
+        pending.addAll(tables);
+    }
+
+    /**
+     * 解析SQL涉及的表名（小写、去掉反引号和库名），解析结果按SQL文本缓存
+     *
+     * @return 表名集合，无法解析时返回空集合
+     */
+    private Set<String> tablesOf(String sql) {
+        Set<String> tables = tableCache.get(sql);
+        if (tables != null) {
+            return tables;
+        }
+        try {
+            tables = new TreeSet<>();
+            for (String name : new TablesNamesFinder().getTableList(CCJSqlParserUtil.parse(sql))) {
+                String table = name.substring(name.lastIndexOf('.') + 1).replace("`", "");
+                tables.add(table.toLowerCase(Locale.ROOT));
+            }
+            tables = Collections.unmodifiableSet(tables);
+        } catch (JSQLParserException | RuntimeException e) {
+            log.debug("无法解析SQL涉及的表: {}", sql, e);
+            tables = Collections.emptySet();
+        }
+        tableCache.put(sql, tables);
+        return tables;
+    }
+
+    /**
+     * 全局版本号和各表版本号组成的缓存键前缀，表名已排序
+     */
+    private String versionKey(Set<String> tables) {
+        StringBuilder builder = new StringBuilder().append(globalVersion.get());
+        for (String table : tables) {
+            builder.append(',').append(table).append('@')
+                    .append(versions.computeIfAbsent(table, k -> new AtomicLong()).get());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 递增写入的表的版本号，表为空集合或含空表名（无法解析）时递增全局版本号
+     */
+    private void bumpVersions(Set<String> tables) {
+        if (tables.isEmpty() || tables.contains("")) {
+            globalVersion.incrementAndGet();
+        }
+        for (String table : tables) {
+            if (!table.isEmpty()) {
+                versions.computeIfAbsent(table, k -> new AtomicLong()).incrementAndGet();
+            }
+        }
+    }
+
+    private void count(String mode, String result) {
+        meterRegistry.counter("page.count.requests", "mode", mode, "result", result).increment();
+    }
+
+    private static String namespaceOf(MappedStatement ms) {
+        String id = ms.getId();
+        int index = id.lastIndexOf('.');
+        return index < 0 ? id : id.substring(0, index);
+    }
+
+    private static String simpleName(String namespace) {
+        return namespace.substring(namespace.lastIndexOf('.') + 1);
+    }
+}
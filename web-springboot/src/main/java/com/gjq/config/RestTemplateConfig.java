@@ -1,17 +1,166 @@
 package com.gjq.config;
 
+import com.gjq.client.AlgorithmNodePool;
+import com.gjq.client.DependencyGuard;
+import com.gjq.client.GuardedClientHttpRequestFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * RestTemplate 配置类
+ * <p>
+ * 文件服务和算法服务各用一个独立的连接池：文件服务传输大文件，连接占用时间长；
+ * 算法服务请求体小但调用频繁，两者互不抢占连接。
+ * 注意不要给这两个RestTemplate添加拦截器，拦截器会把请求体整体缓冲到内存，破坏文件流式上传。
+ * 每个服务的请求经{@link GuardedClientHttpRequestFactory}做并发限制和熔断，并带上截止时间请求头；
+ * 算法服务多节点部署时每个节点单独限流和熔断，调用保护由{@link AlgorithmNodePool}按节点地址维护。
  */
 @Configuration
 public class RestTemplateConfig {
-    
+
+    public static final String FILE_POOL = "file";
+    public static final String ALGORITHM_POOL = "algorithm";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 文件服务连接池
+     */
+    @Bean
+    public HttpComponentsClientHttpRequestFactory fileRequestFactory(
+            @Value("${http.client.file.max-total:50}") int maxTotal,
+            @Value("${http.client.file.max-per-route:50}") int maxPerRoute,
+            @Value("${http.client.file.connect-timeout:3000}") long connectTimeout,
+            @Value("${http.client.file.read-timeout:120000}") long readTimeout,
+            @Value("${http.client.file.pool-wait-timeout:5000}") long poolWaitTimeout,
+            @Value("${http.client.file.keep-alive:30000}") long keepAlive) {
+        return createRequestFactory(FILE_POOL, maxTotal, maxPerRoute, connectTimeout, readTimeout, poolWaitTimeout, keepAlive);
+    }
+
+    /**
+     * 算法服务连接池，数据集验证是同步接口，读超时需要覆盖最长的验证时间
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpComponentsClientHttpRequestFactory algorithmRequestFactory(
+            @Value("${http.client.algorithm.max-total:20}") int maxTotal,
+            @Value("${http.client.algorithm.max-per-route:20}") int maxPerRoute,
+            @Value("${http.client.algorithm.connect-timeout:3000}") long connectTimeout,
+            @Value("${http.client.algorithm.read-timeout:600000}") long readTimeout,
+            @Value("${http.client.algorithm.pool-wait-timeout:5000}") long poolWaitTimeout,
+            @Value("${http.client.algorithm.keep-alive:30000}") long keepAlive) {
+        return createRequestFactory(ALGORITHM_POOL, maxTotal, maxPerRoute, connectTimeout, readTimeout, poolWaitTimeout, keepAlive);
+    }
+
+    /**
+     * 文件服务调用保护，按请求体发送完成到收到响应头的耗时判断过载：
+     * 上传时请求体的传输时间、下载时响应体的读取时间都不计入
+     */
+    @Bean
+    public DependencyGuard fileDependencyGuard(
+            @Value("${file.server.url}") String fileServerUrl,
+            @Value("${resilience.file.initial-limit:20}") int initialLimit,
+            @Value("${resilience.file.min-limit:5}") int minLimit,
+            @Value("${http.client.file.max-total:50}") int maxLimit,
+            @Value("${resilience.file.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${resilience.file.slow-call-threshold:5000}") long slowCallThreshold,
+            @Value("${resilience.file.failure-threshold:5}") int failureThreshold,
+            @Value("${resilience.file.open-duration:10000}") long openDuration) {
+        return new DependencyGuard(FILE_POOL, fileServerUrl, initialLimit, minLimit, maxLimit, backoffRatio,
+                slowCallThreshold, failureThreshold, openDuration, meterRegistry);
+    }
+
+    @Bean
+    public RestTemplate fileRestTemplate(@Qualifier("fileRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory,
+                                         @Qualifier("fileDependencyGuard") DependencyGuard guard,
+                                         @Value("${http.client.file.read-timeout:120000}") long readTimeout) {
+        return new RestTemplate(new GuardedClientHttpRequestFactory(requestFactory, guard, readTimeout, meterRegistry));
+    }
+
+    @Bean
+    public RestTemplate algorithmRestTemplate(@Qualifier("algorithmRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory,
+                                              AlgorithmNodePool nodePool,
+                                              @Value("${http.client.algorithm.read-timeout:600000}") long readTimeout) {
+        return new RestTemplate(new GuardedClientHttpRequestFactory(requestFactory, nodePool::guardFor, readTimeout, meterRegistry));
+    }
+
+    /**
+     * 创建带连接池的请求工厂，工厂作为Bean注册，容器关闭时会一并关闭连接池
+     *
+     * @param pool 连接池名称，用于监控指标标签
+     * @param maxTotal 最大连接数
+     * @param maxPerRoute 每个目标主机的最大连接数
+     * @param connectTimeout 建立连接超时(毫秒)
+     * @param readTimeout 等待响应数据超时(毫秒)
+     * @param poolWaitTimeout 从连接池获取连接的超时(毫秒)
+     * @param keepAlive 空闲连接保活时间(毫秒)
+     */
+    private HttpComponentsClientHttpRequestFactory createRequestFactory(String pool, int maxTotal, int maxPerRoute,
+                                                                        long connectTimeout, long readTimeout,
+                                                                        long poolWaitTimeout, long keepAlive) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                        // 空闲超过该时间的连接复用前先检查是否已被服务端关闭
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        TimeValue maxKeepAlive = TimeValue.ofMilliseconds(keepAlive);
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolWaitTimeout))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .build())
+                // 服务端声明的保活时间和配置值取较小者，服务端未声明时使用配置值
+                .setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+                    @Override
+                    public TimeValue getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                        TimeValue duration = super.getKeepAliveDuration(response, context);
+                        return TimeValue.isPositive(duration) && duration.compareTo(maxKeepAlive) < 0 ? duration : maxKeepAlive;
+                    }
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(maxKeepAlive)
+                .build();
+
+        registerPoolMetrics(pool, connectionManager);
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * 注册连接池指标：pending持续大于0说明连接池已饱和
+     */
+    private void registerPoolMetrics(String pool, PoolingHttpClientConnectionManager connectionManager) {
+        Gauge.builder("http.client.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .description("正在使用的连接数").tag("pool", pool).register(meterRegistry);
+        Gauge.builder("http.client.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+                .description("等待获取连接的请求数").tag("pool", pool).register(meterRegistry);
+        Gauge.builder("http.client.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+                .description("空闲连接数").tag("pool", pool).register(meterRegistry);
+        Gauge.builder("http.client.pool.max", connectionManager, cm -> cm.getTotalStats().getMax())
+                .description("最大连接数").tag("pool", pool).register(meterRegistry);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.gjq.config;
+
+import com.gjq.utils.RequestProfile;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL语句耗时统计
+ * <p>
+ * 按Mapper语句ID记录执行耗时（sql.statements），同时计入当前请求的耗时分解。
+ * 同时拦截两个query方法：分页插件在外层时直接调用6个参数的query，不会重复统计。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    public SqlMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("sql.statements")
+                    .description("Mapper语句执行耗时")
+                    .tag("statement", ms.getId())
+                    .tag("type", ms.getSqlCommandType().name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            RequestProfile.record("sql", ms.getId(), elapsed);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.gjq.config;
 
+import com.gjq.controller.FileController;
 import com.gjq.interceptor.TokenInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -24,6 +25,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 .excludePathPatterns(    // 排除不需要拦截的路径
                         "/user/login",    // 登录
                         "/user/register", // 注册
+                        FileController.DOWNLOAD_PATH, // 文件下载，使用签名地址鉴权
                         "/swagger-ui/**", // Swagger UI
                         "/v3/api-docs/**" // OpenAPI
                 );
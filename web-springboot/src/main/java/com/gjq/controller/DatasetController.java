@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -24,11 +25,14 @@ import com.gjq.common.Result;
 import com.gjq.common.StatusConstant;
 import com.gjq.dto.dataset.DatasetAddDTO;
 import com.gjq.dto.dataset.DatasetQueryDTO;
+import com.gjq.dto.dataset.DatasetUploadInitDTO;
 import com.gjq.dto.dataset.DatasetUpdateDTO;
 import com.gjq.entity.Dataset;
 import com.gjq.entity.User;
 import com.gjq.service.DatasetService;
+import com.gjq.service.DatasetUploadService;
 import com.gjq.utils.SecurityUtils;
+import com.gjq.vo.dataset.DatasetUploadVO;
 import com.gjq.vo.dataset.DatasetVO;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -52,6 +56,9 @@ public class DatasetController {
     @Autowired
     private DatasetService datasetService;
     
+    @Autowired
+    private DatasetUploadService datasetUploadService;
+    
     /**
      * 添加数据集
      */
@@ -85,6 +92,73 @@ public class DatasetController {
         return Result.success(success);
     }
     
+    /**
+     * 初始化分片上传
+     */
+    @PostMapping("/upload/{id}/init")
+    @Operation(summary = "初始化数据集分片上传")
+    public Result<DatasetUploadVO> initUpload(
+            @Parameter(description = "数据集ID") @PathVariable Long id,
+            @Valid @RequestBody DatasetUploadInitDTO dto) {
+        
+        // 获取当前用户ID
+        Long userId = SecurityUtils.getUserId();
+        
+        return Result.success(datasetUploadService.initUpload(id, dto, userId));
+    }
+    
+    /**
+     * 上传分片，请求体为分片原始内容(application/octet-stream)
+     */
+    @PutMapping("/upload/{id}/part/{uploadId}/{partNumber}")
+    @Operation(summary = "上传数据集文件分片")
+    public Result<Boolean> uploadPart(
+            @Parameter(description = "数据集ID") @PathVariable Long id,
+            @Parameter(description = "上传ID") @PathVariable Long uploadId,
+            @Parameter(description = "分片序号，从1开始") @PathVariable Integer partNumber,
+            @Parameter(description = "分片内容SHA-256") @RequestHeader(value = "X-Content-SHA256", required = false) String sha256,
+            HttpServletRequest request) throws IOException {
+        
+        // 获取当前用户ID
+        Long userId = SecurityUtils.getUserId();
+        
+        try (InputStream inputStream = request.getInputStream()) {
+            datasetUploadService.uploadPart(id, uploadId, partNumber, inputStream, sha256, userId);
+        }
+        
+        return Result.success(true);
+    }
+    
+    /**
+     * 查询已接收的分片
+     */
+    @GetMapping("/upload/{id}/part/{uploadId}")
+    @Operation(summary = "查询已接收的数据集文件分片")
+    public Result<List<Integer>> listParts(
+            @Parameter(description = "数据集ID") @PathVariable Long id,
+            @Parameter(description = "上传ID") @PathVariable Long uploadId) {
+        
+        // 获取当前用户ID
+        Long userId = SecurityUtils.getUserId();
+        
+        return Result.success(datasetUploadService.listParts(id, uploadId, userId));
+    }
+    
+    /**
+     * 完成分片上传
+     */
+    @PostMapping("/upload/{id}/complete/{uploadId}")
+    @Operation(summary = "完成数据集分片上传")
+    public Result<Boolean> completeUpload(
+            @Parameter(description = "数据集ID") @PathVariable Long id,
+            @Parameter(description = "上传ID") @PathVariable Long uploadId) {
+        
+        // 获取当前用户ID
+        Long userId = SecurityUtils.getUserId();
+        
+        return Result.success(datasetUploadService.completeUpload(id, uploadId, userId));
+    }
+    
     /**
      * 删除数据集
      */
@@ -0,0 +1,39 @@
+package com.gjq.controller;
+
+import com.gjq.service.support.StatusEventHub;
+import com.gjq.utils.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 状态推送控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/event")
+@Tag(name = "状态推送")
+public class EventController {
+
+    /**
+     * 订阅接口路径，浏览器EventSource无法设置请求头，该路径允许通过token查询参数鉴权
+     */
+    public static final String SUBSCRIBE_PATH = "/event/subscribe";
+
+    @Autowired
+    private StatusEventHub statusEventHub;
+
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅数据集验证和模型训练状态变更事件(SSE)")
+    public SseEmitter subscribe(
+            @Parameter(description = "资源类型(dataset/model)，不传则订阅全部") @RequestParam(required = false) String type,
+            @Parameter(description = "资源ID，不传则订阅该类型全部资源") @RequestParam(required = false) Long id) {
+        Long userId = SecurityUtils.getUserId();
+        return statusEventHub.subscribe(userId, SecurityUtils.isAdmin(), type, id);
+    }
+}
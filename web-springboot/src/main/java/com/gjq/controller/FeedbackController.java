@@ -7,6 +7,7 @@ import com.gjq.dto.feedback.FeedbackVO;
 import com.gjq.entity.Feedback;
 import com.gjq.service.FeedbackService;
 import com.gjq.utils.SecurityUtils;
+import com.gjq.vo.CursorPageVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -56,6 +57,17 @@ public class FeedbackController {
         return Result.success(voPage);
     }
     
+    @GetMapping("/cursor")
+    @Operation(summary = "游标分页查询评估反馈")
+    public Result<CursorPageVO<FeedbackVO>> cursorFeedbacks(
+            @Parameter(description = "上一页返回的游标，第一页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") Integer size,
+            @Parameter(description = "模型ID") @RequestParam(required = false) Long modelId,
+            @Parameter(description = "是否统计总条数") @RequestParam(defaultValue = "false") Boolean withTotal) {
+        Long userId = SecurityUtils.getUserId();
+        return Result.success(feedbackService.cursorFeedbacks(cursor, size, modelId, withTotal, userId));
+    }
+    
     @DeleteMapping("/delete/{id}")
     @Operation(summary = "删除评估反馈")
     public Result<Boolean> deleteFeedback(
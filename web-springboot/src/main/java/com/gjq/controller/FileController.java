@@ -0,0 +1,61 @@
+package com.gjq.controller;
+
+import com.gjq.common.Result;
+import com.gjq.service.support.DownloadUrlSigner;
+import com.gjq.service.support.FileDownloader;
+import com.gjq.utils.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * 文件下载控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/file")
+@Tag(name = "文件下载")
+public class FileController {
+
+    /**
+     * 下载接口路径，浏览器直接下载（a标签）时无法设置请求头，该路径不经过token拦截器，使用签名地址鉴权
+     */
+    public static final String DOWNLOAD_PATH = "/file/download";
+
+    @Autowired
+    private FileDownloader fileDownloader;
+
+    @Autowired
+    private DownloadUrlSigner downloadUrlSigner;
+
+    @GetMapping("/download-url")
+    @Operation(summary = "申请文件下载地址，返回带签名的短期下载地址")
+    public Result<String> getDownloadUrl(
+            @Parameter(description = "存储桶名称") @RequestParam String bucket,
+            @Parameter(description = "对象键") @RequestParam String objectKey,
+            @Parameter(description = "下载文件名，不传则浏览器直接展示") @RequestParam(required = false) String fileName) {
+        return Result.success(downloadUrlSigner.createUrl(bucket, objectKey, fileName,
+                SecurityUtils.getUserId(), SecurityUtils.isAdmin()));
+    }
+
+    @RequestMapping(value = "/download", method = {RequestMethod.GET, RequestMethod.HEAD})
+    @Operation(summary = "下载文件，支持断点续传(Range)和条件请求(ETag/Last-Modified)")
+    public void download(
+            @Parameter(description = "存储桶名称") @RequestParam String bucket,
+            @Parameter(description = "对象键") @RequestParam String objectKey,
+            @Parameter(description = "下载文件名，不传则浏览器直接展示") @RequestParam(required = false) String fileName,
+            @Parameter(description = "下载地址过期时间(毫秒时间戳)") @RequestParam(required = false) Long expires,
+            @Parameter(description = "下载地址签名") @RequestParam(required = false) String signature,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        downloadUrlSigner.verify(bucket, objectKey, fileName, expires, signature);
+        fileDownloader.download(bucket, objectKey, fileName, request, response);
+    }
+}
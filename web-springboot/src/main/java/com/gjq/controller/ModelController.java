@@ -10,6 +10,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
@@ -64,16 +67,24 @@ public class ModelController {
      * 获取模型详情
      */
     @GetMapping("/detail/{id}")
-    @Operation(summary = "获取模型详情")
-    public Result<ModelVO> getModelDetail(
-            @Parameter(description = "模型ID") @PathVariable Long id) {
+    @Operation(summary = "获取模型详情，支持条件请求(If-None-Match)")
+    public ResponseEntity<Result<ModelVO>> getModelDetail(
+            @Parameter(description = "模型ID") @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         // 获取当前用户ID
         Long userId = SecurityUtils.getUserId();
         
+        // 调用方持有的版本未变化时不返回内容
+        // 先取版本号再取详情，期间模型被修改时返回的版本号偏旧，下次请求会重新获取
+        String version = modelService.getModelDetailVersion(id);
+        if (version.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).build();
+        }
+        
         // 获取模型详情
         ModelVO modelVO = modelService.getModelDetail(id, userId);
         
-        return Result.success(modelVO);
+        return ResponseEntity.ok().eTag(version).body(Result.success(modelVO));
     }
     
     /**
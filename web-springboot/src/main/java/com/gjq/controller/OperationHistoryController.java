@@ -2,11 +2,13 @@ package com.gjq.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.gjq.common.Result;
+import com.gjq.dto.history.OperationHistoryBatchCreateDTO;
 import com.gjq.dto.history.OperationHistoryCreateDTO;
 import com.gjq.dto.history.OperationHistoryVO;
 import com.gjq.entity.OperationHistory;
 import com.gjq.service.OperationHistoryService;
 import com.gjq.utils.SecurityUtils;
+import com.gjq.vo.CursorPageVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,6 +17,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 操作历史控制器
  */
@@ -35,6 +39,14 @@ public class OperationHistoryController {
         return Result.success(historyId);
     }
     
+    @PostMapping("/batch-add")
+    @Operation(summary = "批量创建操作历史")
+    public Result<List<Long>> batchCreateHistories(@RequestBody @Validated OperationHistoryBatchCreateDTO batchDTO) {
+        Long userId = SecurityUtils.getUserId();
+        List<Long> historyIds = operationHistoryService.batchCreateHistories(batchDTO.getRecords(), userId);
+        return Result.success(historyIds);
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "根据ID获取操作历史")
     public Result<OperationHistoryVO> getHistoryById(
@@ -57,6 +69,18 @@ public class OperationHistoryController {
         return Result.success(voPage);
     }
     
+    @GetMapping("/cursor")
+    @Operation(summary = "游标分页查询操作历史")
+    public Result<CursorPageVO<OperationHistoryVO>> cursorHistories(
+            @Parameter(description = "上一页返回的游标，第一页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") Integer size,
+            @Parameter(description = "模型ID") @RequestParam(required = false) Long modelId,
+            @Parameter(description = "创建用户名") @RequestParam(required = false) String createUsername,
+            @Parameter(description = "是否统计总条数") @RequestParam(defaultValue = "false") Boolean withTotal) {
+        Long userId = SecurityUtils.getUserId();
+        return Result.success(operationHistoryService.cursorHistories(cursor, size, modelId, createUsername, withTotal, userId));
+    }
+    
     @DeleteMapping("/delete/{id}")
     @Operation(summary = "删除操作历史")
     public Result<Boolean> deleteHistory(
@@ -0,0 +1,34 @@
+package com.gjq.controller;
+
+import com.gjq.common.Result;
+import com.gjq.dto.prediction.PredictRequestDTO;
+import com.gjq.service.PredictionService;
+import com.gjq.utils.SecurityUtils;
+import com.gjq.vo.prediction.PredictResultVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 图像分割预测控制器
+ */
+@RestController
+@RequestMapping("/prediction")
+@Tag(name = "图像分割预测")
+public class PredictionController {
+    
+    @Autowired
+    private PredictionService predictionService;
+    
+    @PostMapping("/predict")
+    @Operation(summary = "图像分割预测")
+    public Result<PredictResultVO> predict(@RequestBody @Validated PredictRequestDTO dto) {
+        Long userId = SecurityUtils.getUserId();
+        return Result.success(predictionService.predict(dto, userId));
+    }
+}
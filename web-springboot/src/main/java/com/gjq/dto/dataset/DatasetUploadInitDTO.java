@@ -0,0 +1,46 @@
+package com.gjq.dto.dataset;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 数据集分片上传初始化DTO
+ */
+@Data
+@Schema(description = "数据集分片上传初始化DTO")
+public class DatasetUploadInitDTO {
+    
+    /**
+     * 文件名
+     */
+    @NotBlank(message = "文件名不能为空")
+    @Schema(description = "文件名", required = true)
+    private String fileName;
+    
+    /**
+     * 文件总大小(字节)
+     */
+    @NotNull(message = "文件大小不能为空")
+    @Positive(message = "文件大小必须大于0")
+    @Schema(description = "文件总大小(字节)", required = true)
+    private Long fileSize;
+    
+    /**
+     * 文件指纹，由客户端根据文件内容生成（如修改时间加文件开头部分的哈希），续传时与文件名、大小一起匹配
+     */
+    @NotBlank(message = "文件指纹不能为空")
+    @Size(max = 128, message = "文件指纹长度不能超过128")
+    @Schema(description = "文件指纹", required = true)
+    private String fingerprint;
+    
+    /**
+     * 期望的分片大小(字节)，为空时使用服务端默认值
+     */
+    @Schema(description = "期望的分片大小(字节)")
+    private Long partSize;
+}
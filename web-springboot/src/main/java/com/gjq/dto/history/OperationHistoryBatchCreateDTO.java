@@ -0,0 +1,27 @@
+package com.gjq.dto.history;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 操作历史批量创建DTO
+ */
+@Data
+@Schema(description = "操作历史批量创建参数")
+public class OperationHistoryBatchCreateDTO {
+    
+    /**
+     * 操作历史记录
+     */
+    @Valid
+    @NotEmpty(message = "操作历史记录不能为空")
+    @Size(max = 10000, message = "单次最多提交10000条操作历史")
+    @Schema(description = "操作历史记录", required = true)
+    private List<@NotNull(message = "操作历史记录不能包含空记录") OperationHistoryCreateDTO> records;
+}
@@ -0,0 +1,41 @@
+package com.gjq.dto.prediction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * 图像分割预测请求DTO
+ */
+@Data
+@Schema(description = "图像分割预测参数")
+public class PredictRequestDTO {
+    
+    /**
+     * 模型ID
+     */
+    @NotNull(message = "模型ID不能为空")
+    @Schema(description = "模型ID", required = true)
+    private Long modelId;
+    
+    /**
+     * 待分割图片存储桶
+     */
+    @NotBlank(message = "图片存储桶不能为空")
+    @Schema(description = "待分割图片的桶名称", required = true)
+    private String imageBucket;
+    
+    /**
+     * 待分割图片对象键
+     */
+    @NotBlank(message = "图片对象键不能为空")
+    @Schema(description = "待分割图片的对象键", required = true)
+    private String imageKey;
+    
+    /**
+     * 是否保存操作历史，开启后预测成功时写入一条操作历史，同一批次的记录合并写入
+     */
+    @Schema(description = "是否保存操作历史")
+    private Boolean saveHistory = false;
+}
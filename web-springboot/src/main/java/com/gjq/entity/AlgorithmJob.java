@@ -0,0 +1,77 @@
+package com.gjq.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 算法任务实体类（模型训练、数据集验证任务队列）
+ */
+@Data
+@TableName("algorithm_job")
+public class AlgorithmJob {
+    
+    /**
+     * 任务类型: 模型训练
+     */
+    public static final String TYPE_TRAIN = "TRAIN";
+    
+    /**
+     * 任务类型: 数据集验证
+     */
+    public static final String TYPE_VALIDATE = "VALIDATE";
+    
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 任务类型(TRAIN/VALIDATE)
+     */
+    private String jobType;
+    
+    /**
+     * 资源ID(训练任务为模型ID，验证任务为数据集ID)
+     */
+    private Long resourceId;
+    
+    /**
+     * 优先级，数值越大越先执行，相同优先级按提交顺序执行
+     */
+    private Integer priority;
+    
+    /**
+     * 状态(0:排队中 1:执行中 2:已完成 3:失败)
+     */
+    private Integer status;
+    
+    /**
+     * 已分发次数
+     */
+    private Integer attempts;
+    
+    /**
+     * 错误信息
+     */
+    private String errorMsg;
+    
+    /**
+     * 开始执行时间
+     */
+    private LocalDateTime startTime;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+    
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
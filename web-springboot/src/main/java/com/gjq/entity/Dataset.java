@@ -39,6 +39,11 @@ public class Dataset {
      */
     private String objectKey;
     
+    /**
+     * 文件内容SHA-256
+     */
+    private String contentHash;
+    
     /**
      * 训练样例数量
      */
@@ -0,0 +1,46 @@
+package com.gjq.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据集分片上传已接收分片实体类
+ */
+@Data
+@TableName("dataset_upload_part")
+public class DatasetUploadPart {
+    
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 上传会话ID
+     */
+    private Long sessionId;
+    
+    /**
+     * 分片序号，从1开始
+     */
+    private Integer partNumber;
+    
+    /**
+     * 分片大小(字节)
+     */
+    private Long size;
+    
+    /**
+     * 分片内容SHA-256
+     */
+    private String sha256;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,67 @@
+package com.gjq.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据集分片上传会话实体类
+ */
+@Data
+@TableName("dataset_upload_session")
+public class DatasetUploadSession {
+    
+    /**
+     * 主键ID（上传ID）
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 数据集ID
+     */
+    private Long datasetId;
+    
+    /**
+     * 上传用户ID
+     */
+    private Long userId;
+    
+    /**
+     * 文件名
+     */
+    private String fileName;
+    
+    /**
+     * 文件总大小(字节)
+     */
+    private Long fileSize;
+    
+    /**
+     * 客户端提供的文件指纹
+     */
+    private String fingerprint;
+    
+    /**
+     * 分片大小(字节)，最后一个分片可以小于该值
+     */
+    private Long partSize;
+    
+    /**
+     * 分片总数
+     */
+    private Integer totalParts;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+    
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
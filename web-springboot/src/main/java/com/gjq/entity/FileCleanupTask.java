@@ -0,0 +1,62 @@
+package com.gjq.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待删除文件实体类（文件清理任务表，与业务记录的删除在同一事务中写入）
+ */
+@Data
+@TableName("file_cleanup_task")
+public class FileCleanupTask {
+    
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 存储桶名称
+     */
+    private String bucket;
+    
+    /**
+     * 对象键
+     */
+    private String objectKey;
+    
+    /**
+     * 状态 0:等待删除 1:删除失败(不再重试)
+     */
+    private Integer status;
+    
+    /**
+     * 已尝试删除次数
+     */
+    private Integer attempts;
+    
+    /**
+     * 下次尝试删除的时间
+     */
+    private LocalDateTime nextAttemptTime;
+    
+    /**
+     * 最近一次删除失败的错误信息
+     */
+    private String errorMsg;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+    
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
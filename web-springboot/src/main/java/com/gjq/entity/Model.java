@@ -43,6 +43,11 @@ public class Model {
      */
     private String datasetObjectKey;
     
+    /**
+     * 数据集副本内容哈希(对应model_dataset_blob，为空表示模型独占的历史副本)
+     */
+    private String datasetHash;
+    
     /**
      * 模型存储桶
      */
@@ -0,0 +1,52 @@
+package com.gjq.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 模型训练数据集副本实体类（按内容哈希去重，多个模型共享同一份副本）
+ */
+@Data
+@TableName("model_dataset_blob")
+public class ModelDatasetBlob {
+    
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 数据集文件内容SHA-256
+     */
+    private String contentHash;
+    
+    /**
+     * 副本存储桶
+     */
+    private String bucket;
+    
+    /**
+     * 副本对象键
+     */
+    private String objectKey;
+    
+    /**
+     * 引用该副本的模型数量
+     */
+    private Integer refCount;
+    
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+    
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,77 @@
+package com.gjq.interceptor;
+
+import com.gjq.utils.RequestProfile;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 慢请求日志
+ * <p>
+ * 记录每个请求中SQL、文件服务、算法服务调用的耗时（见{@link RequestProfile}），
+ * 总耗时超过阈值时输出耗时分解，用于判断慢请求是慢在数据库、文件服务还是算法服务。
+ * 每分钟最多输出固定条数，避免下游整体变慢时日志刷屏；SSE等异步请求不参与统计。
+ */
+@Component
+public class SlowRequestFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowRequestFilter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${metrics.slow-request.threshold:2000}")
+    private long threshold;
+
+    @Value("${metrics.slow-request.max-logs-per-minute:60}")
+    private int maxLogsPerMinute;
+
+    private final AtomicLong windowStart = new AtomicLong();
+
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestProfile.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestProfile profile = RequestProfile.finish();
+            if (profile != null && !request.isAsyncStarted()) {
+                long elapsed = profile.elapsedMillis();
+                if (elapsed >= threshold) {
+                    meterRegistry.counter("http.server.slow.requests").increment();
+                    if (acquireLogSlot()) {
+                        logger.warn("慢请求: {} {}, 状态码: {}, 耗时: {}ms, 耗时分解: {}", request.getMethod(),
+                                request.getRequestURI(), response.getStatus(), elapsed, profile.summary());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 按分钟窗口限制日志条数
+     */
+    private boolean acquireLogSlot() {
+        long minute = System.currentTimeMillis() / 60000;
+        long start = windowStart.get();
+        if (start != minute && windowStart.compareAndSet(start, minute)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= maxLogsPerMinute;
+    }
+}
@@ -1,13 +1,18 @@
 package com.gjq.interceptor;
 
 import com.gjq.common.exception.BusinessException;
+import com.gjq.controller.EventController;
+import com.gjq.entity.User;
+import com.gjq.service.support.UserCache;
 import com.gjq.utils.JwtUtils;
+import com.gjq.utils.SecurityUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 /**
@@ -23,6 +28,9 @@ public class TokenInterceptor implements HandlerInterceptor {
     
     @Value("${system.admin-user-id}")
     private Long systemUserId;  // 系统用户ID（管理员）
+    
+    @Autowired
+    private UserCache userCache;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -41,6 +49,10 @@ public class TokenInterceptor implements HandlerInterceptor {
 
         // 获取token
         String token = request.getHeader("Authorization");
+        if ((token == null || token.isEmpty()) && isQueryTokenAllowed(request)) {
+            // EventSource无法设置请求头，只有SSE订阅接口允许通过查询参数传递token
+            token = request.getParameter("token");
+        }
         if (token == null || token.isEmpty()) {
             throw new BusinessException(401, "未登录");
         }
@@ -50,17 +62,27 @@ public class TokenInterceptor implements HandlerInterceptor {
             token = token.substring(7);
         }
 
-        try {
-            // 验证token
-            if (!JwtUtils.validateToken(token)) {
-                throw new BusinessException(401, "token无效");
-            }
-            // 获取用户ID并存入request
-            Long userId = JwtUtils.getUserId(token);
-            request.setAttribute("userId", userId);
-            return true;
-        } catch (Exception e) {
+        // 验证token并获取用户ID
+        Long userId = JwtUtils.verify(token);
+        if (userId == null) {
             throw new BusinessException(401, "token无效");
         }
+
+        // 解析当前用户（走缓存），后续SecurityUtils直接从request中读取
+        User user = userCache.get(userId);
+        if (user == null) {
+            throw new BusinessException(401, "用户不存在");
+        }
+        if (user.getStatus() != null && user.getStatus() == 0) {
+            throw new BusinessException(401, "账号已被禁用");
+        }
+        request.setAttribute("userId", userId);
+        request.setAttribute(SecurityUtils.CURRENT_USER_ATTRIBUTE, user);
+        return true;
+    }
+
+    private boolean isQueryTokenAllowed(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return EventController.SUBSCRIBE_PATH.equals(path);
     }
-} 
\ No newline at end of file
+}
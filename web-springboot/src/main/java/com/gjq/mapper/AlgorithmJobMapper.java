@@ -0,0 +1,12 @@
+package com.gjq.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gjq.entity.AlgorithmJob;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 算法任务Mapper接口
+ */
+@Mapper
+public interface AlgorithmJobMapper extends BaseMapper<AlgorithmJob> {
+}
@@ -0,0 +1,12 @@
+package com.gjq.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gjq.entity.DatasetUploadPart;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 数据集分片上传分片Mapper接口
+ */
+@Mapper
+public interface DatasetUploadPartMapper extends BaseMapper<DatasetUploadPart> {
+}
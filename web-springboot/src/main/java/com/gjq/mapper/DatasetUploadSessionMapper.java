@@ -0,0 +1,12 @@
+package com.gjq.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gjq.entity.DatasetUploadSession;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 数据集分片上传会话Mapper接口
+ */
+@Mapper
+public interface DatasetUploadSessionMapper extends BaseMapper<DatasetUploadSession> {
+}
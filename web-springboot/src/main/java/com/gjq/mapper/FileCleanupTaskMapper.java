@@ -0,0 +1,28 @@
+package com.gjq.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gjq.entity.FileCleanupTask;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 文件清理任务Mapper接口
+ */
+@Mapper
+public interface FileCleanupTaskMapper extends BaseMapper<FileCleanupTask> {
+
+    /**
+     * 批量写入清理任务，一条多行INSERT语句
+     *
+     * @param tasks 清理任务，只使用存储桶和对象键
+     * @return 写入行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO file_cleanup_task (bucket, object_key) VALUES " +
+            "<foreach collection='tasks' item='task' separator=','>(#{task.bucket}, #{task.objectKey})</foreach>" +
+            "</script>")
+    int insertBatch(@Param("tasks") List<FileCleanupTask> tasks);
+}
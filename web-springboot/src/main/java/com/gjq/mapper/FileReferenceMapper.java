@@ -0,0 +1,26 @@
+package com.gjq.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 文件引用查询Mapper，汇总各业务表中引用的对象存储文件
+ */
+@Mapper
+public interface FileReferenceMapper {
+
+    /**
+     * 查询给定对象键中仍被业务记录引用的部分
+     * <p>
+     * 引用来源：数据集文件、模型权重和训练数据集副本、数据集副本表、用户头像、
+     * 评估反馈和操作历史中的图片，以及等待删除的清理任务
+     *
+     * @param bucket 存储桶名称
+     * @param objectKeys 对象键
+     * @return 被引用的对象键
+     */
+    List<String> selectReferencedKeys(@Param("bucket") String bucket, @Param("objectKeys") Collection<String> objectKeys);
+}
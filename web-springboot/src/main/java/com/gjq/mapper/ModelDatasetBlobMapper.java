@@ -0,0 +1,12 @@
+package com.gjq.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gjq.entity.ModelDatasetBlob;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 模型训练数据集副本Mapper接口
+ */
+@Mapper
+public interface ModelDatasetBlobMapper extends BaseMapper<ModelDatasetBlob> {
+}
@@ -0,0 +1,82 @@
+package com.gjq.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.gjq.entity.AlgorithmJob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 算法任务队列服务接口
+ */
+public interface AlgorithmJobService extends IService<AlgorithmJob> {
+    
+    /**
+     * 提交任务，同一资源已有排队中或执行中的任务时不重复提交
+     * 应在修改资源状态的同一事务中调用，保证任务和状态一起提交
+     *
+     * @param jobType 任务类型
+     * @param resourceId 资源ID
+     * @param priority 优先级
+     * @throws com.gjq.common.exception.BusinessException 排队任务数达到上限时抛出异常
+     */
+    void enqueue(String jobType, Long resourceId, int priority);
+    
+    /**
+     * 按优先级和提交顺序获取排队中的任务
+     *
+     * @param jobType 任务类型
+     * @param limit 最大数量
+     * @return 任务列表
+     */
+    List<AlgorithmJob> listPending(String jobType, int limit);
+    
+    /**
+     * 统计执行中的任务数
+     *
+     * @param jobType 任务类型
+     * @return 任务数
+     */
+    long countRunning(String jobType);
+    
+    /**
+     * 抢占排队中的任务，只有一个调用方能抢占成功
+     *
+     * @param jobId 任务ID
+     * @return 是否抢占成功
+     */
+    boolean claim(Long jobId);
+    
+    /**
+     * 归还已抢占但未能执行的任务，重新排队
+     *
+     * @param jobId 任务ID
+     */
+    void requeue(Long jobId);
+    
+    /**
+     * 结束资源当前的任务（排队中或执行中）
+     *
+     * @param jobType 任务类型
+     * @param resourceId 资源ID
+     * @param success 是否成功
+     * @param errorMsg 错误信息
+     */
+    void finish(String jobType, Long resourceId, boolean success, String errorMsg);
+    
+    /**
+     * 获取开始时间早于指定时间仍在执行中的任务
+     *
+     * @param jobType 任务类型
+     * @param startedBefore 开始时间上限
+     * @return 任务列表
+     */
+    List<AlgorithmJob> listRunningStartedBefore(String jobType, LocalDateTime startedBefore);
+    
+    /**
+     * 启动恢复：执行中的任务重新排队，处于训练中/验证中但没有任务的资源补充任务
+     *
+     * @return 恢复的任务数
+     */
+    int recover();
+}
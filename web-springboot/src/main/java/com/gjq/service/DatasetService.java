@@ -1,6 +1,7 @@
 package com.gjq.service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import org.springframework.web.multipart.MultipartFile;
@@ -38,11 +39,44 @@ public interface DatasetService extends IService<Dataset> {
     Boolean uploadDataset(Long id, MultipartFile file, Long userId);
     
     /**
-     * 异步验证数据集
+     * 上传数据集文件（文件内容以流的形式提供，用于分片上传合并后的文件）
+     * 
+     * @param id 数据集ID
+     * @param inputStream 文件内容
+     * @param size 文件大小
+     * @param userId 用户ID
+     * @return 是否上传成功
+     */
+    Boolean uploadDataset(Long id, InputStream inputStream, long size, Long userId);
+    
+    /**
+     * 上传数据集文件（文件内容以流的形式提供）
+     * 文件先在事务外上传到对象存储，再在一个短事务中更新数据集记录
+     * 
+     * @param id 数据集ID
+     * @param inputStream 文件内容
+     * @param size 文件大小
+     * @param userId 用户ID
+     * @param inTransaction 与数据集记录更新在同一事务中执行的操作，如删除上传会话，可为null
+     * @return 是否上传成功
+     */
+    Boolean uploadDataset(Long id, InputStream inputStream, long size, Long userId, Runnable inTransaction);
+    
+    /**
+     * 检查数据集是否存在以及当前用户是否有权上传文件
+     * 
+     * @param id 数据集ID
+     * @param userId 用户ID
+     * @return 数据集
+     */
+    Dataset checkUploadPermission(Long id, Long userId);
+    
+    /**
+     * 调用算法服务验证数据集并更新验证结果（由任务队列调用，不要直接调用）
      * 
      * @param id 数据集ID
      */
-    void validateDatasetAsync(Long id);
+    void executeValidation(Long id);
     
     /**
      * 删除数据集
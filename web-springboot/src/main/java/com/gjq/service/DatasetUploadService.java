@@ -0,0 +1,64 @@
+package com.gjq.service;
+
+import java.io.InputStream;
+import java.util.List;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.gjq.dto.dataset.DatasetUploadInitDTO;
+import com.gjq.entity.DatasetUploadSession;
+import com.gjq.vo.dataset.DatasetUploadVO;
+
+/**
+ * 数据集分片上传服务接口
+ * <p>
+ * 大文件按分片上传，分片暂存在本地目录，断线后查询已接收的分片继续上传，全部分片到齐后合并上传到文件服务。
+ */
+public interface DatasetUploadService extends IService<DatasetUploadSession> {
+    
+    /**
+     * 初始化分片上传，同一用户对同一数据集上传同名、同大小且指纹相同的文件时返回未完成的会话用于续传
+     * 
+     * @param datasetId 数据集ID
+     * @param dto 初始化参数
+     * @param userId 用户ID
+     * @return 上传会话
+     */
+    DatasetUploadVO initUpload(Long datasetId, DatasetUploadInitDTO dto, Long userId);
+    
+    /**
+     * 上传分片，重复上传同一分片时覆盖
+     * 
+     * @param datasetId 数据集ID
+     * @param uploadId 上传ID
+     * @param partNumber 分片序号，从1开始
+     * @param inputStream 分片内容
+     * @param sha256 分片内容SHA-256（十六进制），为空时不校验
+     * @param userId 用户ID
+     */
+    void uploadPart(Long datasetId, Long uploadId, Integer partNumber, InputStream inputStream, String sha256, Long userId);
+    
+    /**
+     * 查询已接收的分片序号
+     * 
+     * @param datasetId 数据集ID
+     * @param uploadId 上传ID
+     * @param userId 用户ID
+     * @return 分片序号列表
+     */
+    List<Integer> listParts(Long datasetId, Long uploadId, Long userId);
+    
+    /**
+     * 完成上传：按顺序合并分片上传到文件服务并更新数据集文件
+     * 
+     * @param datasetId 数据集ID
+     * @param uploadId 上传ID
+     * @param userId 用户ID
+     * @return 是否上传成功
+     */
+    Boolean completeUpload(Long datasetId, Long uploadId, Long userId);
+    
+    /**
+     * 清理超时未完成的上传会话和暂存分片
+     */
+    void cleanExpiredSessions();
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.gjq.dto.feedback.FeedbackCreateDTO;
 import com.gjq.dto.feedback.FeedbackVO;
 import com.gjq.entity.Feedback;
+import com.gjq.vo.CursorPageVO;
 
 /**
  * 评估反馈服务接口
@@ -37,6 +38,18 @@ public interface FeedbackService {
      */
     Page<FeedbackVO> pageFeedbacks(Page<Feedback> page, Long modelId, Long userId);
     
+    /**
+     * 游标分页查询评估反馈，按创建时间倒序
+     *
+     * @param cursor 上一页返回的游标，第一页为空
+     * @param size 每页大小
+     * @param modelId 模型ID
+     * @param withTotal 是否统计总条数
+     * @param userId 当前用户ID
+     * @return 游标分页结果
+     */
+    CursorPageVO<FeedbackVO> cursorFeedbacks(String cursor, int size, Long modelId, boolean withTotal, Long userId);
+    
     /**
      * 删除评估反馈
      *
@@ -0,0 +1,27 @@
+package com.gjq.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.gjq.entity.Dataset;
+import com.gjq.entity.ModelDatasetBlob;
+
+/**
+ * 模型训练数据集副本服务接口
+ */
+public interface ModelDatasetBlobService extends IService<ModelDatasetBlob> {
+    
+    /**
+     * 获取数据集的模型专属副本并增加引用计数
+     * 内容相同的数据集共享同一份副本，不存在时才会复制
+     *
+     * @param dataset 数据集
+     * @return 数据集副本
+     */
+    ModelDatasetBlob acquire(Dataset dataset);
+    
+    /**
+     * 释放数据集副本的一次引用，最后一个引用释放时删除副本文件
+     *
+     * @param contentHash 数据集文件内容哈希
+     */
+    void release(String contentHash);
+}
@@ -44,6 +44,14 @@ public interface ModelService extends IService<Model> {
      */
     ModelVO getModelDetail(Long id, Long userId);
     
+    /**
+     * 获取模型详情当前的版本号，用于条件请求
+     *
+     * @param id 模型ID
+     * @return 版本号（带引号的ETag格式）
+     */
+    String getModelDetailVersion(Long id);
+    
     /**
      * 获取所有模型
      *
@@ -62,6 +70,14 @@ public interface ModelService extends IService<Model> {
      */
     void trainModel(Long id, Long userId, Object trainHyperparams);
     
+    /**
+     * 将训练任务分发到算法服务（由任务队列调用，不要直接调用）
+     *
+     * @param id 模型ID
+     * @throws RuntimeException 分发失败时抛出异常，模型状态已更新为训练失败
+     */
+    void dispatchTraining(Long id);
+    
     /**
      * 更新模型状态
      *
@@ -5,6 +5,9 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.gjq.dto.history.OperationHistoryCreateDTO;
 import com.gjq.dto.history.OperationHistoryVO;
 import com.gjq.entity.OperationHistory;
+import com.gjq.vo.CursorPageVO;
+
+import java.util.List;
 
 /**
  * 操作历史服务接口
@@ -19,6 +22,15 @@ public interface OperationHistoryService extends IService<OperationHistory> {
      */
     Long createHistory(OperationHistoryCreateDTO createDTO, Long userId);
     
+    /**
+     * 批量创建操作历史，所有记录在同一事务中写入，任一模型不存在时全部不写入
+     *
+     * @param createDTOs 创建DTO列表
+     * @param userId 用户ID
+     * @return 操作历史ID，顺序与传入的记录一致
+     */
+    List<Long> batchCreateHistories(List<OperationHistoryCreateDTO> createDTOs, Long userId);
+    
     /**
      * 根据ID获取操作历史
      *
@@ -40,6 +52,19 @@ public interface OperationHistoryService extends IService<OperationHistory> {
      */
     Page<OperationHistoryVO> pageHistories(Page<OperationHistory> page, String operationType, Long modelId, String createUsername, Long userId);
     
+    /**
+     * 游标分页查询操作历史，按创建时间倒序
+     *
+     * @param cursor 上一页返回的游标，第一页为空
+     * @param size 每页大小
+     * @param modelId 模型ID
+     * @param createUsername 创建用户名
+     * @param withTotal 是否统计总条数
+     * @param userId 当前用户ID
+     * @return 游标分页结果
+     */
+    CursorPageVO<OperationHistoryVO> cursorHistories(String cursor, int size, Long modelId, String createUsername, boolean withTotal, Long userId);
+    
     /**
      * 删除操作历史
      *
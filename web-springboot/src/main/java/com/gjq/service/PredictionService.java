@@ -0,0 +1,21 @@
+package com.gjq.service;
+
+import com.gjq.dto.prediction.PredictRequestDTO;
+import com.gjq.vo.prediction.PredictResultVO;
+
+/**
+ * 图像分割预测服务接口
+ * <p>
+ * 预测请求经业务端转发给算法服务，同一模型的并发请求合并成批次推理。
+ */
+public interface PredictionService {
+    
+    /**
+     * 图像分割预测，阻塞等待所在批次返回结果
+     *
+     * @param dto 预测参数
+     * @param userId 用户ID
+     * @return 预测结果
+     */
+    PredictResultVO predict(PredictRequestDTO dto, Long userId);
+}
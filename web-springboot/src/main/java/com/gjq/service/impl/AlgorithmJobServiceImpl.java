@@ -0,0 +1,184 @@
+package com.gjq.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gjq.common.StatusConstant;
+import com.gjq.common.exception.BusinessException;
+import com.gjq.entity.AlgorithmJob;
+import com.gjq.entity.Dataset;
+import com.gjq.entity.Model;
+import com.gjq.mapper.AlgorithmJobMapper;
+import com.gjq.mapper.DatasetMapper;
+import com.gjq.mapper.ModelMapper;
+import com.gjq.service.AlgorithmJobService;
+import com.gjq.service.support.AlgorithmJobEnqueuedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 算法任务队列服务实现类
+ */
+@Slf4j
+@Service
+public class AlgorithmJobServiceImpl extends ServiceImpl<AlgorithmJobMapper, AlgorithmJob> implements AlgorithmJobService {
+
+    /**
+     * 恢复任务的优先级，重启前已经在执行的任务优先重新分发
+     */
+    private static final int RECOVER_PRIORITY = 10;
+
+    private static final List<Integer> ACTIVE_STATUSES =
+            Arrays.asList(StatusConstant.JOB_STATUS_PENDING, StatusConstant.JOB_STATUS_RUNNING);
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private DatasetMapper datasetMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${algorithm-job.max-pending:50}")
+    private int maxPending;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void enqueue(String jobType, Long resourceId, int priority) {
+        if (hasActiveJob(jobType, resourceId)) {
+            log.info("资源已有未完成的任务，不重复提交，类型: {}, 资源ID: {}", jobType, resourceId);
+            return;
+        }
+
+        // 背压：排队任务过多时直接拒绝，而不是无限堆积
+        long pending = count(new LambdaQueryWrapper<AlgorithmJob>()
+                .eq(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_PENDING));
+        if (pending >= maxPending) {
+            throw new BusinessException("任务队列已满，请稍后再试");
+        }
+
+        save(newJob(jobType, resourceId, priority));
+        log.info("任务已提交，类型: {}, 资源ID: {}, 当前排队数: {}", jobType, resourceId, pending + 1);
+        // 事务提交后唤醒分发器，不必等待下一次定时分发
+        eventPublisher.publishEvent(new AlgorithmJobEnqueuedEvent(jobType));
+    }
+
+    @Override
+    public List<AlgorithmJob> listPending(String jobType, int limit) {
+        return list(new LambdaQueryWrapper<AlgorithmJob>()
+                .eq(AlgorithmJob::getJobType, jobType)
+                .eq(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_PENDING)
+                .orderByDesc(AlgorithmJob::getPriority)
+                .orderByAsc(AlgorithmJob::getId)
+                .last("LIMIT " + limit));
+    }
+
+    @Override
+    public long countRunning(String jobType) {
+        return count(new LambdaQueryWrapper<AlgorithmJob>()
+                .eq(AlgorithmJob::getJobType, jobType)
+                .eq(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_RUNNING));
+    }
+
+    @Override
+    public boolean claim(Long jobId) {
+        LambdaUpdateWrapper<AlgorithmJob> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(AlgorithmJob::getId, jobId)
+                    .eq(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_PENDING)
+                    .set(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_RUNNING)
+                    .set(AlgorithmJob::getStartTime, LocalDateTime.now())
+                    .setSql("attempts = attempts + 1");
+        return update(updateWrapper);
+    }
+
+    @Override
+    public void requeue(Long jobId) {
+        LambdaUpdateWrapper<AlgorithmJob> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(AlgorithmJob::getId, jobId)
+                    .eq(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_RUNNING)
+                    .set(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_PENDING)
+                    .set(AlgorithmJob::getStartTime, null)
+                    .setSql("attempts = attempts - 1");
+        update(updateWrapper);
+    }
+
+    @Override
+    public void finish(String jobType, Long resourceId, boolean success, String errorMsg) {
+        LambdaUpdateWrapper<AlgorithmJob> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(AlgorithmJob::getJobType, jobType)
+                    .eq(AlgorithmJob::getResourceId, resourceId)
+                    .in(AlgorithmJob::getStatus, ACTIVE_STATUSES)
+                    .set(AlgorithmJob::getStatus, success ? StatusConstant.JOB_STATUS_SUCCESS : StatusConstant.JOB_STATUS_FAILED)
+                    .set(AlgorithmJob::getErrorMsg, StringUtils.abbreviate(errorMsg, 255));
+        update(updateWrapper);
+    }
+
+    @Override
+    public List<AlgorithmJob> listRunningStartedBefore(String jobType, LocalDateTime startedBefore) {
+        return list(new LambdaQueryWrapper<AlgorithmJob>()
+                .eq(AlgorithmJob::getJobType, jobType)
+                .eq(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_RUNNING)
+                .lt(AlgorithmJob::getStartTime, startedBefore));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int recover() {
+        // 执行中的任务重新排队：验证是同步调用，重启后结果已丢失；训练如果仍在算法服务中运行，重新分发时会被识别
+        LambdaUpdateWrapper<AlgorithmJob> requeueWrapper = new LambdaUpdateWrapper<>();
+        requeueWrapper.eq(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_RUNNING)
+                    .set(AlgorithmJob::getStatus, StatusConstant.JOB_STATUS_PENDING)
+                    .set(AlgorithmJob::getPriority, RECOVER_PRIORITY);
+        int recovered = baseMapper.update(null, requeueWrapper);
+
+        // 处于训练中但没有任务的模型（例如任务队列上线前提交的训练）
+        List<Model> trainingModels = modelMapper.selectList(new LambdaQueryWrapper<Model>()
+                .select(Model::getId)
+                .eq(Model::getStatus, StatusConstant.MODEL_STATUS_TRAINING));
+        for (Model model : trainingModels) {
+            if (!hasActiveJob(AlgorithmJob.TYPE_TRAIN, model.getId())) {
+                save(newJob(AlgorithmJob.TYPE_TRAIN, model.getId(), RECOVER_PRIORITY));
+                recovered++;
+            }
+        }
+
+        // 处于验证中但没有任务的数据集
+        List<Dataset> verifyingDatasets = datasetMapper.selectList(new LambdaQueryWrapper<Dataset>()
+                .select(Dataset::getId)
+                .eq(Dataset::getStatus, StatusConstant.DATASET_STATUS_VERIFYING));
+        for (Dataset dataset : verifyingDatasets) {
+            if (!hasActiveJob(AlgorithmJob.TYPE_VALIDATE, dataset.getId())) {
+                save(newJob(AlgorithmJob.TYPE_VALIDATE, dataset.getId(), RECOVER_PRIORITY));
+                recovered++;
+            }
+        }
+        return recovered;
+    }
+
+    private boolean hasActiveJob(String jobType, Long resourceId) {
+        return count(new LambdaQueryWrapper<AlgorithmJob>()
+                .eq(AlgorithmJob::getJobType, jobType)
+                .eq(AlgorithmJob::getResourceId, resourceId)
+                .in(AlgorithmJob::getStatus, ACTIVE_STATUSES)) > 0;
+    }
+
+    private AlgorithmJob newJob(String jobType, Long resourceId, int priority) {
+        AlgorithmJob job = new AlgorithmJob();
+        job.setJobType(jobType);
+        job.setResourceId(resourceId);
+        job.setPriority(priority);
+        job.setStatus(StatusConstant.JOB_STATUS_PENDING);
+        job.setAttempts(0);
+        return job;
+    }
+}
@@ -1,10 +1,10 @@
 package com.gjq.service.impl;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -16,15 +16,13 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import cn.hutool.core.util.HexUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
@@ -35,13 +33,20 @@ import com.gjq.common.exception.BusinessException;
 import com.gjq.dto.dataset.DatasetAddDTO;
 import com.gjq.dto.dataset.DatasetQueryDTO;
 import com.gjq.dto.dataset.DatasetUpdateDTO;
+import com.gjq.entity.AlgorithmJob;
 import com.gjq.entity.Dataset;
 import com.gjq.entity.User;
 import com.gjq.mapper.DatasetMapper;
 import com.gjq.mapper.UserMapper;
+import com.gjq.service.AlgorithmJobService;
 import com.gjq.service.DatasetService;
+import com.gjq.service.support.DatasetZipInspector;
+import com.gjq.service.support.DownloadUrlSigner;
+import com.gjq.service.support.StatusEventHub;
+import com.gjq.service.support.FileCleaner;
 import com.gjq.utils.SecurityUtils;
 import com.gjq.vo.dataset.DatasetVO;
+import com.gjq.vo.event.StatusEventVO;
 import com.gjq.vo.user.UserInfo;
 
 import jakarta.servlet.http.HttpServletResponse;
@@ -60,11 +65,26 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
     @Autowired
     private FileClient fileClient;
     
+    @Autowired
+    private FileCleaner fileCleaner;
+    
     @Autowired
     private AlgorithmClient algorithmClient;
     
     @Autowired
-    private ApplicationContext applicationContext;
+    private StatusEventHub statusEventHub;
+    
+    @Autowired
+    private AlgorithmJobService algorithmJobService;
+    
+    @Autowired
+    private DatasetZipInspector datasetZipInspector;
+
+    @Autowired
+    private DownloadUrlSigner downloadUrlSigner;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
     
     private final static String datasetBucket = "dataset";
     
@@ -101,80 +121,114 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
      * 上传数据集文件
      */
     @Override
-    @Transactional
     public Boolean uploadDataset(Long id, MultipartFile file, Long userId) {
-        // 获取数据集
-        Dataset dataset = getById(id);
-        if (dataset == null) {
-            throw new BusinessException("数据集不存在");
-        }
-        
-        // 检查权限（管理员可以上传所有，普通用户只能上传自己的）
-        boolean isAdmin = SecurityUtils.isAdmin();
-        if (!isAdmin && !dataset.getCreateUserId().equals(userId)) {
-            throw new BusinessException("您没有权限上传该数据集文件");
-        }
-        
         // 检查文件类型
         String originalFilename = file.getOriginalFilename();
         if (originalFilename == null || !originalFilename.toLowerCase().endsWith(".zip")) {
             throw new BusinessException("只支持ZIP格式的数据集文件");
         }
         
+        // multipart临时文件直接作为数据源，不整体读入内存
+        try (InputStream inputStream = file.getInputStream()) {
+            return uploadDataset(id, inputStream, file.getSize(), userId);
+        } catch (IOException e) {
+            log.error("读取上传文件失败，ID: {}, 错误: {}", id, e.getMessage(), e);
+            throw new BusinessException("上传数据集文件失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 上传数据集文件（文件内容以流的形式提供）
+     */
+    @Override
+    public Boolean uploadDataset(Long id, InputStream inputStream, long size, Long userId) {
+        return uploadDataset(id, inputStream, size, userId, null);
+    }
+    
+    /**
+     * 上传数据集文件（文件内容以流的形式提供）
+     * 大文件传输耗时长，在事务外上传，传输期间不占用数据库连接和行锁
+     */
+    @Override
+    public Boolean uploadDataset(Long id, InputStream inputStream, long size, Long userId, Runnable inTransaction) {
+        checkUploadPermission(id, userId);
+        
+        // 流式上传到对象存储，同时计算内容哈希
+        FileClient.UploadResult response;
+        String contentHash;
         try {
-            // 删除旧文件（如果存在）
-            if (StringUtils.hasText(dataset.getBucket()) && StringUtils.hasText(dataset.getObjectKey())) {
-                try {
-                    fileClient.delete(dataset.getBucket(), dataset.getObjectKey());
-                    log.info("删除旧的数据集文件成功，ID: {}", id);
-                } catch (Exception e) {
-                    log.warn("删除旧的数据集文件失败，ID: {}, 错误: {}", id, e.getMessage());
-                    // 继续执行，不影响上传新文件
-                }
-            }
-            
-            // 生成文件对象键
-            String objectKey = generateObjectKey(id, userId);
-            
-            // 保存文件
-            File tempFile = File.createTempFile("dataset", ".zip");
-            file.transferTo(tempFile);
-            
-            // 上传到对象存储
-            byte[] fileContent = Files.readAllBytes(tempFile.toPath());
-            FileClient.UploadResult response = fileClient.upload(datasetBucket, fileContent, objectKey, false);
-            
-            // 删除临时文件
-            tempFile.delete();
-            
-            // 重置数据集的验证状态和相关信息
-            dataset.setBucket(response.getBucket());
-            dataset.setObjectKey(response.getObjectKey());
-            dataset.setStatus(StatusConstant.DATASET_STATUS_UNVERIFIED); // 未验证
-            dataset.setTrainCount(0); // 清空训练样本数量
-            dataset.setValCount(0);   // 清空验证样本数量
-            dataset.setErrorMsg(null); // 清空错误信息
-            
-            // 更新数据集
-            updateById(dataset);
-            
-            log.info("上传数据集文件成功，ID: {}", id);
-            return true;
-            
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            response = fileClient.upload(datasetBucket, new DigestInputStream(inputStream, digest), size,
+                    generateObjectKey(id, userId), false);
+            contentHash = HexUtil.encodeHexStr(digest.digest());
         } catch (Exception e) {
             log.error("上传数据集文件失败，ID: {}, 错误: {}", id, e.getMessage(), e);
             throw new BusinessException("上传数据集文件失败: " + e.getMessage());
         }
+        
+        // 短事务中更新数据集记录，失败时删除刚上传的文件
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                bindDatasetFile(id, response.getBucket(), response.getObjectKey(), contentHash);
+                if (inTransaction != null) {
+                    inTransaction.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            fileCleaner.deleteAfterCommit(response.getBucket(), response.getObjectKey());
+            throw e;
+        }
+        log.info("上传数据集文件成功，ID: {}", id);
+        return true;
     }
     
     /**
-     * 异步验证数据集
+     * 数据集记录指向新上传的文件，重置验证状态，旧文件在事务提交后删除
      */
+    private void bindDatasetFile(Long id, String bucket, String objectKey, String contentHash) {
+        Dataset dataset = getById(id);
+        if (dataset == null) {
+            throw new BusinessException("数据集不存在");
+        }
+        if (StringUtils.hasText(dataset.getBucket()) && StringUtils.hasText(dataset.getObjectKey())) {
+            fileCleaner.deleteAfterCommit(dataset.getBucket(), dataset.getObjectKey());
+        }
+        
+        // 重置数据集的验证状态和相关信息
+        dataset.setBucket(bucket);
+        dataset.setObjectKey(objectKey);
+        dataset.setContentHash(contentHash);
+        dataset.setStatus(StatusConstant.DATASET_STATUS_UNVERIFIED); // 未验证
+        dataset.setTrainCount(0); // 清空训练样本数量
+        dataset.setValCount(0);   // 清空验证样本数量
+        dataset.setErrorMsg(null); // 清空错误信息
+        updateById(dataset);
+    }
+    
     @Override
-    @Async("taskExecutor")
-    public void validateDatasetAsync(Long id) {
+    public Dataset checkUploadPermission(Long id, Long userId) {
+        Dataset dataset = getById(id);
+        if (dataset == null) {
+            throw new BusinessException("数据集不存在");
+        }
+        
+        // 检查权限（管理员可以上传所有，普通用户只能上传自己的）
+        boolean isAdmin = SecurityUtils.isAdmin();
+        if (!isAdmin && !dataset.getCreateUserId().equals(userId)) {
+            throw new BusinessException("您没有权限上传该数据集文件");
+        }
+        return dataset;
+    }
+    
+    /**
+     * 验证数据集（由任务队列在验证线程池中调用，算法服务同步返回验证结果）
+     * <p>
+     * 调用算法服务前先预检ZIP的目录结构，结构错误时直接标记失败，不占用算法服务
+     */
+    @Override
+    public void executeValidation(Long id) {
         try {
-            log.info("开始异步验证数据集，ID: {}", id);
+            log.info("开始验证数据集，ID: {}", id);
             
             // 获取数据集
             Dataset dataset = getById(id);
@@ -183,6 +237,22 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
                 return;
             }
             
+            // 预检需要从文件服务读取ZIP的中央目录，放在验证线程中执行，不占用请求线程和数据库事务
+            DatasetZipInspector.Result inspection = datasetZipInspector.inspect(dataset.getBucket(), dataset.getObjectKey());
+            if (inspection != null && !inspection.valid()) {
+                updateDatasetStatus(id, StatusConstant.DATASET_STATUS_VERIFIED_FAILED, inspection.errorMsg(), 0, 0);
+                log.info("数据集预检未通过，ID: {}，错误: {}", id, inspection.errorMsg());
+                return;
+            }
+            if (inspection != null) {
+                // 预检通过时先填入样本数量，算法服务验证完成后以其结果为准
+                lambdaUpdate().eq(Dataset::getId, id)
+                        .eq(Dataset::getStatus, StatusConstant.DATASET_STATUS_VERIFYING)
+                        .set(Dataset::getTrainCount, inspection.trainCount())
+                        .set(Dataset::getValCount, inspection.valCount())
+                        .update();
+            }
+            
             // 调用算法服务验证数据集
             Map<String, Object> params = new HashMap<>();
             params.put("id", dataset.getId());
@@ -258,13 +328,12 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
         
         // 删除文件
         if (StringUtils.hasText(dataset.getBucket()) && StringUtils.hasText(dataset.getObjectKey())) {
-            try {
-                fileClient.delete(dataset.getBucket(), dataset.getObjectKey());
-            } catch (Exception e) {
-                log.error("删除数据集文件失败", e);
-            }
+            fileCleaner.deleteAfterCommit(dataset.getBucket(), dataset.getObjectKey());
         }
         
+        // 取消未完成的验证任务
+        algorithmJobService.finish(AlgorithmJob.TYPE_VALIDATE, id, false, "数据集已删除");
+        
         // 删除数据集
         baseMapper.deleteById(id);
     }
@@ -352,7 +421,7 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
             // 设置创建用户
             User user = userMap.get(dataset.getCreateUserId());
             if (user != null) {
-                UserInfo userInfo = new UserInfo(user, fileClient);
+                UserInfo userInfo = new UserInfo(user, downloadUrlSigner);
                 vo.setCreateUser(userInfo);
             }
             
@@ -421,7 +490,7 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
             // 设置创建用户
             User user = userMap.get(dataset.getCreateUserId());
             if (user != null) {
-                UserInfo userInfo = new UserInfo(user, fileClient);
+                UserInfo userInfo = new UserInfo(user, downloadUrlSigner);
                 vo.setCreateUser(userInfo);
             }
             
@@ -464,6 +533,17 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
         
         // 更新数据集
         baseMapper.updateById(dataset);
+        
+        // 验证结束，结束对应的验证任务
+        if (status != null && (status == StatusConstant.DATASET_STATUS_VERIFIED_SUCCESS
+                || status == StatusConstant.DATASET_STATUS_VERIFIED_FAILED)) {
+            algorithmJobService.finish(AlgorithmJob.TYPE_VALIDATE, id,
+                status == StatusConstant.DATASET_STATUS_VERIFIED_SUCCESS, errorMsg);
+        }
+        
+        // 事务提交后推送状态变更
+        statusEventHub.publishAfterCommit(
+            new StatusEventVO(StatusEventVO.TYPE_DATASET, id, status, errorMsg), dataset.getCreateUserId());
     }
     
     /**
@@ -476,7 +556,7 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
         // 设置创建用户
         User user = userMapper.selectById(dataset.getCreateUserId());
         if (user != null) {
-            UserInfo userInfo = new UserInfo(user, fileClient);
+            UserInfo userInfo = new UserInfo(user, downloadUrlSigner);
             vo.setCreateUser(userInfo);
         }
         
@@ -527,20 +607,8 @@ public class DatasetServiceImpl extends ServiceImpl<DatasetMapper, Dataset> impl
         dataset.setStatus(StatusConstant.DATASET_STATUS_VERIFYING);
         updateById(dataset);
         
-        // 在事务提交后异步验证数据集
-        if (TransactionSynchronizationManager.isSynchronizationActive()) {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCommit() {
-                    DatasetService datasetService = applicationContext.getBean(DatasetService.class);
-                    datasetService.validateDatasetAsync(id);
-                }
-            });
-        } else {
-            // 如果不在事务中，直接异步验证
-            DatasetService datasetService = applicationContext.getBean(DatasetService.class);
-            datasetService.validateDatasetAsync(id);
-        }
+        // 提交验证任务，由任务队列按并发上限在验证线程池中预检并分发到算法服务
+        algorithmJobService.enqueue(AlgorithmJob.TYPE_VALIDATE, id, 0);
     }
 
     /**
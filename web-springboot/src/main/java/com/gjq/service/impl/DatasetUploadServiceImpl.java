@@ -0,0 +1,346 @@
+package com.gjq.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gjq.common.exception.BusinessException;
+import com.gjq.dto.dataset.DatasetUploadInitDTO;
+import com.gjq.entity.DatasetUploadPart;
+import com.gjq.entity.DatasetUploadSession;
+import com.gjq.mapper.DatasetUploadPartMapper;
+import com.gjq.mapper.DatasetUploadSessionMapper;
+import com.gjq.service.DatasetService;
+import com.gjq.service.DatasetUploadService;
+import com.gjq.vo.dataset.DatasetUploadVO;
+
+import cn.hutool.core.util.HexUtil;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 数据集分片上传服务实现类
+ */
+@Slf4j
+@Service
+public class DatasetUploadServiceImpl extends ServiceImpl<DatasetUploadSessionMapper, DatasetUploadSession> implements DatasetUploadService {
+    
+    @Autowired
+    private DatasetService datasetService;
+    
+    @Autowired
+    private DatasetUploadPartMapper datasetUploadPartMapper;
+    
+    /**
+     * 分片暂存目录，每个上传会话一个子目录
+     */
+    @Value("${upload.spool-dir:${java.io.tmpdir}/gjq-upload}")
+    private String spoolDir;
+    
+    @Value("${upload.part-size:8388608}")
+    private long defaultPartSize;
+    
+    @Value("${upload.min-part-size:1048576}")
+    private long minPartSize;
+    
+    @Value("${upload.max-part-size:67108864}")
+    private long maxPartSize;
+    
+    @Value("${upload.max-file-size:10737418240}")
+    private long maxFileSize;
+    
+    /**
+     * 会话最后一次收到分片后超过该时间未完成则清理
+     */
+    @Value("${upload.session-ttl:86400000}")
+    private long sessionTtl;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    @Override
+    public DatasetUploadVO initUpload(Long datasetId, DatasetUploadInitDTO dto, Long userId) {
+        datasetService.checkUploadPermission(datasetId, userId);
+        
+        // 检查文件类型和大小
+        if (!dto.getFileName().toLowerCase().endsWith(".zip")) {
+            throw new BusinessException("只支持ZIP格式的数据集文件");
+        }
+        if (dto.getFileSize() > maxFileSize) {
+            throw new BusinessException("数据集文件大小超过限制");
+        }
+        
+        // 存在未完成的相同文件（文件名、大小和指纹都相同）的上传时续传
+        DatasetUploadSession session = getOne(new LambdaQueryWrapper<DatasetUploadSession>()
+                .eq(DatasetUploadSession::getDatasetId, datasetId)
+                .eq(DatasetUploadSession::getUserId, userId)
+                .eq(DatasetUploadSession::getFileName, dto.getFileName())
+                .eq(DatasetUploadSession::getFileSize, dto.getFileSize())
+                .eq(DatasetUploadSession::getFingerprint, dto.getFingerprint())
+                .orderByDesc(DatasetUploadSession::getId)
+                .last("LIMIT 1"));
+        if (session != null) {
+            log.info("续传数据集文件，数据集ID: {}, 上传ID: {}", datasetId, session.getId());
+            return convertToVO(session);
+        }
+        
+        long partSize = dto.getPartSize() == null ? defaultPartSize
+                : Math.min(Math.max(dto.getPartSize(), minPartSize), maxPartSize);
+        session = new DatasetUploadSession();
+        session.setDatasetId(datasetId);
+        session.setUserId(userId);
+        session.setFileName(dto.getFileName());
+        session.setFileSize(dto.getFileSize());
+        session.setFingerprint(dto.getFingerprint());
+        session.setPartSize(partSize);
+        session.setTotalParts((int) ((dto.getFileSize() + partSize - 1) / partSize));
+        save(session);
+        
+        log.info("初始化数据集分片上传，数据集ID: {}, 上传ID: {}, 分片数: {}", datasetId, session.getId(), session.getTotalParts());
+        return convertToVO(session);
+    }
+    
+    @Override
+    public void uploadPart(Long datasetId, Long uploadId, Integer partNumber, InputStream inputStream, String sha256, Long userId) {
+        DatasetUploadSession session = getSession(datasetId, uploadId, userId);
+        if (partNumber == null || partNumber < 1 || partNumber > session.getTotalParts()) {
+            throw new BusinessException("分片序号无效");
+        }
+        long expectedSize = partNumber < session.getTotalParts()
+                ? session.getPartSize()
+                : session.getFileSize() - session.getPartSize() * (session.getTotalParts() - 1);
+        
+        // 先写临时文件，校验通过后原子重命名，同一分片并发重传时不会读到写了一半的文件
+        Path dir = sessionDir(uploadId);
+        Path partFile = dir.resolve(partNumber + ".part");
+        Path tempFile = dir.resolve(partNumber + ".part." + UUID.randomUUID().toString().replace("-", ""));
+        try {
+            Files.createDirectories(dir);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long written;
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                written = copy(new DigestInputStream(inputStream, digest), outputStream, expectedSize);
+            }
+            if (written != expectedSize) {
+                throw new BusinessException("分片大小不正确，期望: " + expectedSize + ", 实际: " + written);
+            }
+            String actualSha256 = HexUtil.encodeHexStr(digest.digest());
+            if (StringUtils.hasText(sha256) && !sha256.equalsIgnoreCase(actualSha256)) {
+                throw new BusinessException("分片校验失败，请重新上传");
+            }
+            Files.move(tempFile, partFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            savePart(uploadId, partNumber, written, actualSha256);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.error("保存分片失败，上传ID: {}, 分片: {}", uploadId, partNumber, e);
+            throw new BusinessException("保存分片失败: " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.warn("删除临时分片文件失败: {}", tempFile);
+            }
+        }
+    }
+    
+    @Override
+    public List<Integer> listParts(Long datasetId, Long uploadId, Long userId) {
+        getSession(datasetId, uploadId, userId);
+        return listPartNumbers(uploadId);
+    }
+    
+    /**
+     * 完成分片上传
+     * 合并后的文件在事务外上传到对象存储，数据集记录更新和会话删除在上传完成后的一个短事务中提交
+     */
+    @Override
+    public Boolean completeUpload(Long datasetId, Long uploadId, Long userId) {
+        DatasetUploadSession session = getSession(datasetId, uploadId, userId);
+        List<Integer> partNumbers = listPartNumbers(uploadId);
+        if (partNumbers.size() != session.getTotalParts()) {
+            throw new BusinessException("分片未全部上传，已接收: " + partNumbers.size() + "/" + session.getTotalParts());
+        }
+        
+        // 按顺序拼接分片流式上传，同一时刻只打开一个分片文件
+        Path dir = sessionDir(uploadId);
+        List<Path> partFiles = partNumbers.stream()
+                .map(partNumber -> dir.resolve(partNumber + ".part"))
+                .collect(Collectors.toList());
+        for (Path partFile : partFiles) {
+            if (!Files.isRegularFile(partFile)) {
+                throw new BusinessException("分片文件已丢失，请重新上传: " + partFile.getFileName());
+            }
+        }
+        try (InputStream inputStream = new SequenceInputStream(openSequentially(partFiles))) {
+            datasetService.uploadDataset(datasetId, inputStream, session.getFileSize(), userId,
+                    () -> removeSession(uploadId));
+        } catch (IOException | UncheckedIOException e) {
+            log.error("合并分片失败，上传ID: {}", uploadId, e);
+            throw new BusinessException("合并分片失败: " + e.getMessage());
+        }
+        
+        // 数据集记录和会话删除已提交，删除暂存分片
+        deleteSessionDir(uploadId);
+        log.info("数据集分片上传完成，数据集ID: {}, 上传ID: {}", datasetId, uploadId);
+        return true;
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${upload.cleanup-interval:3600000}")
+    public void cleanExpiredSessions() {
+        LocalDateTime expireTime = LocalDateTime.now().minus(Duration.ofMillis(sessionTtl));
+        List<DatasetUploadSession> sessions = list(new LambdaQueryWrapper<DatasetUploadSession>()
+                .select(DatasetUploadSession::getId)
+                .lt(DatasetUploadSession::getUpdateTime, expireTime));
+        for (DatasetUploadSession session : sessions) {
+            try {
+                removeSession(session.getId());
+                deleteSessionDir(session.getId());
+                log.info("清理超时的数据集上传会话，上传ID: {}", session.getId());
+            } catch (Exception e) {
+                log.error("清理数据集上传会话失败，上传ID: {}", session.getId(), e);
+            }
+        }
+    }
+    
+    /**
+     * 获取上传会话并检查归属
+     */
+    private DatasetUploadSession getSession(Long datasetId, Long uploadId, Long userId) {
+        DatasetUploadSession session = getById(uploadId);
+        if (session == null || !session.getDatasetId().equals(datasetId) || !session.getUserId().equals(userId)) {
+            throw new BusinessException("上传会话不存在或已过期");
+        }
+        return session;
+    }
+    
+    /**
+     * 记录已接收的分片，并刷新会话的最后活动时间
+     */
+    private void savePart(Long uploadId, Integer partNumber, long size, String sha256) {
+        LambdaUpdateWrapper<DatasetUploadPart> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(DatasetUploadPart::getSessionId, uploadId)
+                    .eq(DatasetUploadPart::getPartNumber, partNumber)
+                    .set(DatasetUploadPart::getSize, size)
+                    .set(DatasetUploadPart::getSha256, sha256);
+        if (datasetUploadPartMapper.update(null, updateWrapper) == 0) {
+            DatasetUploadPart part = new DatasetUploadPart();
+            part.setSessionId(uploadId);
+            part.setPartNumber(partNumber);
+            part.setSize(size);
+            part.setSha256(sha256);
+            try {
+                datasetUploadPartMapper.insert(part);
+            } catch (DuplicateKeyException e) {
+                // 同一分片并发上传，记录已由另一个请求插入
+                datasetUploadPartMapper.update(null, updateWrapper);
+            }
+        }
+        
+        update(new LambdaUpdateWrapper<DatasetUploadSession>()
+                .eq(DatasetUploadSession::getId, uploadId)
+                .set(DatasetUploadSession::getUpdateTime, LocalDateTime.now()));
+    }
+    
+    private List<Integer> listPartNumbers(Long uploadId) {
+        return datasetUploadPartMapper.selectList(new LambdaQueryWrapper<DatasetUploadPart>()
+                        .select(DatasetUploadPart::getPartNumber)
+                        .eq(DatasetUploadPart::getSessionId, uploadId)
+                        .orderByAsc(DatasetUploadPart::getPartNumber))
+                .stream()
+                .map(DatasetUploadPart::getPartNumber)
+                .collect(Collectors.toList());
+    }
+    
+    private void removeSession(Long uploadId) {
+        datasetUploadPartMapper.delete(new LambdaQueryWrapper<DatasetUploadPart>()
+                .eq(DatasetUploadPart::getSessionId, uploadId));
+        removeById(uploadId);
+    }
+    
+    private Path sessionDir(Long uploadId) {
+        return Paths.get(spoolDir, String.valueOf(uploadId));
+    }
+    
+    private void deleteSessionDir(Long uploadId) {
+        try {
+            FileSystemUtils.deleteRecursively(sessionDir(uploadId));
+        } catch (IOException e) {
+            log.warn("删除分片暂存目录失败，上传ID: {}", uploadId, e);
+        }
+    }
+    
+    /**
+     * 复制分片内容，超过期望大小时立即停止，避免异常请求写满磁盘
+     *
+     * @return 实际读取的字节数，超过期望大小时返回值大于limit
+     */
+    private long copy(InputStream inputStream, OutputStream outputStream, long limit) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            total += read;
+            if (total > limit) {
+                return total;
+            }
+            outputStream.write(buffer, 0, read);
+        }
+        return total;
+    }
+    
+    /**
+     * 依次打开分片文件，前一个分片读完后才打开下一个
+     */
+    private Enumeration<InputStream> openSequentially(List<Path> partFiles) {
+        Iterator<Path> iterator = partFiles.iterator();
+        return new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+            
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return Files.newInputStream(iterator.next());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+    
+    private DatasetUploadVO convertToVO(DatasetUploadSession session) {
+        DatasetUploadVO vo = new DatasetUploadVO();
+        vo.setUploadId(session.getId());
+        vo.setPartSize(session.getPartSize());
+        vo.setTotalParts(session.getTotalParts());
+        vo.setUploadedParts(listPartNumbers(session.getId()));
+        return vo;
+    }
+}
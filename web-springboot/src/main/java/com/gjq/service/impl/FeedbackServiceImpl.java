@@ -3,7 +3,6 @@ package com.gjq.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.gjq.client.FileClient;
 import com.gjq.common.exception.BusinessException;
 import com.gjq.dto.feedback.FeedbackCreateDTO;
 import com.gjq.dto.feedback.FeedbackVO;
@@ -12,8 +11,13 @@ import com.gjq.entity.Model;
 import com.gjq.entity.User;
 import com.gjq.mapper.FeedbackMapper;
 import com.gjq.mapper.ModelMapper;
-import com.gjq.mapper.UserMapper;
+import com.gjq.service.support.DownloadUrlSigner;
 import com.gjq.service.FeedbackService;
+import com.gjq.service.support.EntityNameResolver;
+import com.gjq.service.support.FileCleaner;
+import com.gjq.service.support.UserCache;
+import com.gjq.utils.CursorUtils;
+import com.gjq.vo.CursorPageVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +25,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -38,10 +44,16 @@ public class FeedbackServiceImpl extends ServiceImpl<FeedbackMapper, Feedback> i
     private ModelMapper modelMapper;
     
     @Autowired
-    private UserMapper userMapper;
+    private DownloadUrlSigner downloadUrlSigner;
     
     @Autowired
-    private FileClient fileClient;
+    private FileCleaner fileCleaner;
+    
+    @Autowired
+    private EntityNameResolver entityNameResolver;
+    
+    @Autowired
+    private UserCache userCache;
     
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -73,26 +85,15 @@ public class FeedbackServiceImpl extends ServiceImpl<FeedbackMapper, Feedback> i
             throw new BusinessException("无权限查看该评估反馈");
         }
         
-        return convertToVO(feedback);
+        return convertToVOList(Collections.singletonList(feedback)).get(0);
     }
     
     @Override
     public Page<FeedbackVO> pageFeedbacks(Page<Feedback> page, Long modelId, Long userId) {
-        LambdaQueryWrapper<Feedback> queryWrapper = new LambdaQueryWrapper<>();
-        
-        // 按模型ID过滤
-        if (modelId != null) {
-            queryWrapper.eq(Feedback::getModelId, modelId);
-        }
-        
-        // 非管理员只能查看自己的评估反馈
-        boolean isAdmin = isAdmin(userId);
-        if (!isAdmin) {
-            queryWrapper.eq(Feedback::getCreateUserId, userId);
-        }
+        LambdaQueryWrapper<Feedback> queryWrapper = buildQueryWrapper(modelId, userId);
         
         // 按创建时间降序排序
-        queryWrapper.orderByDesc(Feedback::getCreateTime);
+        queryWrapper.orderByDesc(Feedback::getCreateTime).orderByDesc(Feedback::getId);
         
         Page<Feedback> feedbackPage = feedbackMapper.selectPage(page, queryWrapper);
         
@@ -100,14 +101,56 @@ public class FeedbackServiceImpl extends ServiceImpl<FeedbackMapper, Feedback> i
         Page<FeedbackVO> voPage = new Page<>();
         BeanUtils.copyProperties(feedbackPage, voPage, "records");
         
-        List<FeedbackVO> voList = feedbackPage.getRecords().stream()
-                .map(this::convertToVO)
-                .collect(Collectors.toList());
+        List<FeedbackVO> voList = convertToVOList(feedbackPage.getRecords());
         
         voPage.setRecords(voList);
         return voPage;
     }
     
+    @Override
+    public CursorPageVO<FeedbackVO> cursorFeedbacks(String cursor, int size, Long modelId, boolean withTotal, Long userId) {
+        LambdaQueryWrapper<Feedback> queryWrapper = buildQueryWrapper(modelId, userId);
+        
+        CursorPageVO<FeedbackVO> result = new CursorPageVO<>();
+        if (withTotal) {
+            result.setTotal(feedbackMapper.selectCount(queryWrapper));
+        }
+        
+        // 从游标位置之后开始查询，多查一条用于判断是否还有下一页
+        size = CursorUtils.normalizeSize(size);
+        CursorUtils.seek(queryWrapper, CursorUtils.decode(cursor), size, Feedback::getCreateTime, Feedback::getId);
+        List<Feedback> feedbacks = feedbackMapper.selectList(queryWrapper);
+        
+        boolean hasMore = feedbacks.size() > size;
+        if (hasMore) {
+            feedbacks = feedbacks.subList(0, size);
+            Feedback last = feedbacks.get(size - 1);
+            result.setNextCursor(CursorUtils.encode(last.getCreateTime(), last.getId()));
+        }
+        result.setHasMore(hasMore);
+        result.setRecords(convertToVOList(feedbacks));
+        return result;
+    }
+    
+    /**
+     * 构建查询条件：按模型过滤，非管理员只能查看自己的评估反馈
+     */
+    private LambdaQueryWrapper<Feedback> buildQueryWrapper(Long modelId, Long userId) {
+        LambdaQueryWrapper<Feedback> queryWrapper = new LambdaQueryWrapper<>();
+        
+        // 按模型ID过滤
+        if (modelId != null) {
+            queryWrapper.eq(Feedback::getModelId, modelId);
+        }
+        
+        // 非管理员只能查看自己的评估反馈
+        boolean isAdmin = isAdmin(userId);
+        if (!isAdmin) {
+            queryWrapper.eq(Feedback::getCreateUserId, userId);
+        }
+        return queryWrapper;
+    }
+    
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean deleteFeedback(Long id, Long userId) {
@@ -124,53 +167,53 @@ public class FeedbackServiceImpl extends ServiceImpl<FeedbackMapper, Feedback> i
 
         // 删除原始图片
         if (feedback.getOriginalImageBucket() != null && feedback.getOriginalImageKey() != null) {
-            fileClient.delete(feedback.getOriginalImageBucket(), feedback.getOriginalImageKey());
+            fileCleaner.deleteAfterCommit(feedback.getOriginalImageBucket(), feedback.getOriginalImageKey());
         }
         
         // 删除标签图片 
         if (feedback.getLabelImageBucket() != null && feedback.getLabelImageKey() != null) {
-            fileClient.delete(feedback.getLabelImageBucket(), feedback.getLabelImageKey());
+            fileCleaner.deleteAfterCommit(feedback.getLabelImageBucket(), feedback.getLabelImageKey());
         }
         
         // 删除叠加图片 
         if (feedback.getOverlayImageBucket() != null && feedback.getOverlayImageKey() != null) {
-            fileClient.delete(feedback.getOverlayImageBucket(), feedback.getOverlayImageKey());
+            fileCleaner.deleteAfterCommit(feedback.getOverlayImageBucket(), feedback.getOverlayImageKey());
         }
         
         return feedbackMapper.deleteById(id) > 0;
     }
     
+    /**
+     * 批量将实体转换为VO，模型名称和用户名按整页各查询一次
+     */
+    private List<FeedbackVO> convertToVOList(List<Feedback> feedbacks) {
+        if (feedbacks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, String> modelNames = entityNameResolver.getModelNames(
+                feedbacks.stream().map(Feedback::getModelId).collect(Collectors.toList()));
+        Map<Long, String> usernames = entityNameResolver.getUsernames(
+                feedbacks.stream().map(Feedback::getCreateUserId).collect(Collectors.toList()));
+        return feedbacks.stream()
+                .map(feedback -> convertToVO(feedback, modelNames, usernames))
+                .collect(Collectors.toList());
+    }
+    
     /**
      * 将实体转换为VO
      */
-    private FeedbackVO convertToVO(Feedback feedback) {
+    private FeedbackVO convertToVO(Feedback feedback, Map<Long, String> modelNames, Map<Long, String> usernames) {
         FeedbackVO vo = new FeedbackVO();
         BeanUtils.copyProperties(feedback, vo);
         
-        // 设置模型名称
-        Model model = modelMapper.selectById(feedback.getModelId());
-        if (model != null) {
-            vo.setModelName(model.getName());
-        }
-        
-        // 设置创建用户名称
-        User user = userMapper.selectById(feedback.getCreateUserId());
-        if (user != null) {
-            vo.setCreateUserName(user.getUsername());
-        }
+        // 设置模型名称和创建用户名称
+        vo.setModelName(modelNames.get(feedback.getModelId()));
+        vo.setCreateUserName(usernames.get(feedback.getCreateUserId()));
         
         // 设置图片URL
-        if (feedback.getOriginalImageBucket() != null && feedback.getOriginalImageKey() != null) {
-            vo.setOriginalImageUrl(fileClient.getFileUrl(feedback.getOriginalImageBucket(), feedback.getOriginalImageKey()));
-        }
-        
-        if (feedback.getLabelImageBucket() != null && feedback.getLabelImageKey() != null) {
-            vo.setLabelImageUrl(fileClient.getFileUrl(feedback.getLabelImageBucket(), feedback.getLabelImageKey()));
-        }
-        
-        if (feedback.getOverlayImageBucket() != null && feedback.getOverlayImageKey() != null) {
-            vo.setOverlayImageUrl(fileClient.getFileUrl(feedback.getOverlayImageBucket(), feedback.getOverlayImageKey()));
-        }
+        vo.setOriginalImageUrl(downloadUrlSigner.signImageUrl(feedback.getOriginalImageBucket(), feedback.getOriginalImageKey()));
+        vo.setLabelImageUrl(downloadUrlSigner.signImageUrl(feedback.getLabelImageBucket(), feedback.getLabelImageKey()));
+        vo.setOverlayImageUrl(downloadUrlSigner.signImageUrl(feedback.getOverlayImageBucket(), feedback.getOverlayImageKey()));
         
         return vo;
     }
@@ -179,7 +222,7 @@ public class FeedbackServiceImpl extends ServiceImpl<FeedbackMapper, Feedback> i
      * 判断用户是否为管理员
      */
     private boolean isAdmin(Long userId) {
-        User user = userMapper.selectById(userId);
-        return user != null && "admin".equals(user.getRole());
+        User user = userCache.get(userId);
+        return user != null && user.getRole() != null && user.getRole() == 1;
     }
 } 
\ No newline at end of file
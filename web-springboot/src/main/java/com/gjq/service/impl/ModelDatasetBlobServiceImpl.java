@@ -0,0 +1,134 @@
+package com.gjq.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gjq.client.FileClient;
+import com.gjq.client.FileClient.UploadResult;
+import com.gjq.entity.Dataset;
+import com.gjq.entity.ModelDatasetBlob;
+import com.gjq.mapper.DatasetMapper;
+import com.gjq.mapper.ModelDatasetBlobMapper;
+import com.gjq.service.ModelDatasetBlobService;
+import com.gjq.service.support.FileCleaner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+/**
+ * 模型训练数据集副本服务实现类
+ */
+@Slf4j
+@Service
+public class ModelDatasetBlobServiceImpl extends ServiceImpl<ModelDatasetBlobMapper, ModelDatasetBlob> implements ModelDatasetBlobService {
+
+    @Autowired
+    private DatasetMapper datasetMapper;
+
+    @Autowired
+    private FileClient fileClient;
+
+    @Autowired
+    private FileCleaner fileCleaner;
+
+    private final static String modelDatasetBucket = "model_dataset_copy";
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public ModelDatasetBlob acquire(Dataset dataset) {
+        String contentHash = resolveContentHash(dataset);
+
+        // 已有相同内容的副本，直接增加引用计数
+        if (incrementRefCount(contentHash)) {
+            log.info("复用已有数据集副本，数据集ID: {}, 哈希: {}", dataset.getId(), contentHash);
+            return getByHash(contentHash);
+        }
+
+        // 不存在时复制一份
+        UploadResult uploadResult = fileClient.copy(
+            dataset.getBucket(),
+            dataset.getObjectKey(),
+            modelDatasetBucket,
+            "dataset_for_model_" + contentHash + ".zip"
+        );
+
+        ModelDatasetBlob blob = new ModelDatasetBlob();
+        blob.setContentHash(contentHash);
+        blob.setBucket(uploadResult.getBucket());
+        blob.setObjectKey(uploadResult.getObjectKey());
+        blob.setRefCount(1);
+        try {
+            save(blob);
+            return blob;
+        } catch (DuplicateKeyException e) {
+            // 并发创建了同一内容的副本，丢弃本次复制的文件并引用已有副本
+            log.info("数据集副本已被并发创建，哈希: {}", contentHash);
+            fileCleaner.delete(uploadResult.getBucket(), uploadResult.getObjectKey());
+            incrementRefCount(contentHash);
+            return getByHash(contentHash);
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void release(String contentHash) {
+        if (!StringUtils.hasText(contentHash)) {
+            return;
+        }
+
+        // 引用计数减一
+        LambdaUpdateWrapper<ModelDatasetBlob> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(ModelDatasetBlob::getContentHash, contentHash)
+                    .gt(ModelDatasetBlob::getRefCount, 0)
+                    .setSql("ref_count = ref_count - 1");
+        update(updateWrapper);
+
+        // 最后一个引用释放后删除副本记录和文件
+        ModelDatasetBlob blob = getByHash(contentHash);
+        if (blob == null || blob.getRefCount() > 0) {
+            return;
+        }
+        LambdaQueryWrapper<ModelDatasetBlob> removeWrapper = new LambdaQueryWrapper<>();
+        removeWrapper.eq(ModelDatasetBlob::getContentHash, contentHash)
+                    .eq(ModelDatasetBlob::getRefCount, 0);
+        if (remove(removeWrapper)) {
+            fileCleaner.deleteAfterCommit(blob.getBucket(), blob.getObjectKey());
+        }
+    }
+
+    /**
+     * 获取数据集文件内容哈希，历史数据没有哈希时流式计算一次并回写
+     */
+    private String resolveContentHash(Dataset dataset) {
+        if (StringUtils.hasText(dataset.getContentHash())) {
+            return dataset.getContentHash();
+        }
+        String contentHash = fileClient.sha256(dataset.getBucket(), dataset.getObjectKey());
+        Dataset update = new Dataset();
+        update.setId(dataset.getId());
+        update.setContentHash(contentHash);
+        datasetMapper.updateById(update);
+        dataset.setContentHash(contentHash);
+        return contentHash;
+    }
+
+    /**
+     * 引用计数加一
+     *
+     * @return 副本存在时返回true
+     */
+    private boolean incrementRefCount(String contentHash) {
+        LambdaUpdateWrapper<ModelDatasetBlob> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(ModelDatasetBlob::getContentHash, contentHash)
+                    .setSql("ref_count = ref_count + 1");
+        return update(updateWrapper);
+    }
+
+    private ModelDatasetBlob getByHash(String contentHash) {
+        return getOne(new LambdaQueryWrapper<ModelDatasetBlob>()
+                .eq(ModelDatasetBlob::getContentHash, contentHash));
+    }
+}
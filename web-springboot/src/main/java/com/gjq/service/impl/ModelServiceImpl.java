@@ -5,30 +5,32 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.gjq.client.AlgorithmClient;
-import com.gjq.client.FileClient;
-import com.gjq.client.FileClient.UploadResult;
 import com.gjq.common.StatusConstant;
 import com.gjq.common.exception.BusinessException;
 import com.gjq.dto.model.ModelAddDTO;
 import com.gjq.dto.model.ModelQueryDTO;
 import com.gjq.dto.model.ModelUpdateDTO;
+import com.gjq.entity.AlgorithmJob;
 import com.gjq.entity.Dataset;
 import com.gjq.entity.Model;
+import com.gjq.entity.ModelDatasetBlob;
 import com.gjq.mapper.DatasetMapper;
 import com.gjq.mapper.ModelMapper;
+import com.gjq.service.AlgorithmJobService;
+import com.gjq.service.ModelDatasetBlobService;
 import com.gjq.service.ModelService;
+import com.gjq.service.support.StatusEventHub;
+import com.gjq.service.support.FileCleaner;
+import com.gjq.service.support.ModelDetailCache;
+import com.gjq.vo.event.StatusEventVO;
 import com.gjq.vo.model.ModelVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
-import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.util.StringUtils;
 import com.gjq.utils.SecurityUtils;
-import org.springframework.scheduling.annotation.Async;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -49,15 +51,22 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
     private DatasetMapper datasetMapper;
     
     @Autowired
-    private FileClient fileClient;
+    private FileCleaner fileCleaner;
     
     @Autowired
     private AlgorithmClient algorithmClient;
     
     @Autowired
-    private ApplicationContext applicationContext;
+    private ModelDatasetBlobService modelDatasetBlobService;
     
-    private final static String modelDatasetBucket = "model_dataset_copy";
+    @Autowired
+    private StatusEventHub statusEventHub;
+    
+    @Autowired
+    private AlgorithmJobService algorithmJobService;
+    
+    @Autowired
+    private ModelDetailCache modelDetailCache;
     
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -80,16 +89,10 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
             throw new BusinessException("数据集未验证或验证失败，无法训练模型");
         }
         
-        // 复制数据集文件到模型专属存储
-        UploadResult uploadResult = null;
+        // 获取数据集的模型专属副本（内容相同的数据集共享同一份副本）
+        ModelDatasetBlob datasetBlob = null;
         try {
-            byte[] datasetFile = fileClient.get(dataset.getBucket(), dataset.getObjectKey());
-            uploadResult = fileClient.upload(
-                modelDatasetBucket, 
-                datasetFile, 
-                "dataset_for_model_" + System.currentTimeMillis() + ".zip", 
-                false
-            );
+            datasetBlob = modelDatasetBlobService.acquire(dataset);
         } catch (Exception e) {
             log.error("复制数据集文件失败", e);
             throw new BusinessException("创建模型时复制数据集文件失败: " + e.getMessage());
@@ -103,8 +106,9 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
         model.setStatus(StatusConstant.MODEL_STATUS_UNTRAINED);
         model.setTrainHyperparams(dto.getTrainHyperparams());
         model.setCreateUserId(userId);
-        model.setDatasetBucket(uploadResult.getBucket());
-        model.setDatasetObjectKey(uploadResult.getObjectKey());
+        model.setDatasetBucket(datasetBlob.getBucket());
+        model.setDatasetObjectKey(datasetBlob.getObjectKey());
+        model.setDatasetHash(datasetBlob.getContentHash());
         model.setCreateTime(LocalDateTime.now());
         model.setUpdateTime(LocalDateTime.now());
         
@@ -126,7 +130,7 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
     @Override
     public ModelVO getModelDetail(Long id, Long userId) {
         // 获取模型详情
-        ModelVO modelVO = modelMapper.selectModelDetail(id);
+        ModelVO modelVO = modelDetailCache.get(id);
         
         // 判断是否存在
         if (modelVO == null) {
@@ -136,6 +140,15 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
         return modelVO;
     }
 
+    @Override
+    public String getModelDetailVersion(Long id) {
+        String version = modelDetailCache.getVersion(id);
+        if (version == null) {
+            throw new BusinessException("模型不存在");
+        }
+        return version;
+    }
+
     @Override
     public List<ModelVO> getAllModels(Long userId, boolean isAdmin) {
         // 获取所有模型
@@ -175,7 +188,7 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
         try {
             // 删除旧的模型权重文件（如果有）
             if (StringUtils.hasText(model.getModelBucket()) && StringUtils.hasText(model.getModelObjectKey())) {
-                fileClient.delete(model.getModelBucket(), model.getModelObjectKey());
+                fileCleaner.deleteAfterCommit(model.getModelBucket(), model.getModelObjectKey());
             }
             
             // 处理训练超参数
@@ -208,19 +221,10 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
                         .set(Model::getUpdateTime, LocalDateTime.now());
             
             update(updateWrapper);
+            modelDetailCache.evict(model.getId());
             
-            // 获取模型ID，用于在异步任务中使用
-            final Long modelId = model.getId();
-            
-            // 使用TransactionSynchronizationManager确保事务提交后再执行异步任务
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCommit() {
-                    // 从Spring上下文中获取当前代理对象bean，然后调用异步方法
-                    ModelServiceImpl modelService = applicationContext.getBean(ModelServiceImpl.class);
-                    modelService.trainModelAsync(modelId);
-                }
-            });
+            // 提交训练任务，由任务队列按并发上限分发到算法服务
+            algorithmJobService.enqueue(AlgorithmJob.TYPE_TRAIN, model.getId(), 0);
             
         } catch (Exception e) {
             log.error("模型训练失败", e);
@@ -229,58 +233,52 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
             model.setErrorMsg("训练失败：" + e.getMessage());
             model.setUpdateTime(LocalDateTime.now());
             updateById(model);
+            modelDetailCache.evict(model.getId());
             throw new BusinessException("启动模型训练失败：" + e.getMessage());
         }
     }
 
     /**
-     * 异步执行模型训练任务
+     * 将训练任务分发到算法服务（由任务队列调用）
+     * 算法服务启动训练线程后立即返回，训练结果通过状态回调更新
      * 
      * @param modelId 模型ID
      */
-    @Async("taskExecutor")
-    public void trainModelAsync(Long modelId) {
+    @Override
+    public void dispatchTraining(Long modelId) {
+        log.info("分发模型训练任务，模型ID: {}", modelId);
+        
+        // 获取最新的模型信息
+        Model model = getById(modelId);
+        if (model == null) {
+            throw new BusinessException("模型不存在");
+        }
+        
+        // 调用算法服务开始训练
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", model.getId());
+        params.put("model_id", model.getId());
+        params.put("dataset_id", model.getDatasetId());
+        params.put("datasetBucket", model.getDatasetBucket());
+        params.put("datasetObjectKey", model.getDatasetObjectKey());
+        if (StringUtils.hasText(model.getTrainHyperparams())) {
+            params.put("hyperparams", model.getTrainHyperparams());
+        }
+        
         try {
-            log.info("开始异步训练模型，模型ID: {}", modelId);
-            
-            // 获取最新的模型信息
-            Model model = getById(modelId);
-            if (model == null) {
-                log.error("模型不存在，模型ID: {}", modelId);
-                return;
-            }
-            
-            // 调用算法服务开始训练
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", model.getId());
-            params.put("model_id", model.getId());
-            params.put("dataset_id", model.getDatasetId());
-            params.put("datasetBucket", model.getDatasetBucket());
-            params.put("datasetObjectKey", model.getDatasetObjectKey());
-            if (StringUtils.hasText(model.getTrainHyperparams())) {
-                params.put("hyperparams", model.getTrainHyperparams());
-            }
-            
-            // 调用算法服务
-            algorithmClient.post("/model/train", params);
+            algorithmClient.postForTraining(modelId, "/model/train", params);
             log.info("模型训练请求已发送，模型ID: {}", modelId);
-            
         } catch (Exception e) {
-            log.error("异步训练模型失败，模型ID: {}, 错误信息: {}", modelId, e.getMessage(), e);
-            // 更新模型状态为训练失败
-            try {
-                Model model = getById(modelId);
-                if (model != null) {
-                    LambdaUpdateWrapper<Model> updateWrapper = new LambdaUpdateWrapper<>();
-                    updateWrapper.eq(Model::getId, modelId)
-                                .set(Model::getStatus, StatusConstant.MODEL_STATUS_TRAINED_FAILED)
-                                .set(Model::getErrorMsg, "训练失败：" + e.getMessage())
-                                .set(Model::getUpdateTime, LocalDateTime.now());
-                    update(updateWrapper);
-                }
-            } catch (Exception ex) {
-                log.error("更新模型状态失败，模型ID: {}, 错误信息: {}", modelId, ex.getMessage(), ex);
+            // 重启恢复时重新分发的任务可能仍在算法服务中训练，保持训练中状态等待回调
+            if (e instanceof AlgorithmClient.ResponseException responseException
+                    && responseException.getCode() == StatusConstant.ALGORITHM_CODE_ALREADY_TRAINING) {
+                log.info("模型仍在算法服务中训练，模型ID: {}", modelId);
+                return;
             }
+            log.error("分发模型训练任务失败，模型ID: {}, 错误信息: {}", modelId, e.getMessage(), e);
+            // 更新模型状态为训练失败
+            updateModelStatus(modelId, StatusConstant.MODEL_STATUS_TRAINED_FAILED, "训练失败：" + e.getMessage(), null, null, null);
+            throw e;
         }
     }
 
@@ -307,7 +305,20 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
                     .set(Model::getUpdateTime, LocalDateTime.now());
         
         // 更新模型
-        return update(updateWrapper);
+        boolean updated = update(updateWrapper);
+        modelDetailCache.evict(id);
+        if (updated) {
+            // 训练结束，结束对应的训练任务
+            if (status != null && (status == StatusConstant.MODEL_STATUS_TRAINED_SUCCESS
+                    || status == StatusConstant.MODEL_STATUS_TRAINED_FAILED)) {
+                algorithmJobService.finish(AlgorithmJob.TYPE_TRAIN, id,
+                    status == StatusConstant.MODEL_STATUS_TRAINED_SUCCESS, errorMsg);
+            }
+            // 事务提交后推送状态变更
+            statusEventHub.publishAfterCommit(
+                new StatusEventVO(StatusEventVO.TYPE_MODEL, id, status, errorMsg), model.getCreateUserId());
+        }
+        return updated;
     }
 
     @Override
@@ -336,6 +347,11 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
         
         // 处理数据集更新
         if (dto.getDatasetId() != null && !dto.getDatasetId().equals(model.getDatasetId())) {
+            // 训练中的模型不能更换数据集，否则训练任务会一直占用训练名额，训练结果也与新数据集不符
+            if (model.getStatus().equals(StatusConstant.MODEL_STATUS_TRAINING)) {
+                throw new BusinessException("模型正在训练中，无法更换数据集");
+            }
+            
             // 检查新数据集是否存在
             Dataset newDataset = datasetMapper.selectById(dto.getDatasetId());
             if (newDataset == null) {
@@ -347,47 +363,33 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
                 throw new BusinessException("新数据集未验证或验证失败，无法使用");
             }
             
-            // 删除旧的数据集文件
-            if (StringUtils.hasText(model.getDatasetBucket()) && StringUtils.hasText(model.getDatasetObjectKey())) {
-                try {
-                    fileClient.delete(model.getDatasetBucket(), model.getDatasetObjectKey());
-                } catch (Exception e) {
-                    log.error("删除旧数据集文件失败", e);
-                    throw new BusinessException("删除旧数据集文件失败: " + e.getMessage());
-                }
-            }
-            
-            // 复制新数据集文件到模型专属存储
-            UploadResult uploadResult = null;
+            // 先获取新数据集的模型专属副本，新旧内容相同时不会重复复制
+            ModelDatasetBlob datasetBlob = null;
             try {
-                byte[] datasetFile = fileClient.get(newDataset.getBucket(), newDataset.getObjectKey());
-                uploadResult = fileClient.upload(
-                    modelDatasetBucket, 
-                    datasetFile, 
-                    "dataset_for_model_" + System.currentTimeMillis() + ".zip", 
-                    false
-                );
+                datasetBlob = modelDatasetBlobService.acquire(newDataset);
             } catch (Exception e) {
                 log.error("复制新数据集文件失败", e);
                 throw new BusinessException("复制新数据集文件失败: " + e.getMessage());
             }
             
+            // 释放旧的数据集副本，与本事务一起提交或回滚，失败时异常直接抛出
+            releaseDatasetCopy(model);
+            
             // 删除模型权重文件
             if (StringUtils.hasText(model.getModelBucket()) && StringUtils.hasText(model.getModelObjectKey())) {
-                try {
-                    fileClient.delete(model.getModelBucket(), model.getModelObjectKey());
-                } catch (Exception e) {
-                    log.error("删除模型权重文件失败", e);
-                    // 不抛出异常，继续执行
-                }
+                fileCleaner.deleteAfterCommit(model.getModelBucket(), model.getModelObjectKey());
             }
             
+            // 模型重置为未训练，结束遗留的训练任务，释放训练名额
+            algorithmJobService.finish(AlgorithmJob.TYPE_TRAIN, model.getId(), false, "模型已更换数据集");
+            
             // 创建更新包装器
             LambdaUpdateWrapper<Model> updateWrapper = new LambdaUpdateWrapper<>();
             updateWrapper.eq(Model::getId, model.getId())
                         .set(Model::getDatasetId, dto.getDatasetId())
-                        .set(Model::getDatasetBucket, uploadResult.getBucket())
-                        .set(Model::getDatasetObjectKey, uploadResult.getObjectKey())
+                        .set(Model::getDatasetBucket, datasetBlob.getBucket())
+                        .set(Model::getDatasetObjectKey, datasetBlob.getObjectKey())
+                        .set(Model::getDatasetHash, datasetBlob.getContentHash())
                         .set(Model::getStatus, StatusConstant.MODEL_STATUS_UNTRAINED)
                         .set(Model::getErrorMsg, null)
                         .set(Model::getTrainHyperparams, null)
@@ -406,7 +408,9 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
             updateWrapper.set(Model::getUpdateTime, LocalDateTime.now());
             
             // 执行更新
-            return update(updateWrapper);
+            boolean updated = update(updateWrapper);
+            modelDetailCache.evict(model.getId());
+            return updated;
         }
         
         // 如果只更新基本信息
@@ -424,7 +428,9 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
             updateWrapper.set(Model::getUpdateTime, LocalDateTime.now());
             
             // 执行更新
-            return update(updateWrapper);
+            boolean updated = update(updateWrapper);
+            modelDetailCache.evict(model.getId());
+            return updated;
         }
         
         return true;
@@ -444,23 +450,35 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
             throw new BusinessException("无权操作该模型");
         }
         
-        // 删除模型文件
-        try {
-            if (model.getModelBucket() != null && model.getModelObjectKey() != null) {
-                fileClient.delete(model.getModelBucket(), model.getModelObjectKey());
-            }
-            
-            // 删除为模型复制的数据集文件
-            if (model.getDatasetBucket() != null && model.getDatasetObjectKey() != null) {
-                fileClient.delete(model.getDatasetBucket(), model.getDatasetObjectKey());
-            }
-        } catch (Exception e) {
-            log.error("删除模型文件失败", e);
-            // 继续执行，不影响数据库记录的删除
+        // 删除模型文件，事务提交后执行
+        if (model.getModelBucket() != null && model.getModelObjectKey() != null) {
+            fileCleaner.deleteAfterCommit(model.getModelBucket(), model.getModelObjectKey());
         }
         
+        // 释放为模型复制的数据集文件；引用计数的更新加入本事务，不能捕获后继续，
+        // 否则事务已被标记为只能回滚，提交时抛出UnexpectedRollbackException
+        releaseDatasetCopy(model);
+        
+        // 取消未完成的训练任务
+        algorithmJobService.finish(AlgorithmJob.TYPE_TRAIN, id, false, "模型已删除");
+        
         // 删除模型记录
         removeById(id);
+        modelDetailCache.evict(id);
+    }
+
+    /**
+     * 释放模型引用的数据集副本
+     * 共享副本只减少引用计数，没有内容哈希的历史副本为模型独占，直接删除
+     *
+     * @param model 模型
+     */
+    private void releaseDatasetCopy(Model model) {
+        if (StringUtils.hasText(model.getDatasetHash())) {
+            modelDatasetBlobService.release(model.getDatasetHash());
+        } else if (StringUtils.hasText(model.getDatasetBucket()) && StringUtils.hasText(model.getDatasetObjectKey())) {
+            fileCleaner.deleteAfterCommit(model.getDatasetBucket(), model.getDatasetObjectKey());
+        }
     }
 
     @Override
@@ -486,7 +504,9 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
         model.setStatus(StatusConstant.MODEL_STATUS_PUBLISHED);
         
         // 更新模型
-        return updateById(model);
+        boolean updated = updateById(model);
+        modelDetailCache.evict(id);
+        return updated;
     }
     
     @Override
@@ -512,6 +532,8 @@ public class ModelServiceImpl extends ServiceImpl<ModelMapper, Model> implements
         model.setStatus(StatusConstant.MODEL_STATUS_TRAINED_SUCCESS);
         
         // 更新模型
-        return updateById(model);
+        boolean updated = updateById(model);
+        modelDetailCache.evict(id);
+        return updated;
     }
 } 
\ No newline at end of file
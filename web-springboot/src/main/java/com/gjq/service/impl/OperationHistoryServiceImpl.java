@@ -3,7 +3,6 @@ package com.gjq.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.gjq.client.FileClient;
 import com.gjq.common.exception.BusinessException;
 import com.gjq.dto.history.OperationHistoryCreateDTO;
 import com.gjq.dto.history.OperationHistoryVO;
@@ -13,8 +12,13 @@ import com.gjq.entity.User;
 import com.gjq.mapper.ModelMapper;
 import com.gjq.mapper.OperationHistoryMapper;
 import com.gjq.mapper.UserMapper;
+import com.gjq.service.support.DownloadUrlSigner;
 import com.gjq.service.OperationHistoryService;
+import com.gjq.service.support.EntityNameResolver;
+import com.gjq.service.support.FileCleaner;
+import com.gjq.utils.CursorUtils;
 import com.gjq.utils.SecurityUtils;
+import com.gjq.vo.CursorPageVO;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
@@ -22,7 +26,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -32,6 +41,11 @@ import java.util.stream.Collectors;
 @Service
 public class OperationHistoryServiceImpl extends ServiceImpl<OperationHistoryMapper, OperationHistory> implements OperationHistoryService {
 
+    /**
+     * 批量插入时每次提交给数据库的记录数
+     */
+    private static final int BATCH_SIZE = 1000;
+
     @Autowired
     private OperationHistoryMapper operationHistoryMapper;
     
@@ -42,7 +56,13 @@ public class OperationHistoryServiceImpl extends ServiceImpl<OperationHistoryMap
     private UserMapper userMapper;
     
     @Autowired
-    private FileClient fileClient;
+    private DownloadUrlSigner downloadUrlSigner;
+    
+    @Autowired
+    private FileCleaner fileCleaner;
+    
+    @Autowired
+    private EntityNameResolver entityNameResolver;
     
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -61,6 +81,44 @@ public class OperationHistoryServiceImpl extends ServiceImpl<OperationHistoryMap
         return history.getId();
     }
     
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<Long> batchCreateHistories(List<OperationHistoryCreateDTO> createDTOs, Long userId) {
+        if (createDTOs == null || createDTOs.isEmpty()) {
+            throw new BusinessException("操作历史记录不能为空");
+        }
+        if (createDTOs.stream().anyMatch(Objects::isNull)) {
+            throw new BusinessException("操作历史记录不能包含空记录");
+        }
+        
+        // 一次查询验证所有引用的模型存在
+        Set<Long> modelIds = createDTOs.stream()
+            .map(OperationHistoryCreateDTO::getModelId)
+            .collect(Collectors.toSet());
+        Set<Long> existingIds = modelMapper.selectList(new LambdaQueryWrapper<Model>()
+                .select(Model::getId)
+                .in(Model::getId, modelIds))
+            .stream()
+            .map(Model::getId)
+            .collect(Collectors.toSet());
+        modelIds.removeAll(existingIds);
+        if (!modelIds.isEmpty()) {
+            throw new BusinessException("模型不存在: " + modelIds);
+        }
+        
+        List<OperationHistory> histories = new ArrayList<>(createDTOs.size());
+        for (OperationHistoryCreateDTO createDTO : createDTOs) {
+            OperationHistory history = new OperationHistory();
+            BeanUtils.copyProperties(createDTO, history);
+            history.setCreateUserId(userId);
+            histories.add(history);
+        }
+        
+        // JDBC批量插入，驱动开启rewriteBatchedStatements后改写为多行INSERT
+        saveBatch(histories, BATCH_SIZE);
+        return histories.stream().map(OperationHistory::getId).collect(Collectors.toList());
+    }
+    
     @Override
     public OperationHistoryVO getHistoryById(Long id, Long userId) {
         OperationHistory history = operationHistoryMapper.selectById(id);
@@ -73,11 +131,57 @@ public class OperationHistoryServiceImpl extends ServiceImpl<OperationHistoryMap
             throw new BusinessException("无权限查看该操作历史");
         }
         
-        return convertToVO(history);
+        return convertToVOList(Collections.singletonList(history)).get(0);
     }
     
     @Override
     public Page<OperationHistoryVO> pageHistories(Page<OperationHistory> page, String operationType, Long modelId, String createUsername, Long userId) {
+        LambdaQueryWrapper<OperationHistory> queryWrapper = buildQueryWrapper(modelId, createUsername, userId);
+        
+        // 按创建时间降序排序
+        queryWrapper.orderByDesc(OperationHistory::getCreateTime).orderByDesc(OperationHistory::getId);
+        
+        Page<OperationHistory> historyPage = operationHistoryMapper.selectPage(page, queryWrapper);
+        
+        // 转换为VO
+        Page<OperationHistoryVO> voPage = new Page<>();
+        BeanUtils.copyProperties(historyPage, voPage, "records");
+        
+        List<OperationHistoryVO> voList = convertToVOList(historyPage.getRecords());
+        
+        voPage.setRecords(voList);
+        return voPage;
+    }
+    
+    @Override
+    public CursorPageVO<OperationHistoryVO> cursorHistories(String cursor, int size, Long modelId, String createUsername, boolean withTotal, Long userId) {
+        LambdaQueryWrapper<OperationHistory> queryWrapper = buildQueryWrapper(modelId, createUsername, userId);
+        
+        CursorPageVO<OperationHistoryVO> result = new CursorPageVO<>();
+        if (withTotal) {
+            result.setTotal(operationHistoryMapper.selectCount(queryWrapper));
+        }
+        
+        // 从游标位置之后开始查询，多查一条用于判断是否还有下一页
+        size = CursorUtils.normalizeSize(size);
+        CursorUtils.seek(queryWrapper, CursorUtils.decode(cursor), size, OperationHistory::getCreateTime, OperationHistory::getId);
+        List<OperationHistory> histories = operationHistoryMapper.selectList(queryWrapper);
+        
+        boolean hasMore = histories.size() > size;
+        if (hasMore) {
+            histories = histories.subList(0, size);
+            OperationHistory last = histories.get(size - 1);
+            result.setNextCursor(CursorUtils.encode(last.getCreateTime(), last.getId()));
+        }
+        result.setHasMore(hasMore);
+        result.setRecords(convertToVOList(histories));
+        return result;
+    }
+    
+    /**
+     * 构建查询条件：按模型过滤，非管理员只能查看自己的操作历史，管理员可以按用户名查询
+     */
+    private LambdaQueryWrapper<OperationHistory> buildQueryWrapper(Long modelId, String createUsername, Long userId) {
         LambdaQueryWrapper<OperationHistory> queryWrapper = new LambdaQueryWrapper<>();
         
         // 按模型ID过滤
@@ -103,22 +207,7 @@ public class OperationHistoryServiceImpl extends ServiceImpl<OperationHistoryMap
                 queryWrapper.eq(OperationHistory::getCreateUserId, -1L);
             }
         }
-        
-        // 按创建时间降序排序
-        queryWrapper.orderByDesc(OperationHistory::getCreateTime);
-        
-        Page<OperationHistory> historyPage = operationHistoryMapper.selectPage(page, queryWrapper);
-        
-        // 转换为VO
-        Page<OperationHistoryVO> voPage = new Page<>();
-        BeanUtils.copyProperties(historyPage, voPage, "records");
-        
-        List<OperationHistoryVO> voList = historyPage.getRecords().stream()
-                .map(this::convertToVO)
-                .collect(Collectors.toList());
-        
-        voPage.setRecords(voList);
-        return voPage;
+        return queryWrapper;
     }
     
     @Override
@@ -136,53 +225,53 @@ public class OperationHistoryServiceImpl extends ServiceImpl<OperationHistoryMap
 
         // 删除原始图片
         if (history.getOriginalImageBucket() != null && history.getOriginalImageKey() != null) {
-            fileClient.delete(history.getOriginalImageBucket(), history.getOriginalImageKey());
+            fileCleaner.deleteAfterCommit(history.getOriginalImageBucket(), history.getOriginalImageKey());
         }
         
         // 删除结果图片 
         if (history.getResultImageBucket() != null && history.getResultImageKey() != null) {
-            fileClient.delete(history.getResultImageBucket(), history.getResultImageKey());
+            fileCleaner.deleteAfterCommit(history.getResultImageBucket(), history.getResultImageKey());
         }
         
         // 删除叠加图片 
         if (history.getOverlayImageBucket() != null && history.getOverlayImageKey() != null) {
-            fileClient.delete(history.getOverlayImageBucket(), history.getOverlayImageKey());
+            fileCleaner.deleteAfterCommit(history.getOverlayImageBucket(), history.getOverlayImageKey());
         }   
         
         return operationHistoryMapper.deleteById(id) > 0;
     }
     
+    /**
+     * 批量将实体转换为VO，模型名称和用户名按整页各查询一次
+     */
+    private List<OperationHistoryVO> convertToVOList(List<OperationHistory> historys) {
+        if (historys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, String> modelNames = entityNameResolver.getModelNames(
+                historys.stream().map(OperationHistory::getModelId).collect(Collectors.toList()));
+        Map<Long, String> usernames = entityNameResolver.getUsernames(
+                historys.stream().map(OperationHistory::getCreateUserId).collect(Collectors.toList()));
+        return historys.stream()
+                .map(history -> convertToVO(history, modelNames, usernames))
+                .collect(Collectors.toList());
+    }
+    
     /**
      * 将实体转换为VO
      */
-    private OperationHistoryVO convertToVO(OperationHistory history) {
+    private OperationHistoryVO convertToVO(OperationHistory history, Map<Long, String> modelNames, Map<Long, String> usernames) {
         OperationHistoryVO vo = new OperationHistoryVO();
         BeanUtils.copyProperties(history, vo);
         
-        // 设置模型名称
-        Model model = modelMapper.selectById(history.getModelId());
-        if (model != null) {
-            vo.setModelName(model.getName());
-        }
-        
-        // 设置创建用户名称
-        User user = userMapper.selectById(history.getCreateUserId());
-        if (user != null) {
-            vo.setCreateUserName(user.getUsername());
-        }
+        // 设置模型名称和创建用户名称
+        vo.setModelName(modelNames.get(history.getModelId()));
+        vo.setCreateUserName(usernames.get(history.getCreateUserId()));
         
         // 设置图片URL
-        if (history.getOriginalImageBucket() != null && history.getOriginalImageKey() != null) {
-            vo.setOriginalImageUrl(fileClient.getFileUrl(history.getOriginalImageBucket(), history.getOriginalImageKey()));
-        }
-        
-        if (history.getResultImageBucket() != null && history.getResultImageKey() != null) {
-            vo.setResultImageUrl(fileClient.getFileUrl(history.getResultImageBucket(), history.getResultImageKey()));
-        }
-        
-        if (history.getOverlayImageBucket() != null && history.getOverlayImageKey() != null) {
-            vo.setOverlayImageUrl(fileClient.getFileUrl(history.getOverlayImageBucket(), history.getOverlayImageKey()));
-        }
+        vo.setOriginalImageUrl(downloadUrlSigner.signImageUrl(history.getOriginalImageBucket(), history.getOriginalImageKey()));
+        vo.setResultImageUrl(downloadUrlSigner.signImageUrl(history.getResultImageBucket(), history.getResultImageKey()));
+        vo.setOverlayImageUrl(downloadUrlSigner.signImageUrl(history.getOverlayImageBucket(), history.getOverlayImageKey()));
         
         return vo;
     }
@@ -0,0 +1,71 @@
+package com.gjq.service.impl;
+
+import com.gjq.common.StatusConstant;
+import com.gjq.common.exception.BusinessException;
+import com.gjq.dto.prediction.PredictRequestDTO;
+import com.gjq.service.PredictionService;
+import com.gjq.service.support.ModelDetailCache;
+import com.gjq.service.support.PredictionBatcher;
+import com.gjq.vo.model.ModelVO;
+import com.gjq.vo.prediction.PredictResultVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 图像分割预测服务实现类
+ */
+@Slf4j
+@Service
+public class PredictionServiceImpl implements PredictionService {
+    
+    @Autowired
+    private ModelDetailCache modelDetailCache;
+    
+    @Autowired
+    private PredictionBatcher predictionBatcher;
+    
+    @Value("${prediction.batch.timeout:120000}")
+    private long timeout;
+    
+    @Override
+    public PredictResultVO predict(PredictRequestDTO dto, Long userId) {
+        // 提前拦截不可用的模型，避免占用批次
+        ModelVO model = modelDetailCache.get(dto.getModelId());
+        if (model == null) {
+            throw new BusinessException("模型不存在");
+        }
+        Integer status = model.getStatus();
+        if (status == null || (status != StatusConstant.MODEL_STATUS_TRAINED_SUCCESS
+                && status != StatusConstant.MODEL_STATUS_PUBLISHED)) {
+            throw new BusinessException("模型未训练完成，无法进行预测");
+        }
+        
+        CompletableFuture<PredictResultVO> future = predictionBatcher.submit(dto.getModelId(), dto.getImageBucket(),
+                dto.getImageKey(), userId, Boolean.TRUE.equals(dto.getSaveHistory()), System.currentTimeMillis() + timeout);
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException businessException) {
+                throw businessException;
+            }
+            throw new BusinessException("图像分割预测失败: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            log.warn("等待预测结果超时, 模型ID: {}, 图片: {}/{}", dto.getModelId(), dto.getImageBucket(), dto.getImageKey());
+            // 结束Future，归还待处理计数，批次执行时跳过该请求
+            BusinessException timeoutException = new BusinessException("图像分割预测超时，请稍后重试");
+            future.completeExceptionally(timeoutException);
+            throw timeoutException;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new BusinessException("图像分割预测被中断");
+        }
+    }
+}
@@ -7,13 +7,15 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.gjq.client.FileClient;
 import com.gjq.common.exception.BusinessException;
 import com.gjq.dto.user.*;
 import com.gjq.vo.user.*;
 import com.gjq.entity.User;
 import com.gjq.mapper.UserMapper;
 import com.gjq.service.UserService;
+import com.gjq.service.support.UserCache;
+import com.gjq.service.support.FileCleaner;
+import com.gjq.service.support.DownloadUrlSigner;
 import com.gjq.utils.SecurityUtils;
 import com.gjq.utils.JwtUtils;
 import lombok.RequiredArgsConstructor;
@@ -31,7 +33,11 @@ import java.io.Serializable;
 @RequiredArgsConstructor  // 自动为所有标记了 final 的字段生成构造函数并进行依赖注入
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
-    private final FileClient fileClient;
+    private final DownloadUrlSigner downloadUrlSigner;
+
+    private final FileCleaner fileCleaner;
+
+    private final UserCache userCache;
 
     @Override
     public UserLoginVO login(UserLoginDTO dto) {
@@ -54,7 +60,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
 
         // 创建登录响应对象
-        UserLoginVO loginVO = new UserLoginVO(user, null, fileClient);
+        UserLoginVO loginVO = new UserLoginVO(user, null, downloadUrlSigner);
         // 生成token
         String token = JwtUtils.generateToken(loginVO.getUserInfo().getId());
         // 设置token
@@ -98,6 +104,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 更新密码
         user.setPassword(SecureUtil.md5(dto.getNewPassword()));
         updateById(user);
+        userCache.evict(user.getId());
     }
 
     @Override
@@ -112,18 +119,15 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if ((dto.getAvatarBucket() != null && !dto.getAvatarBucket().equals(user.getAvatarBucket())) ||
             (dto.getAvatarObjectKey() != null && !dto.getAvatarObjectKey().equals(user.getAvatarObjectKey()))) {
             if (StrUtil.isNotBlank(user.getAvatarBucket()) && StrUtil.isNotBlank(user.getAvatarObjectKey())) {
-                try {
-                    fileClient.delete(user.getAvatarBucket(), user.getAvatarObjectKey());
-                } catch (Exception e) {
-                    // 删除失败不影响更新
-                    log.error("删除旧头像失败", e);
-                }
+                // 删除失败不影响更新
+                fileCleaner.deleteAfterCommit(user.getAvatarBucket(), user.getAvatarObjectKey());
             }
         }
 
         // 更新用户信息
         BeanUtil.copyProperties(dto, user);
         updateById(user);
+        userCache.evict(user.getId());
     }
 
     @Override
@@ -146,7 +150,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 使用 SecurityUtils 获取当前用户
         User user = SecurityUtils.getCurrentUser();
         // 返回用户信息（不需要返回 token，因为 token 已经在客户端了）
-        return new UserLoginVO(user, null, fileClient);
+        return new UserLoginVO(user, null, downloadUrlSigner);
     }
 
     @Override
@@ -183,6 +187,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 重置密码为123456
         user.setPassword(SecureUtil.md5("123456"));
         updateById(user);
+        userCache.evict(id);
     }
 
     @Override
@@ -201,6 +206,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 更新状态
         user.setStatus(status);
         updateById(user);
+        userCache.evict(id);
     }
 
     @Override
@@ -219,14 +225,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         // 删除用户头像
         if (StrUtil.isNotBlank(user.getAvatarBucket()) && StrUtil.isNotBlank(user.getAvatarObjectKey())) {
-            try {
-                fileClient.delete(user.getAvatarBucket(), user.getAvatarObjectKey());
-            } catch (Exception e) {
-                log.error("删除用户头像失败", e);
-            }
+            fileCleaner.deleteAfterCommit(user.getAvatarBucket(), user.getAvatarObjectKey());
         }
 
         // 删除用户
-        return super.removeById(id);
+        boolean removed = super.removeById(id);
+        userCache.evict(user.getId());
+        return removed;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.gjq.service.support;
+
+import com.gjq.common.StatusConstant;
+import com.gjq.entity.AlgorithmJob;
+import com.gjq.entity.Dataset;
+import com.gjq.entity.Model;
+import com.gjq.service.AlgorithmJobService;
+import com.gjq.service.DatasetService;
+import com.gjq.service.ModelService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 算法任务分发器
+ * <p>
+ * 任务持久化在algorithm_job表中，分发器按任务类型限制同时在算法服务上执行的任务数（训练占用GPU），
+ * 按优先级和提交顺序依次分发。训练任务分发后保持执行中，直到算法服务回调训练结束；
+ * 服务重启后执行中的任务重新排队，处于训练中/验证中的资源会补充任务。
+ */
+@Slf4j
+@Component
+public class AlgorithmJobDispatcher {
+
+    @Autowired
+    private AlgorithmJobService algorithmJobService;
+
+    @Autowired
+    private ModelService modelService;
+
+    @Autowired
+    private DatasetService datasetService;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Autowired
+    @Qualifier("validationExecutor")
+    private Executor validationExecutor;
+
+    @Autowired
+    @Qualifier("trainingExecutor")
+    private Executor trainingExecutor;
+
+    @Value("${algorithm-job.train.max-concurrent:1}")
+    private int maxConcurrentTrain;
+
+    @Value("${algorithm-job.validate.max-concurrent:2}")
+    private int maxConcurrentValidate;
+
+    @Value("${algorithm-job.train.timeout:86400000}")
+    private long trainTimeout;
+
+    @Value("${algorithm-job.validate.timeout:1800000}")
+    private long validateTimeout;
+
+    /**
+     * 定时分发、提交事件触发的分发和超时检查互斥执行，避免并发统计执行中任务数时超出并发上限
+     */
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+
+    /**
+     * 启动恢复
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        try {
+            int recovered = algorithmJobService.recover();
+            if (recovered > 0) {
+                log.info("恢复未完成的算法任务: {} 个", recovered);
+            }
+        } catch (Exception e) {
+            log.error("恢复算法任务失败", e);
+        }
+        dispatch();
+    }
+
+    /**
+     * 任务提交的事务提交后立即分发
+     * 事务提交回调中仍绑定着原事务的连接，分发中的数据库更新不会被提交，所以切换到其他线程执行
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobEnqueued(AlgorithmJobEnqueuedEvent event) {
+        taskExecutor.execute(this::dispatch);
+    }
+
+    /**
+     * 定时分发，兜底处理事件丢失和执行中任务结束后空出的并发名额
+     */
+    @Scheduled(fixedDelayString = "${algorithm-job.dispatch-interval:3000}")
+    public void dispatch() {
+        dispatchLock.lock();
+        try {
+            dispatch(AlgorithmJob.TYPE_VALIDATE, maxConcurrentValidate);
+            dispatch(AlgorithmJob.TYPE_TRAIN, maxConcurrentTrain);
+        } catch (Exception e) {
+            log.error("分发算法任务失败", e);
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    /**
+     * 执行超时的任务置为失败，避免算法服务回调丢失后一直占用并发名额
+     */
+    @Scheduled(fixedDelayString = "${algorithm-job.timeout-check-interval:60000}")
+    public void expireTimeoutJobs() {
+        // 与分发互斥，分发统计执行中任务数时不会遇到只处理了一半的超时任务
+        dispatchLock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (AlgorithmJob job : algorithmJobService.listRunningStartedBefore(
+                    AlgorithmJob.TYPE_TRAIN, now.minus(Duration.ofMillis(trainTimeout)))) {
+                log.warn("训练任务超时，模型ID: {}", job.getResourceId());
+                Model model = modelService.getById(job.getResourceId());
+                if (model != null && Objects.equals(model.getStatus(), StatusConstant.MODEL_STATUS_TRAINING)) {
+                    modelService.updateModelStatus(job.getResourceId(), StatusConstant.MODEL_STATUS_TRAINED_FAILED,
+                            "训练超时", null, null, null);
+                }
+                algorithmJobService.finish(AlgorithmJob.TYPE_TRAIN, job.getResourceId(), false, "训练超时");
+            }
+            for (AlgorithmJob job : algorithmJobService.listRunningStartedBefore(
+                    AlgorithmJob.TYPE_VALIDATE, now.minus(Duration.ofMillis(validateTimeout)))) {
+                log.warn("验证任务超时，数据集ID: {}", job.getResourceId());
+                Dataset dataset = datasetService.getById(job.getResourceId());
+                if (dataset != null && Objects.equals(dataset.getStatus(), StatusConstant.DATASET_STATUS_VERIFYING)) {
+                    datasetService.updateDatasetStatus(job.getResourceId(), StatusConstant.DATASET_STATUS_VERIFIED_FAILED,
+                            "验证超时", 0, 0);
+                }
+                algorithmJobService.finish(AlgorithmJob.TYPE_VALIDATE, job.getResourceId(), false, "验证超时");
+            }
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    private void dispatch(String jobType, int maxConcurrent) {
+        long slots = maxConcurrent - algorithmJobService.countRunning(jobType);
+        if (slots <= 0) {
+            return;
+        }
+        Executor executor = AlgorithmJob.TYPE_TRAIN.equals(jobType) ? trainingExecutor : validationExecutor;
+        List<AlgorithmJob> jobs = algorithmJobService.listPending(jobType, (int) slots);
+        for (AlgorithmJob job : jobs) {
+            // 抢占成功才执行，防止同一任务被重复分发
+            if (!algorithmJobService.claim(job.getId())) {
+                continue;
+            }
+            try {
+                executor.execute(() -> execute(job));
+            } catch (RejectedExecutionException e) {
+                // 线程池已满，任务重新排队等待下次分发
+                log.warn("{}线程池已满，任务重新排队，资源ID: {}", jobType, job.getResourceId());
+                algorithmJobService.requeue(job.getId());
+                return;
+            }
+        }
+    }
+
+    private void execute(AlgorithmJob job) {
+        Long resourceId = job.getResourceId();
+        if (AlgorithmJob.TYPE_TRAIN.equals(job.getJobType())) {
+            try {
+                // 分发成功后任务保持执行中，等待算法服务回调训练结束
+                modelService.dispatchTraining(resourceId);
+            } catch (Exception e) {
+                algorithmJobService.finish(AlgorithmJob.TYPE_TRAIN, resourceId, false, e.getMessage());
+            }
+        } else if (AlgorithmJob.TYPE_VALIDATE.equals(job.getJobType())) {
+            try {
+                datasetService.executeValidation(resourceId);
+            } finally {
+                // 正常情况下更新验证结果时已经结束任务，这里兜底处理数据集已删除等没有结果的情况
+                algorithmJobService.finish(AlgorithmJob.TYPE_VALIDATE, resourceId, false, "验证未返回结果");
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.gjq.service.support;
+
+/**
+ * 算法任务提交事件，用于在事务提交后立即唤醒任务分发器
+ *
+ * @param jobType 任务类型
+ */
+public record AlgorithmJobEnqueuedEvent(String jobType) {
+}
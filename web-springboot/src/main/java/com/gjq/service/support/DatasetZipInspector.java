@@ -0,0 +1,393 @@
+package com.gjq.service.support;
+
+import com.gjq.client.FileClient;
+import com.gjq.client.FileDiskCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据集ZIP文件预检
+ * <p>
+ * 提交到算法服务验证之前，只读取ZIP文件末尾的中央目录（文件名列表），按算法服务相同的规则检查目录结构
+ * （train/val下的images和labels目录）和图像与掩码的配对，并统计训练集、验证集数量。
+ * 文件服务支持范围读取时通过HTTP Range读取，否则在开启本地文件缓存时读取缓存文件（内存映射）。
+ * 预检不检查图像内容，通过后仍由算法服务完整验证；无法读取或无法确定结果时返回null，按原流程交给算法服务。
+ */
+@Slf4j
+@Component
+public class DatasetZipInspector {
+
+    /**
+     * 支持的2D图像格式，与算法服务一致
+     */
+    private static final List<String> IMAGE_EXTENSIONS = List.of(".png", ".jpg", ".jpeg", ".tif", ".tiff");
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_EOCD_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int EOCD_MIN_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    /**
+     * 文件名未标记为UTF-8时的编码，与Python zipfile一致
+     */
+    private static final Charset DEFAULT_NAME_CHARSET = Charset.forName("IBM437");
+
+    @Autowired
+    private FileClient fileClient;
+
+    @Value("${dataset.pre-validation.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 中央目录大小上限，超过时不做预检
+     */
+    @Value("${dataset.pre-validation.max-central-directory-size:67108864}")
+    private long maxCentralDirectorySize;
+
+    /**
+     * 预检结果
+     *
+     * @param valid 是否通过
+     * @param errorMsg 错误信息
+     * @param trainCount 训练集图像数量
+     * @param valCount 验证集图像数量
+     */
+    public record Result(boolean valid, String errorMsg, int trainCount, int valCount) {
+    }
+
+    /**
+     * ZIP文件格式错误，算法服务同样无法解压
+     */
+    private static class InvalidZipException extends IOException {
+        InvalidZipException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 按位置读取文件内容
+     */
+    private interface RangeSource {
+
+        long size();
+
+        ByteBuffer read(long offset, int length) throws IOException;
+    }
+
+    /**
+     * 预检数据集文件
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @return 预检结果，未开启预检或无法确定结果时返回null
+     */
+    public Result inspect(String bucket, String objectKey) {
+        if (!enabled) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            List<String> names = readEntryNames(bucket, objectKey);
+            if (names == null) {
+                return null;
+            }
+            Result result = check(names);
+            log.info("数据集预检完成, 文件: {}/{}, 条目数: {}, 结果: {}, 耗时: {}ms", bucket, objectKey, names.size(),
+                    result, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        } catch (InvalidZipException e) {
+            return new Result(false, "数据集文件不是有效的ZIP文件: " + e.getMessage(), 0, 0);
+        } catch (Exception e) {
+            log.warn("数据集预检失败，交给算法服务验证, 文件: {}/{}, 原因: {}", bucket, objectKey, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取中央目录中的所有文件名，文件服务支持范围读取时只读取文件末尾，否则使用本地缓存文件
+     */
+    private List<String> readEntryNames(String bucket, String objectKey) throws IOException {
+        HttpHeaders headers = fileClient.head(bucket, objectKey);
+        long size = headers.getContentLength();
+        if (size > 0 && "bytes".equalsIgnoreCase(headers.getFirst(HttpHeaders.ACCEPT_RANGES))) {
+            return readEntryNames(new RangeSource() {
+                @Override
+                public long size() {
+                    return size;
+                }
+
+                @Override
+                public ByteBuffer read(long offset, int length) {
+                    return ByteBuffer.wrap(fileClient.readRange(bucket, objectKey, offset, length));
+                }
+            });
+        }
+
+        try (FileDiskCache.CachedFile cachedFile = fileClient.openCachedFile(bucket, objectKey)) {
+            if (cachedFile == null) {
+                return null;
+            }
+            return readEntryNames(cachedFile.getPath());
+        }
+    }
+
+    private List<String> readEntryNames(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            return readEntryNames(new RangeSource() {
+                @Override
+                public long size() {
+                    return fileSize;
+                }
+
+                @Override
+                public ByteBuffer read(long offset, int length) throws IOException {
+                    return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                }
+            });
+        }
+    }
+
+    private List<String> readEntryNames(RangeSource source) throws IOException {
+        long size = source.size();
+        if (size < EOCD_MIN_SIZE) {
+            throw new InvalidZipException("文件过小");
+        }
+
+        // 从文件末尾向前查找中央目录结束记录，末尾可能带有注释
+        int tailLength = (int) Math.min(size, EOCD_MIN_SIZE + MAX_COMMENT_SIZE);
+        long tailOffset = size - tailLength;
+        ByteBuffer tail = source.read(tailOffset, tailLength).order(ByteOrder.LITTLE_ENDIAN);
+        int eocd = -1;
+        for (int i = tailLength - EOCD_MIN_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new InvalidZipException("找不到中央目录");
+        }
+
+        long entryCount = Short.toUnsignedLong(tail.getShort(eocd + 10));
+        long directorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+        long directoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+
+        // ZIP64：条目数或中央目录位置超出32位时，从ZIP64结束记录中读取
+        if (entryCount == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            int locator = eocd - 20;
+            if (locator < 0 || tail.getInt(locator) != ZIP64_EOCD_LOCATOR_SIGNATURE) {
+                throw new IllegalStateException("缺少ZIP64结束记录定位");
+            }
+            long zip64Offset = tail.getLong(locator + 8);
+            ByteBuffer zip64 = source.read(zip64Offset, 56).order(ByteOrder.LITTLE_ENDIAN);
+            if (zip64.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                throw new IllegalStateException("ZIP64结束记录无效");
+            }
+            entryCount = zip64.getLong(32);
+            directorySize = zip64.getLong(40);
+            directoryOffset = zip64.getLong(48);
+        }
+
+        if (directorySize > maxCentralDirectorySize) {
+            log.info("中央目录过大({}字节)，跳过预检", directorySize);
+            return null;
+        }
+        if (directoryOffset + directorySize > size) {
+            throw new IllegalStateException("中央目录位置超出文件范围");
+        }
+
+        ByteBuffer directory = source.read(directoryOffset, (int) directorySize).order(ByteOrder.LITTLE_ENDIAN);
+        List<String> names = new ArrayList<>((int) Math.min(entryCount, 1 << 20));
+        int position = 0;
+        while (position + 46 <= directorySize) {
+            if (directory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new IllegalStateException("中央目录条目无效");
+            }
+            int flags = Short.toUnsignedInt(directory.getShort(position + 8));
+            int nameLength = Short.toUnsignedInt(directory.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(directory.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(directory.getShort(position + 32));
+
+            byte[] nameBytes = new byte[nameLength];
+            directory.get(position + 46, nameBytes);
+            Charset charset = (flags & 0x800) != 0 ? StandardCharsets.UTF_8 : DEFAULT_NAME_CHARSET;
+            names.add(new String(nameBytes, charset));
+
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        return names;
+    }
+
+    /**
+     * 按算法服务的规则检查目录结构和图像掩码配对
+     */
+    private Result check(List<String> names) {
+        Set<String> files = new HashSet<>();
+        Set<String> dirs = new HashSet<>();
+        Set<String> topLevel = new TreeSet<>();
+        for (String name : names) {
+            boolean isDir = name.endsWith("/");
+            String path = isDir ? name.substring(0, name.length() - 1) : name;
+            if (path.isEmpty()) {
+                continue;
+            }
+            if (isDir) {
+                dirs.add(path);
+            } else {
+                files.add(path);
+            }
+            // 父目录可能没有单独的目录条目
+            for (int i = path.indexOf('/'); i > 0; i = path.indexOf('/', i + 1)) {
+                dirs.add(path.substring(0, i));
+            }
+            int slash = path.indexOf('/');
+            topLevel.add(slash < 0 ? path : path.substring(0, slash));
+        }
+
+        // 解压后只有一个顶层目录时，以该目录为起点查找数据集根目录
+        String base = "";
+        if (topLevel.size() == 1 && dirs.contains(topLevel.iterator().next())) {
+            base = topLevel.iterator().next();
+        }
+        String root = findDatasetRoot(base, dirs);
+
+        String trainDir = join(root, "train");
+        String valDir = join(root, "val");
+        if (!dirs.contains(trainDir)) {
+            return failed("缺少训练集目录(train)");
+        }
+        if (!dirs.contains(valDir)) {
+            return failed("缺少验证集目录(val)");
+        }
+        if (!dirs.contains(join(trainDir, "images"))) {
+            return failed("缺少训练集图像目录(train/images)");
+        }
+        if (!dirs.contains(join(trainDir, "labels"))) {
+            return failed("缺少训练集掩码目录(train/labels)");
+        }
+        if (!dirs.contains(join(valDir, "images"))) {
+            return failed("缺少验证集图像目录(val/images)");
+        }
+        if (!dirs.contains(join(valDir, "labels"))) {
+            return failed("缺少验证集掩码目录(val/labels)");
+        }
+
+        List<String> trainImages = listImages(join(trainDir, "images"), files);
+        if (trainImages.isEmpty()) {
+            return failed("训练集图像目录为空");
+        }
+        String unpaired = findUnpaired(trainImages, join(trainDir, "labels"), files);
+        if (unpaired != null) {
+            return failed("训练集图像 " + unpaired + " 缺少对应的掩码文件");
+        }
+
+        List<String> valImages = listImages(join(valDir, "images"), files);
+        if (valImages.isEmpty()) {
+            return failed("验证集图像目录为空");
+        }
+        unpaired = findUnpaired(valImages, join(valDir, "labels"), files);
+        if (unpaired != null) {
+            return failed("验证集图像 " + unpaired + " 缺少对应的掩码文件");
+        }
+
+        return new Result(true, null, trainImages.size(), valImages.size());
+    }
+
+    /**
+     * 起点目录下直接包含train和val时即为根目录，否则在直接子目录中查找
+     */
+    private String findDatasetRoot(String base, Set<String> dirs) {
+        if (dirs.contains(join(base, "train")) && dirs.contains(join(base, "val"))) {
+            return base;
+        }
+        String prefix = base.isEmpty() ? "" : base + "/";
+        for (String dir : new TreeSet<>(dirs)) {
+            if (dir.startsWith(prefix) && dir.indexOf('/', prefix.length()) < 0
+                    && dirs.contains(join(dir, "train")) && dirs.contains(join(dir, "val"))) {
+                return dir;
+            }
+        }
+        return base;
+    }
+
+    /**
+     * 目录下直接包含的图像文件名，扩展名不区分大小写（如.PNG、.Png），忽略隐藏文件（与glob一致）
+     */
+    private List<String> listImages(String dir, Set<String> files) {
+        String prefix = dir + "/";
+        List<String> images = new ArrayList<>();
+        for (String file : files) {
+            if (!file.startsWith(prefix) || file.indexOf('/', prefix.length()) >= 0
+                    || file.startsWith(".", prefix.length())) {
+                continue;
+            }
+            String name = file.substring(prefix.length());
+            if (isImage(name)) {
+                images.add(name);
+            }
+        }
+        return images;
+    }
+
+    /**
+     * 查找第一个没有同名掩码（任意支持的扩展名）的图像，文件名和扩展名都不区分大小写，
+     * 如a.png与a.PNG、A.png配对
+     */
+    private String findUnpaired(List<String> images, String labelsDir, Set<String> files) {
+        Set<String> labelStems = new HashSet<>();
+        for (String label : listImages(labelsDir, files)) {
+            labelStems.add(stemOf(label).toLowerCase(Locale.ROOT));
+        }
+        for (String image : images) {
+            if (!labelStems.contains(stemOf(image).toLowerCase(Locale.ROOT))) {
+                return image;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isImage(String name) {
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        for (String ext : IMAGE_EXTENSIONS) {
+            if (lowerName.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stemOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static String join(String parent, String child) {
+        return parent.isEmpty() ? child : parent + "/" + child;
+    }
+
+    private static Result failed(String errorMsg) {
+        return new Result(false, errorMsg, 0, 0);
+    }
+}
@@ -0,0 +1,191 @@
+package com.gjq.service.support;
+
+import cn.hutool.crypto.digest.HMac;
+import cn.hutool.crypto.digest.HmacAlgorithm;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.gjq.common.StatusConstant;
+import com.gjq.common.exception.BusinessException;
+import com.gjq.entity.Dataset;
+import com.gjq.entity.Feedback;
+import com.gjq.entity.Model;
+import com.gjq.entity.OperationHistory;
+import com.gjq.entity.User;
+import com.gjq.mapper.DatasetMapper;
+import com.gjq.mapper.FeedbackMapper;
+import com.gjq.mapper.ModelMapper;
+import com.gjq.mapper.OperationHistoryMapper;
+import com.gjq.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 文件下载地址签名
+ * <p>
+ * 浏览器直接下载（a标签）时无法设置Authorization请求头，登录用户先通过已鉴权的接口申请下载地址：
+ * 检查文件属于当前用户有权访问的资源后，生成带过期时间和签名的短期地址，下载接口只校验签名，
+ * 不再通过查询参数传递token，token不会出现在访问日志和浏览器历史中。
+ * 可以访问的文件：自己的数据集文件、自己模型的数据集副本、自己的或已发布模型的权重文件、自己的操作历史和评估反馈图片、
+ * 用户头像，管理员不受限制。
+ * <p>
+ * 列表和详情接口返回的图片地址（操作历史、评估反馈、头像）在查询时已按当前用户过滤，直接用{@link #signImageUrl}签名，
+ * 不再逐个核对归属；图片地址的有效期较长且按有效期对齐，同一图片在有效期窗口内地址不变，浏览器缓存可以命中。
+ */
+@Component
+public class DownloadUrlSigner {
+
+    @Autowired
+    private DatasetMapper datasetMapper;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private OperationHistoryMapper operationHistoryMapper;
+
+    @Autowired
+    private FeedbackMapper feedbackMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${file-download.secret:${jwt.secret}}")
+    private String secret;
+
+    /**
+     * 下载地址有效期(毫秒)，只需覆盖从申请到浏览器发起下载的时间，断点续传时重新申请
+     */
+    @Value("${file-download.url-ttl:300000}")
+    private long urlTtl;
+
+    /**
+     * 页面中展示的图片地址有效期(毫秒)，需要覆盖页面停留和登录信息中保存头像地址的时间
+     */
+    @Value("${file-download.image-url-ttl:86400000}")
+    private long imageUrlTtl;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    /**
+     * 生成下载地址
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @param fileName 下载文件名，可为空
+     * @param userId 当前用户ID
+     * @param isAdmin 是否管理员
+     * @return 下载接口的相对地址(含查询参数)
+     */
+    public String createUrl(String bucket, String objectKey, String fileName, Long userId, boolean isAdmin) {
+        if (!isAdmin && !canAccess(bucket, objectKey, userId)) {
+            throw new BusinessException(403, "无权下载该文件");
+        }
+        return buildUrl("", bucket, objectKey, fileName, System.currentTimeMillis() + urlTtl);
+    }
+
+    /**
+     * 为页面中展示的图片生成下载地址，调用方已确认当前用户可以查看该记录
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @return 带上下文路径的地址(如/api/file/download?...)，可直接用作img的src；存储桶或对象键为空时返回null
+     */
+    public String signImageUrl(String bucket, String objectKey) {
+        if (!StringUtils.hasText(bucket) || !StringUtils.hasText(objectKey)) {
+            return null;
+        }
+        // 过期时间向上对齐到有效期的整数倍，剩余有效期不少于一个周期，同一窗口内地址相同
+        long expires = (System.currentTimeMillis() / imageUrlTtl + 2) * imageUrlTtl;
+        return buildUrl(contextPath, bucket, objectKey, null, expires);
+    }
+
+    private String buildUrl(String prefix, String bucket, String objectKey, String fileName, long expires) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromPath(prefix + "/file/download")
+                .queryParam("bucket", bucket)
+                .queryParam("objectKey", objectKey)
+                .queryParam("expires", expires)
+                .queryParam("signature", sign(bucket, objectKey, fileName, expires));
+        if (StringUtils.hasText(fileName)) {
+            builder.queryParam("fileName", fileName);
+        }
+        return builder.encode().build().toUriString();
+    }
+
+    /**
+     * 校验下载地址的签名和有效期
+     *
+     * @throws BusinessException 签名无效或已过期时抛出
+     */
+    public void verify(String bucket, String objectKey, String fileName, Long expires, String signature) {
+        if (expires == null || !StringUtils.hasText(signature)) {
+            throw new BusinessException(401, "下载地址无效");
+        }
+        if (expires < System.currentTimeMillis()) {
+            throw new BusinessException(401, "下载地址已过期");
+        }
+        byte[] expected = sign(bucket, objectKey, fileName, expires).getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.UTF_8))) {
+            throw new BusinessException(401, "下载地址无效");
+        }
+    }
+
+    private String sign(String bucket, String objectKey, String fileName, long expires) {
+        String content = bucket + "\n" + objectKey + "\n" + (fileName == null ? "" : fileName) + "\n" + expires;
+        return new HMac(HmacAlgorithm.HmacSHA256, secret.getBytes(StandardCharsets.UTF_8)).digestHex(content);
+    }
+
+    /**
+     * 文件是否属于用户有权访问的资源
+     */
+    private boolean canAccess(String bucket, String objectKey, Long userId) {
+        if (datasetMapper.exists(new LambdaQueryWrapper<Dataset>()
+                .eq(Dataset::getBucket, bucket)
+                .eq(Dataset::getObjectKey, objectKey)
+                .eq(Dataset::getCreateUserId, userId))) {
+            return true;
+        }
+        if (modelMapper.exists(new LambdaQueryWrapper<Model>()
+                .eq(Model::getModelBucket, bucket)
+                .eq(Model::getModelObjectKey, objectKey)
+                .and(w -> w.eq(Model::getCreateUserId, userId)
+                        .or().eq(Model::getStatus, StatusConstant.MODEL_STATUS_PUBLISHED)))) {
+            return true;
+        }
+        if (modelMapper.exists(new LambdaQueryWrapper<Model>()
+                .eq(Model::getDatasetBucket, bucket)
+                .eq(Model::getDatasetObjectKey, objectKey)
+                .eq(Model::getCreateUserId, userId))) {
+            return true;
+        }
+        if (operationHistoryMapper.exists(new LambdaQueryWrapper<OperationHistory>()
+                .eq(OperationHistory::getCreateUserId, userId)
+                .and(w -> w.nested(n -> n.eq(OperationHistory::getOriginalImageBucket, bucket)
+                                .eq(OperationHistory::getOriginalImageKey, objectKey))
+                        .or().nested(n -> n.eq(OperationHistory::getResultImageBucket, bucket)
+                                .eq(OperationHistory::getResultImageKey, objectKey))
+                        .or().nested(n -> n.eq(OperationHistory::getOverlayImageBucket, bucket)
+                                .eq(OperationHistory::getOverlayImageKey, objectKey))))) {
+            return true;
+        }
+        if (feedbackMapper.exists(new LambdaQueryWrapper<Feedback>()
+                .eq(Feedback::getCreateUserId, userId)
+                .and(w -> w.nested(n -> n.eq(Feedback::getOriginalImageBucket, bucket)
+                                .eq(Feedback::getOriginalImageKey, objectKey))
+                        .or().nested(n -> n.eq(Feedback::getLabelImageBucket, bucket)
+                                .eq(Feedback::getLabelImageKey, objectKey))
+                        .or().nested(n -> n.eq(Feedback::getOverlayImageBucket, bucket)
+                                .eq(Feedback::getOverlayImageKey, objectKey))))) {
+            return true;
+        }
+        // 头像在数据集等列表中展示给其他用户，所有登录用户都可以访问
+        return userMapper.exists(new LambdaQueryWrapper<User>()
+                .eq(User::getAvatarBucket, bucket)
+                .eq(User::getAvatarObjectKey, objectKey));
+    }
+}
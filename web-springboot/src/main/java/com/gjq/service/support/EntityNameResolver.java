@@ -0,0 +1,77 @@
+package com.gjq.service.support;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.gjq.entity.Model;
+import com.gjq.entity.User;
+import com.gjq.mapper.ModelMapper;
+import com.gjq.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 关联实体名称批量查询
+ * <p>
+ * 分页结果转换VO时先收集整页的ID，每种实体只查询一次，避免逐行查询产生N+1问题。
+ */
+@Component
+public class EntityNameResolver {
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    /**
+     * 批量查询模型名称
+     *
+     * @param modelIds 模型ID集合，允许包含null和重复值
+     * @return 模型ID到名称的映射
+     */
+    public Map<Long, String> getModelNames(Collection<Long> modelIds) {
+        Set<Long> ids = distinctIds(modelIds);
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        LambdaQueryWrapper<Model> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(Model::getId, Model::getName)
+                    .in(Model::getId, ids);
+        Map<Long, String> result = new HashMap<>();
+        modelMapper.selectList(queryWrapper).forEach(model -> result.put(model.getId(), model.getName()));
+        return result;
+    }
+
+    /**
+     * 批量查询用户名
+     *
+     * @param userIds 用户ID集合，允许包含null和重复值
+     * @return 用户ID到用户名的映射
+     */
+    public Map<Long, String> getUsernames(Collection<Long> userIds) {
+        Set<Long> ids = distinctIds(userIds);
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(User::getId, User::getUsername)
+                    .in(User::getId, ids);
+        Map<Long, String> result = new HashMap<>();
+        userMapper.selectList(queryWrapper).forEach(user -> result.put(user.getId(), user.getUsername()));
+        return result;
+    }
+
+    private Set<Long> distinctIds(Collection<Long> ids) {
+        if (ids == null) {
+            return Collections.emptySet();
+        }
+        return ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+}
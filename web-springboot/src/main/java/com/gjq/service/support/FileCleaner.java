@@ -0,0 +1,263 @@
+package com.gjq.service.support;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.gjq.client.FileClient;
+import com.gjq.common.StatusConstant;
+import com.gjq.entity.FileCleanupTask;
+import com.gjq.mapper.FileCleanupTaskMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 对象存储文件清理
+ * <p>
+ * 业务记录删除或替换后，待删除的文件先写入file_cleanup_task表，与业务记录的修改在同一事务中提交，
+ * 请求线程不调用文件服务。后台在事务提交后和定时任务中触发清理线程池分批删除这些文件，线程池繁忙时放弃本次触发，
+ * 由定时任务稍后处理。文件已不存在(404)视为删除成功，其他失败按指数退避重试，服务重启或文件服务暂时不可用时文件也不会遗留。
+ * 重试达到最大次数仍失败的任务标记为删除失败，不再参与定时处理，保留在表中供人工排查。
+ */
+@Slf4j
+@Component
+public class FileCleaner {
+
+    @Autowired
+    private FileClient fileClient;
+
+    @Autowired
+    private FileCleanupTaskMapper fileCleanupTaskMapper;
+
+    @Autowired
+    @Qualifier("cleanupExecutor")
+    private Executor cleanupExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file-cleanup.batch-size:100}")
+    private int batchSize;
+
+    @Value("${file-cleanup.initial-backoff:10000}")
+    private long initialBackoff;
+
+    @Value("${file-cleanup.max-backoff:3600000}")
+    private long maxBackoff;
+
+    @Value("${file-cleanup.max-attempts:20}")
+    private int maxAttempts;
+
+    /**
+     * 同一时间只有一个线程处理清理任务
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 处理期间又有新的清理任务提交，处理完后需要再检查一次
+     */
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    /**
+     * 事务提交后删除文件，事务回滚时文件保留
+     * <p>
+     * 同一事务中登记的文件在提交前用一条语句写入清理任务表；不在事务中时立即写入
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     */
+    @SuppressWarnings("unchecked")
+    public void deleteAfterCommit(String bucket, String objectKey) {
+        if (!StringUtils.hasText(bucket) || !StringUtils.hasText(objectKey)) {
+            return;
+        }
+        FileCleanupTask task = new FileCleanupTask();
+        task.setBucket(bucket);
+        task.setObjectKey(objectKey);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fileCleanupTaskMapper.insertBatch(Collections.singletonList(task));
+            triggerDrain();
+            return;
+        }
+
+        List<FileCleanupTask> pending = (List<FileCleanupTask>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<FileCleanupTask> tasks = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, tasks);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    fileCleanupTaskMapper.insertBatch(tasks);
+                }
+
+                @Override
+                public void afterCommit() {
+                    triggerDrain();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FileCleaner.this);
+                }
+            });
+            pending = tasks;
+        }
+        pending.add(task);
+    }
+
+    /**
+     * 立即异步删除文件，用于清理不受事务保护的临时文件
+     * <p>
+     * 删除失败或线程池繁忙时写入清理任务表，由后台重试
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     */
+    public void delete(String bucket, String objectKey) {
+        if (!StringUtils.hasText(bucket) || !StringUtils.hasText(objectKey)) {
+            return;
+        }
+        try {
+            cleanupExecutor.execute(() -> deleteNow(bucket, objectKey));
+        } catch (RejectedExecutionException e) {
+            deleteAfterCommit(bucket, objectKey);
+        }
+    }
+
+    private void deleteNow(String bucket, String objectKey) {
+        try {
+            deleteFile(bucket, objectKey);
+            log.debug("删除文件成功, bucket: {}, objectKey: {}", bucket, objectKey);
+        } catch (Exception e) {
+            log.warn("删除文件失败，稍后重试, bucket: {}, objectKey: {}, 原因: {}", bucket, objectKey, e.getMessage());
+            deleteAfterCommit(bucket, objectKey);
+        }
+    }
+
+    /**
+     * 定时处理到期的清理任务，兜底处理提交后触发失败、重试到期和服务重启前遗留的任务
+     * <p>
+     * 只把处理提交到清理线程池，不占用定时任务线程
+     */
+    @Scheduled(fixedDelayString = "${file-cleanup.interval:10000}")
+    public void scheduledDrain() {
+        triggerDrain();
+    }
+
+    /**
+     * 处理到期的清理任务，已有线程在处理时只标记需要再检查一次
+     */
+    public void drain() {
+        drainRequested.set(true);
+        while (drainRequested.get() && draining.compareAndSet(false, true)) {
+            drainRequested.set(false);
+            try {
+                drainDueTasks();
+            } catch (Exception e) {
+                log.error("处理文件清理任务失败", e);
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * 在清理线程池中处理清理任务，线程池繁忙时放弃，任务已在表中，由定时任务稍后处理
+     */
+    private void triggerDrain() {
+        try {
+            cleanupExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.debug("清理线程池繁忙，等待定时任务处理清理任务");
+        }
+    }
+
+    /**
+     * 在清理线程中逐个删除到期的文件，删除成功的任务每批用一条语句移除
+     */
+    private void drainDueTasks() {
+        List<FileCleanupTask> tasks;
+        do {
+            tasks = fileCleanupTaskMapper.selectList(new LambdaQueryWrapper<FileCleanupTask>()
+                    .eq(FileCleanupTask::getStatus, StatusConstant.CLEANUP_STATUS_PENDING)
+                    .apply("next_attempt_time <= NOW()")
+                    .orderByAsc(FileCleanupTask::getNextAttemptTime)
+                    .last("LIMIT " + batchSize));
+
+            List<Long> finishedIds = new ArrayList<>();
+            for (FileCleanupTask task : tasks) {
+                try {
+                    deleteFile(task.getBucket(), task.getObjectKey());
+                    finishedIds.add(task.getId());
+                } catch (Exception e) {
+                    retryLater(task, e);
+                }
+            }
+            if (!finishedIds.isEmpty()) {
+                fileCleanupTaskMapper.deleteBatchIds(finishedIds);
+                meterRegistry.counter("file.cleanup.deleted").increment(finishedIds.size());
+                log.debug("删除文件{}个", finishedIds.size());
+            }
+        } while (tasks.size() == batchSize);
+    }
+
+    /**
+     * 删除文件，文件服务返回404说明文件已不存在，视为删除成功
+     */
+    private void deleteFile(String bucket, String objectKey) {
+        try {
+            fileClient.delete(bucket, objectKey);
+        } catch (HttpClientErrorException.NotFound e) {
+            log.debug("文件已不存在, bucket: {}, objectKey: {}", bucket, objectKey);
+        }
+    }
+
+    /**
+     * 删除失败，按指数退避推迟下次尝试时间，达到最大尝试次数后标记为删除失败
+     */
+    private void retryLater(FileCleanupTask task, Exception e) {
+        meterRegistry.counter("file.cleanup.failed").increment();
+        int attempts = task.getAttempts() == null ? 0 : task.getAttempts();
+        String errorMsg = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        if (errorMsg.length() > 255) {
+            errorMsg = errorMsg.substring(0, 255);
+        }
+
+        if (attempts + 1 >= maxAttempts) {
+            meterRegistry.counter("file.cleanup.abandoned").increment();
+            log.error("删除文件失败，已达到最大尝试次数，不再重试, bucket: {}, objectKey: {}, 已尝试: {}次, 原因: {}",
+                    task.getBucket(), task.getObjectKey(), attempts + 1, errorMsg);
+            fileCleanupTaskMapper.update(null, new LambdaUpdateWrapper<FileCleanupTask>()
+                    .eq(FileCleanupTask::getId, task.getId())
+                    .setSql("attempts = attempts + 1")
+                    .set(FileCleanupTask::getStatus, StatusConstant.CLEANUP_STATUS_FAILED)
+                    .set(FileCleanupTask::getErrorMsg, errorMsg));
+            return;
+        }
+
+        long backoff = Math.min(maxBackoff, initialBackoff << Math.min(attempts, 20));
+        long backoffSeconds = Math.max(1, backoff / 1000);
+        log.warn("删除文件失败，{}秒后重试, bucket: {}, objectKey: {}, 已尝试: {}次, 原因: {}",
+                backoffSeconds, task.getBucket(), task.getObjectKey(), attempts + 1, errorMsg);
+        fileCleanupTaskMapper.update(null, new LambdaUpdateWrapper<FileCleanupTask>()
+                .eq(FileCleanupTask::getId, task.getId())
+                .setSql("attempts = attempts + 1")
+                .setSql("next_attempt_time = DATE_ADD(NOW(), INTERVAL " + backoffSeconds + " SECOND)")
+                .set(FileCleanupTask::getErrorMsg, errorMsg));
+    }
+}
@@ -0,0 +1,236 @@
+package com.gjq.service.support;
+
+import com.gjq.client.FileClient;
+import com.gjq.client.FileDiskCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * 文件下载代理
+ * <p>
+ * 文件服务的响应流直接写到客户端，只占用固定大小的缓冲区。Range和条件请求头转发给文件服务，
+ * 文件服务忽略这些请求头返回完整内容时，根据响应的长度、ETag和Last-Modified在本地处理：
+ * 跳过范围之前的字节只返回请求的范围，或者在内容未变化时返回304。启用本地文件缓存时已缓存的对象直接读取缓存文件，
+ * 未缓存的对象照常代理并在后台缓存。
+ */
+@Slf4j
+@Component
+public class FileDownloader {
+
+    /**
+     * 转发给文件服务的请求头
+     */
+    private static final List<String> FORWARD_REQUEST_HEADERS = List.of(
+            HttpHeaders.RANGE, HttpHeaders.IF_RANGE, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+
+    /**
+     * 透传给客户端的响应头
+     */
+    private static final List<String> FORWARD_RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private FileClient fileClient;
+
+    /**
+     * 下载文件
+     *
+     * @param bucket 存储桶名称
+     * @param objectKey 对象键
+     * @param fileName 下载文件名，为空时浏览器直接展示（图片等）
+     * @param request 客户端请求
+     * @param response 客户端响应
+     */
+    public void download(String bucket, String objectKey, String fileName,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        for (String name : FORWARD_REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                requestHeaders.set(name, value);
+            }
+        }
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        // 启用本地缓存且已缓存时从缓存文件读取，响应头使用缓存时记录的文件服务元数据；
+        // 未命中时直接代理文件服务，同时在后台缓存，HEAD和范围请求不必等待整个对象下载完成
+        try (FileDiskCache.CachedFile cachedFile = fileClient.peekCachedFile(bucket, objectKey)) {
+            if (cachedFile != null) {
+                FileDiskCache.Metadata metadata = cachedFile.getMetadata();
+                try (InputStream body = Files.newInputStream(cachedFile.getPath())) {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setContentLength(metadata.size());
+                    headers.set(HttpHeaders.CONTENT_TYPE, metadata.contentType() != null ? metadata.contentType()
+                            : MediaTypeFactory.getMediaType(objectKey).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+                    if (metadata.eTag() != null) {
+                        headers.set(HttpHeaders.ETAG, metadata.eTag());
+                    }
+                    if (metadata.lastModified() != null) {
+                        headers.set(HttpHeaders.LAST_MODIFIED, metadata.lastModified());
+                    }
+                    writeResponse(HttpStatus.OK, headers, body, requestHeaders, fileName, head, response);
+                    return;
+                }
+            }
+        }
+
+        try {
+            fileClient.download(bucket, objectKey, requestHeaders, (status, headers, body) -> {
+                writeResponse(status, headers, body, requestHeaders, fileName, head, response);
+                return null;
+            });
+        } catch (HttpStatusCodeException e) {
+            // 文件不存在、范围无效等错误状态原样返回
+            log.debug("下载文件失败, bucket: {}, objectKey: {}, 状态: {}", bucket, objectKey, e.getStatusCode());
+            response.setStatus(e.getStatusCode().value());
+            String contentRange = e.getResponseHeaders() != null ? e.getResponseHeaders().getFirst(HttpHeaders.CONTENT_RANGE) : null;
+            if (contentRange != null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange);
+            }
+        }
+    }
+
+    private void writeResponse(HttpStatusCode status, HttpHeaders upstream, InputStream body, HttpHeaders requestHeaders,
+                               String fileName, boolean head, HttpServletResponse response) throws IOException {
+        for (String name : FORWARD_RESPONSE_HEADERS) {
+            String value = upstream.getFirst(name);
+            if (value != null) {
+                response.setHeader(name, value);
+            }
+        }
+        if (StringUtils.hasText(fileName)) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(fileName, StandardCharsets.UTF_8).build().toString());
+        }
+
+        // 文件服务已处理条件请求或范围请求，直接透传
+        if (status.value() == HttpStatus.NOT_MODIFIED.value()) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        long contentLength = upstream.getContentLength();
+        if (status.value() == HttpStatus.PARTIAL_CONTENT.value()) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, upstream.getFirst(HttpHeaders.CONTENT_RANGE));
+            transfer(body, response, 0, contentLength, head);
+            return;
+        }
+
+        // 文件服务返回了完整内容，在本地处理条件请求和范围请求
+        if (notModified(requestHeaders, upstream)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        if (contentLength >= 0) {
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        }
+        HttpRange range = resolveRange(requestHeaders, upstream, contentLength);
+        if (range == null) {
+            response.setStatus(status.value());
+            transfer(body, response, 0, contentLength, head);
+            return;
+        }
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(contentLength);
+            end = range.getRangeEnd(contentLength);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength);
+            return;
+        }
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + contentLength);
+        transfer(body, response, start, end - start + 1, head);
+    }
+
+    /**
+     * 根据文件服务返回的ETag和Last-Modified判断客户端缓存是否仍然有效
+     */
+    private boolean notModified(HttpHeaders requestHeaders, HttpHeaders upstream) {
+        String etag = upstream.getETag();
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            if (etag == null) {
+                return false;
+            }
+            String weakEtag = stripWeak(etag);
+            return ifNoneMatch.stream().anyMatch(tag -> "*".equals(tag) || stripWeak(tag).equals(weakEtag));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        long lastModified = upstream.getLastModified();
+        // HTTP日期精度为秒
+        return ifModifiedSince >= 0 && lastModified >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * 解析需要本地处理的范围，不支持多段范围；If-Range与当前文件不一致时返回完整内容
+     *
+     * @return 为空表示返回完整内容
+     */
+    private HttpRange resolveRange(HttpHeaders requestHeaders, HttpHeaders upstream, long contentLength) {
+        String rangeHeader = requestHeaders.getFirst(HttpHeaders.RANGE);
+        if (rangeHeader == null || contentLength < 0) {
+            return null;
+        }
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(upstream.getETag()) && !ifRange.equals(upstream.getFirst(HttpHeaders.LAST_MODIFIED))) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 跳过前offset字节后复制length字节到客户端
+     * 提前结束时剩余的内容由连接池读完后释放连接
+     */
+    private void transfer(InputStream body, HttpServletResponse response, long offset, long length, boolean head) throws IOException {
+        if (length >= 0) {
+            response.setContentLengthLong(length);
+        }
+        if (head) {
+            return;
+        }
+        body.skipNBytes(offset);
+        OutputStream outputStream = response.getOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = length < 0 ? Long.MAX_VALUE : length;
+        int read;
+        while (remaining > 0 && (read = body.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            outputStream.write(buffer, 0, read);
+            remaining -= read;
+        }
+        outputStream.flush();
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
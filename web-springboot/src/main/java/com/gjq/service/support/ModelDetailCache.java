@@ -0,0 +1,133 @@
+package com.gjq.service.support;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gjq.mapper.ModelMapper;
+import com.gjq.vo.model.ModelVO;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 模型详情进程内缓存
+ * <p>
+ * 算法服务加载预测模型时按ID查询模型详情（三表关联查询），已发布的模型很少变化，这里按模型ID缓存，
+ * 容量有上限，条目超时后重新查库。每个条目带有由内容计算的版本号，用作ETag，调用方持有的版本未变化时返回304。
+ * 模型信息变更时由{@link com.gjq.service.impl.ModelServiceImpl}主动失效；
+ * 数据集名称、创建人用户名等关联信息的变化在条目过期后生效。
+ */
+@Component
+public class ModelDetailCache {
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${cache.model-detail.capacity:500}")
+    private int capacity;
+
+    @Value("${cache.model-detail.ttl:600000}")
+    private long ttl;
+
+    private LRUCache<Long, Entry> cache;
+
+    /**
+     * 缓存条目
+     *
+     * @param model 模型详情
+     * @param version 版本号（带引号的ETag格式）
+     */
+    private record Entry(ModelVO model, String version) {
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = CacheUtil.newLRUCache(capacity, ttl);
+    }
+
+    /**
+     * 获取模型详情，未命中时查库
+     *
+     * @param modelId 模型ID
+     * @return 模型详情副本，模型不存在时返回null
+     */
+    public ModelVO get(Long modelId) {
+        Entry entry = getEntry(modelId);
+        return entry == null ? null : copyOf(entry.model());
+    }
+
+    /**
+     * 获取模型详情当前的版本号，未命中时查库
+     *
+     * @param modelId 模型ID
+     * @return 带引号的ETag，模型不存在时返回null
+     */
+    public String getVersion(Long modelId) {
+        Entry entry = getEntry(modelId);
+        return entry == null ? null : entry.version();
+    }
+
+    /**
+     * 使模型缓存失效，事务中调用时在提交后再失效一次，避免提交前其他请求读到旧数据重新写入缓存
+     *
+     * @param modelId 模型ID
+     */
+    public void evict(Long modelId) {
+        if (modelId == null) {
+            return;
+        }
+        cache.remove(modelId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(modelId);
+                }
+            });
+        }
+    }
+
+    private Entry getEntry(Long modelId) {
+        if (modelId == null) {
+            return null;
+        }
+        Entry entry = cache.get(modelId);
+        if (entry != null) {
+            return entry;
+        }
+        // 不存在的模型不缓存，避免之后创建的模型在条目过期前查不到
+        ModelVO model = modelMapper.selectModelDetail(modelId);
+        if (model == null) {
+            return null;
+        }
+        entry = new Entry(model, versionOf(model));
+        cache.put(modelId, entry);
+        return entry;
+    }
+
+    /**
+     * 版本号由序列化后的内容计算，内容不变时重新加载得到相同的版本号
+     */
+    private String versionOf(ModelVO model) {
+        try {
+            return "\"" + DigestUtil.sha256Hex(objectMapper.writeValueAsBytes(model)).substring(0, 32) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化模型详情失败", e);
+        }
+    }
+
+    private ModelVO copyOf(ModelVO model) {
+        ModelVO copy = new ModelVO();
+        BeanUtils.copyProperties(model, copy);
+        return copy;
+    }
+}
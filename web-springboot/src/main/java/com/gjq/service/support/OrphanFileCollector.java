@@ -0,0 +1,228 @@
+package com.gjq.service.support;
+
+import com.gjq.client.FileClient;
+import com.gjq.mapper.FileReferenceMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 孤立文件回收
+ * <p>
+ * 上传失败、更新模型中途失败以及历史版本中删除文件失败时，对象存储中会留下没有业务记录引用的文件。
+ * 这里定时遍历文件服务的存储目录（需要与文件服务部署在同一台机器上），每批文件名用一次查询核对各业务表的引用，
+ * 超过宽限期仍未被引用的文件移到隔离目录，未配置隔离目录时通过文件服务删除。
+ * 遍历时只在内存中保留一批文件名，批次之间暂停以限制对数据库和磁盘的压力。
+ * 一次回收可能持续较长时间，定时触发后在单独的线程中运行，不占用其他定时任务共用的调度线程。
+ */
+@Slf4j
+@Component
+public class OrphanFileCollector {
+
+    @Autowired
+    private FileReferenceMapper fileReferenceMapper;
+
+    @Autowired
+    private FileClient fileClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${orphan-gc.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 文件服务的存储根目录，每个存储桶是其中的一个子目录
+     */
+    @Value("${orphan-gc.store-dir:}")
+    private String storeDir;
+
+    /**
+     * 孤立文件的隔离目录，为空时直接删除
+     */
+    @Value("${orphan-gc.quarantine-dir:}")
+    private String quarantineDir;
+
+    @Value("${orphan-gc.buckets:}")
+    private String[] buckets;
+
+    /**
+     * 宽限期，修改时间在此之内的文件可能属于进行中的上传或还未保存的预测结果，不做处理
+     */
+    @Value("${orphan-gc.grace-period:86400000}")
+    private long gracePeriod;
+
+    @Value("${orphan-gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${orphan-gc.batch-interval:200}")
+    private long batchInterval;
+
+    /**
+     * 单次运行最多处理的孤立文件数，避免误配置时一次清空整个存储桶
+     */
+    @Value("${orphan-gc.max-per-run:10000}")
+    private int maxPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    @Qualifier("orphanGcExecutor")
+    private Executor orphanGcExecutor;
+
+    @Scheduled(cron = "${orphan-gc.cron:0 30 3 * * ?}")
+    public void scheduledCollect() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            orphanGcExecutor.execute(this::collect);
+        } catch (RejectedExecutionException e) {
+            log.info("孤立文件回收正在运行，跳过本次执行");
+        }
+    }
+
+    /**
+     * 回收所有配置的存储桶中的孤立文件
+     *
+     * @return 本次处理的孤立文件数，已有回收在运行时返回-1
+     */
+    public int collect() {
+        if (!StringUtils.hasText(storeDir)) {
+            log.warn("未配置文件服务存储目录(orphan-gc.store-dir)，跳过孤立文件回收");
+            return 0;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.info("孤立文件回收正在运行，跳过本次执行");
+            return -1;
+        }
+        try {
+            Instant cutoff = Instant.now().minus(Duration.ofMillis(gracePeriod));
+            int collected = 0;
+            for (String bucket : buckets) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                if (collected >= maxPerRun) {
+                    log.warn("本次孤立文件回收已达到上限{}个，剩余存储桶下次处理", maxPerRun);
+                    break;
+                }
+                collected += collectBucket(bucket.trim(), cutoff, maxPerRun - collected);
+            }
+            log.info("孤立文件回收完成，共处理{}个文件", collected);
+            return collected;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 分批遍历存储桶目录，核对引用后处理孤立文件
+     */
+    private int collectBucket(String bucket, Instant cutoff, int limit) {
+        Path bucketDir = Paths.get(storeDir, bucket);
+        if (!Files.isDirectory(bucketDir)) {
+            return 0;
+        }
+
+        int collected = 0;
+        List<Path> batch = new ArrayList<>(batchSize);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(bucketDir, Files::isRegularFile)) {
+            for (Path file : stream) {
+                if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                batch.add(file);
+                if (batch.size() >= batchSize) {
+                    collected += collectBatch(bucket, batch, limit - collected);
+                    batch.clear();
+                    if (collected >= limit) {
+                        return collected;
+                    }
+                    pause();
+                    // 应用关闭时中断回收线程，剩余文件下次处理
+                    if (Thread.currentThread().isInterrupted()) {
+                        log.info("孤立文件回收被中断, bucket: {}", bucket);
+                        return collected;
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                collected += collectBatch(bucket, batch, limit - collected);
+            }
+        } catch (IOException e) {
+            log.error("遍历存储桶目录失败: {}", bucketDir, e);
+        }
+        return collected;
+    }
+
+    private int collectBatch(String bucket, List<Path> batch, int limit) {
+        Set<String> keys = new HashSet<>();
+        for (Path file : batch) {
+            keys.add(file.getFileName().toString());
+        }
+        keys.removeAll(fileReferenceMapper.selectReferencedKeys(bucket, keys));
+
+        int collected = 0;
+        for (Path file : batch) {
+            String objectKey = file.getFileName().toString();
+            if (collected >= limit || !keys.contains(objectKey)) {
+                continue;
+            }
+            try {
+                if (StringUtils.hasText(quarantineDir)) {
+                    quarantine(bucket, file);
+                } else {
+                    fileClient.delete(bucket, objectKey);
+                }
+                collected++;
+                meterRegistry.counter("file.orphan.collected", "bucket", bucket).increment();
+                log.info("回收孤立文件, bucket: {}, objectKey: {}", bucket, objectKey);
+            } catch (Exception e) {
+                log.warn("回收孤立文件失败, bucket: {}, objectKey: {}, 原因: {}", bucket, objectKey, e.getMessage());
+            }
+        }
+        return collected;
+    }
+
+    /**
+     * 移到隔离目录下同名存储桶子目录中，确认无误后由运维手动删除
+     */
+    private void quarantine(String bucket, Path file) throws IOException {
+        Path target = Paths.get(quarantineDir, bucket).resolve(file.getFileName());
+        Files.createDirectories(target.getParent());
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void pause() {
+        if (batchInterval <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(batchInterval);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.gjq.service.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gjq.client.AlgorithmClient;
+import com.gjq.client.RequestDeadline;
+import com.gjq.common.exception.BusinessException;
+import com.gjq.entity.OperationHistory;
+import com.gjq.service.OperationHistoryService;
+import com.gjq.vo.prediction.PredictResultVO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预测请求合并器
+ * <p>
+ * 算法服务逐张推理时GPU利用率低，多个工作站同时预测只能排队。这里把同一模型的并发预测请求合并成一批，
+ * 批次达到最大数量或第一个请求等待超过最长等待时间后，通过算法服务的批量预测接口做一次前向推理。
+ * 每个请求持有自己的Future，按批次内的下标取回各自的结果，单张图片失败不影响同批次的其他请求；
+ * 需要保存操作历史的请求在批次完成后合并成一次批量插入。
+ * 批次发送前剔除调用方已放弃等待的请求，以批次中最晚的截止时间作为发往算法服务的截止时间。
+ */
+@Slf4j
+@Component
+public class PredictionBatcher {
+
+    @Autowired
+    private AlgorithmClient algorithmClient;
+
+    @Autowired
+    private OperationHistoryService operationHistoryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("predictionExecutor")
+    private Executor predictionExecutor;
+
+    @Value("${prediction.batch.max-size:8}")
+    private int maxBatchSize;
+
+    @Value("${prediction.batch.max-wait:20}")
+    private long maxWait;
+
+    @Value("${prediction.batch.max-pending:200}")
+    private int maxPending;
+
+    /**
+     * 各模型正在收集请求的批次，分发后移除，访问时需持有该对象的锁
+     */
+    private final Map<Long, Batch> collecting = new HashMap<>();
+
+    /**
+     * 已提交但还未返回结果的请求数
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private ScheduledExecutorService timer;
+
+    private DistributionSummary batchSize;
+
+    private Timer batchLatency;
+
+    /**
+     * 待预测的请求
+     */
+    private record Request(String imageBucket, String imageKey, Long userId, boolean saveHistory, long deadline,
+                           CompletableFuture<PredictResultVO> future) {
+    }
+
+    /**
+     * 同一模型的一批请求
+     */
+    private static class Batch {
+        private final Long modelId;
+        private final List<Request> requests = new ArrayList<>();
+        private ScheduledFuture<?> timeout;
+
+        private Batch(Long modelId) {
+            this.modelId = modelId;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Predict-Batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        batchSize = DistributionSummary.builder("prediction.batch.size")
+                .description("每次发给算法服务的预测批次大小")
+                .register(meterRegistry);
+        batchLatency = Timer.builder("prediction.batch.latency")
+                .description("批量预测调用算法服务的耗时")
+                .register(meterRegistry);
+        Gauge.builder("prediction.pending", pending, AtomicInteger::get)
+                .description("已提交但还未返回结果的预测请求数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 提交预测请求
+     *
+     * @param modelId 模型ID
+     * @param imageBucket 待分割图片存储桶
+     * @param imageKey 待分割图片对象键
+     * @param userId 用户ID
+     * @param saveHistory 是否保存操作历史
+     * @param deadline 调用方放弃等待的时间(毫秒时间戳)
+     * @return 预测结果，失败时以BusinessException结束
+     */
+    public CompletableFuture<PredictResultVO> submit(Long modelId, String imageBucket, String imageKey,
+                                                     Long userId, boolean saveHistory, long deadline) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            meterRegistry.counter("prediction.requests", "result", "rejected").increment();
+            throw new BusinessException("预测请求过多，请稍后重试");
+        }
+        CompletableFuture<PredictResultVO> future = new CompletableFuture<>();
+        future.whenComplete((result, e) -> pending.decrementAndGet());
+
+        Batch full = null;
+        synchronized (collecting) {
+            Batch batch = collecting.get(modelId);
+            if (batch == null) {
+                batch = new Batch(modelId);
+                collecting.put(modelId, batch);
+                Batch created = batch;
+                batch.timeout = timer.schedule(() -> flush(created), maxWait, TimeUnit.MILLISECONDS);
+            }
+            batch.requests.add(new Request(imageBucket, imageKey, userId, saveHistory, deadline, future));
+            if (batch.requests.size() >= maxBatchSize) {
+                collecting.remove(modelId);
+                batch.timeout.cancel(false);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    /**
+     * 等待超时后分发未满的批次，批次已因数量达到上限分发时忽略
+     */
+    private void flush(Batch batch) {
+        synchronized (collecting) {
+            if (collecting.get(batch.modelId) != batch) {
+                return;
+            }
+            collecting.remove(batch.modelId);
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        try {
+            predictionExecutor.execute(() -> execute(batch));
+        } catch (RejectedExecutionException e) {
+            log.warn("预测分发线程池已满，拒绝批次, 模型ID: {}, 请求数: {}", batch.modelId, batch.requests.size());
+            failAll(batch.requests, new BusinessException("预测服务繁忙，请稍后重试"));
+        }
+    }
+
+    /**
+     * 执行一个批次，任何异常都让批次中还未完成的请求以失败结束，保证每个Future都会完成、待处理计数都会归还
+     */
+    private void execute(Batch batch) {
+        try {
+            doExecute(batch);
+        } catch (Throwable e) {
+            log.error("批量预测处理异常, 模型ID: {}, 请求数: {}", batch.modelId, batch.requests.size(), e);
+            failAll(batch.requests, new BusinessException("图像分割预测失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 调用算法服务的批量预测接口，按下标把结果交给各个请求
+     */
+    private void doExecute(Batch batch) {
+        // 在分发线程池中排队期间调用方可能已经超时返回，这些请求不再发送
+        long now = System.currentTimeMillis();
+        List<Request> requests = new ArrayList<>(batch.requests.size());
+        long deadline = now;
+        for (Request request : batch.requests) {
+            if (request.future().isDone()) {
+                continue;
+            }
+            if (request.deadline() <= now) {
+                complete(request, null, new BusinessException("图像分割预测超时，请稍后重试"));
+                continue;
+            }
+            requests.add(request);
+            deadline = Math.max(deadline, request.deadline());
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+        batchSize.record(requests.size());
+
+        List<Map<String, Object>> images = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            Map<String, Object> image = new HashMap<>();
+            image.put("imageBucket", request.imageBucket());
+            image.put("imageKey", request.imageKey());
+            images.add(image);
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("modelId", batch.modelId);
+        params.put("images", images);
+
+        List<Map<String, Object>> items;
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> responseData = RequestDeadline.call(deadline,
+                    () -> algorithmClient.postForModel(batch.modelId, "/prediction/predict/batch", params));
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> results = (List<Map<String, Object>>) responseData.get("results");
+            items = results;
+        } catch (Exception e) {
+            log.error("批量预测失败, 模型ID: {}, 请求数: {}", batch.modelId, requests.size(), e);
+            failAll(requests, new BusinessException("图像分割预测失败: " + e.getMessage()));
+            return;
+        } finally {
+            batchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (items == null || items.size() != requests.size()) {
+            log.error("批量预测结果数量与请求数不一致, 模型ID: {}, 请求数: {}", batch.modelId, requests.size());
+            failAll(requests, new BusinessException("图像分割预测失败: 算法服务返回结果不完整"));
+            return;
+        }
+
+        // 解析各请求的结果，成功且需要保存操作历史的记录合并写入
+        PredictResultVO[] results = new PredictResultVO[requests.size()];
+        List<OperationHistory> histories = new ArrayList<>();
+        List<PredictResultVO> historyResults = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Request request = requests.get(i);
+            Map<String, Object> item = items.get(i);
+            if (item == null || !Boolean.TRUE.equals(item.get("success"))) {
+                complete(request, null, new BusinessException(item == null ? "图像分割预测失败: 算法服务返回结果为空"
+                        : String.valueOf(item.get("msg"))));
+                continue;
+            }
+            results[i] = objectMapper.convertValue(item.get("data"), PredictResultVO.class);
+            if (request.saveHistory()) {
+                histories.add(toHistory(batch.modelId, request, results[i]));
+                historyResults.add(results[i]);
+            }
+        }
+
+        BusinessException historyError = null;
+        if (!histories.isEmpty()) {
+            try {
+                operationHistoryService.saveBatch(histories);
+                for (int i = 0; i < histories.size(); i++) {
+                    historyResults.get(i).setHistoryId(histories.get(i).getId());
+                }
+            } catch (Exception e) {
+                log.error("批量保存预测操作历史失败, 模型ID: {}, 记录数: {}", batch.modelId, histories.size(), e);
+                historyError = new BusinessException("保存操作历史失败");
+            }
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] == null) {
+                continue;
+            }
+            Request request = requests.get(i);
+            if (historyError != null && request.saveHistory()) {
+                complete(request, null, historyError);
+            } else {
+                complete(request, results[i], null);
+            }
+        }
+    }
+
+    private OperationHistory toHistory(Long modelId, Request request, PredictResultVO result) {
+        OperationHistory history = new OperationHistory();
+        history.setModelId(modelId);
+        // 与前端保存的记录一致，原图使用预处理后的原图，与掩码图尺寸相同
+        if (result.getProcessedOrigImg() != null) {
+            history.setOriginalImageBucket(result.getProcessedOrigImg().getBucket());
+            history.setOriginalImageKey(result.getProcessedOrigImg().getObjectKey());
+        } else {
+            history.setOriginalImageBucket(request.imageBucket());
+            history.setOriginalImageKey(request.imageKey());
+        }
+        if (result.getPredictionMask() != null) {
+            history.setResultImageBucket(result.getPredictionMask().getBucket());
+            history.setResultImageKey(result.getPredictionMask().getObjectKey());
+        }
+        if (result.getOverlayImage() != null) {
+            history.setOverlayImageBucket(result.getOverlayImage().getBucket());
+            history.setOverlayImageKey(result.getOverlayImage().getObjectKey());
+        }
+        history.setCreateUserId(request.userId());
+        return history;
+    }
+
+    private void failAll(List<Request> requests, BusinessException e) {
+        for (Request request : requests) {
+            complete(request, null, e);
+        }
+    }
+
+    /**
+     * 完成请求，调用方已超时放弃或已完成的请求忽略
+     */
+    private void complete(Request request, PredictResultVO result, BusinessException e) {
+        if (request.future().isDone()) {
+            return;
+        }
+        meterRegistry.counter("prediction.requests", "result", e == null ? "success" : "failure").increment();
+        if (e == null) {
+            request.future().complete(result);
+        } else {
+            request.future().completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.gjq.service.support;
+
+import com.gjq.vo.event.StatusEventVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据集验证、模型训练状态推送中心（SSE）
+ * <p>
+ * 前端订阅后由服务端在状态变更时主动推送，替代定时轮询。普通用户只会收到自己创建的资源的事件，
+ * 管理员收到所有事件；订阅时可以指定资源类型和ID只接收单个资源的事件。
+ */
+@Slf4j
+@Component
+public class StatusEventHub {
+
+    private static final String EVENT_NAME = "status";
+
+    @Value("${sse.timeout:1800000}")
+    private long timeout;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 订阅信息
+     *
+     * @param userId 订阅用户ID
+     * @param admin 是否管理员
+     * @param type 资源类型过滤，为空表示不过滤
+     * @param resourceId 资源ID过滤，为空表示不过滤
+     */
+    private record Subscription(SseEmitter emitter, Long userId, boolean admin, String type, Long resourceId) {
+
+        boolean accept(StatusEventVO event, Long ownerUserId) {
+            if (!admin && !userId.equals(ownerUserId)) {
+                return false;
+            }
+            if (type != null && !type.equals(event.getType())) {
+                return false;
+            }
+            return resourceId == null || resourceId.equals(event.getId());
+        }
+    }
+
+    /**
+     * 创建订阅
+     *
+     * @param userId 当前用户ID
+     * @param admin 当前用户是否管理员
+     * @param type 资源类型，可为空
+     * @param resourceId 资源ID，可为空
+     * @return SSE连接
+     */
+    public SseEmitter subscribe(Long userId, boolean admin, String type, Long resourceId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscription subscription = new Subscription(emitter, userId, admin, type, resourceId);
+        subscriptions.add(subscription);
+
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscriptions.remove(subscription));
+
+        log.debug("SSE订阅, 用户ID: {}, 类型: {}, 资源ID: {}, 当前连接数: {}", userId, type, resourceId, subscriptions.size());
+        return emitter;
+    }
+
+    /**
+     * 发布状态变更事件，在事务中调用时推迟到事务提交后发布，保证客户端收到事件后查询到的是新数据
+     *
+     * @param event 事件
+     * @param ownerUserId 资源创建者ID
+     */
+    public void publishAfterCommit(StatusEventVO event, Long ownerUserId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event, ownerUserId);
+                }
+            });
+        } else {
+            publish(event, ownerUserId);
+        }
+    }
+
+    /**
+     * 立即发布状态变更事件
+     *
+     * @param event 事件
+     * @param ownerUserId 资源创建者ID
+     */
+    public void publish(StatusEventVO event, Long ownerUserId) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.accept(event, ownerUserId)) {
+                send(subscription, SseEmitter.event().name(EVENT_NAME).data(event));
+            }
+        }
+    }
+
+    /**
+     * 定时发送心跳注释行，防止代理或浏览器因连接空闲断开，同时清理已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${sse.heartbeat-interval:25000}")
+    public void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            send(subscription, SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    /**
+     * 当前连接数
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    private void send(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        try {
+            subscription.emitter().send(event);
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            subscriptions.remove(subscription);
+            subscription.emitter().complete();
+        }
+    }
+}
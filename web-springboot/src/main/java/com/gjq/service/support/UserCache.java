@@ -0,0 +1,76 @@
+package com.gjq.service.support;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.gjq.entity.User;
+import com.gjq.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户信息进程内缓存
+ * <p>
+ * 鉴权时每个请求都需要用户的角色和状态，这里按用户ID缓存，容量有上限，条目超时后重新查库。
+ * 用户信息变更时由{@link com.gjq.service.impl.UserServiceImpl}主动失效。缓存中不保存密码。
+ */
+@Component
+public class UserCache {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${cache.user.capacity:1000}")
+    private int capacity;
+
+    @Value("${cache.user.ttl:300000}")
+    private long ttl;
+
+    private LRUCache<Long, User> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheUtil.newLRUCache(capacity, ttl);
+    }
+
+    /**
+     * 获取用户信息，未命中时查库
+     *
+     * @param userId 用户ID
+     * @return 用户信息副本（不含密码），用户不存在时返回null
+     */
+    public User get(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        User user = cache.get(userId, false, () -> load(userId));
+        return user == null ? null : copyOf(user);
+    }
+
+    /**
+     * 使用户缓存失效，用户信息修改或删除后调用
+     *
+     * @param userId 用户ID
+     */
+    public void evict(Long userId) {
+        if (userId != null) {
+            cache.remove(userId);
+        }
+    }
+
+    private User load(Long userId) {
+        User user = userMapper.selectById(userId);
+        if (user != null) {
+            user.setPassword(null);
+        }
+        return user;
+    }
+
+    private User copyOf(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+}
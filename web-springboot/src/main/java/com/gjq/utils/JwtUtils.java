@@ -1,6 +1,10 @@
 package com.gjq.utils;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.crypto.digest.DigestUtil;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,12 +20,31 @@ import java.util.Date;
 @Component
 public class JwtUtils {
 
-    private static String secret;
     private static long expiration;
 
+    /**
+     * 签名密钥和解析器在配置注入时构建一次，二者都是不可变且线程安全的
+     */
+    private static volatile SecretKey key;
+    private static volatile JwtParser parser;
+
+    /**
+     * 最近验证通过的token缓存：token摘要 -> 验证结果，命中时跳过签名校验和JSON解析
+     */
+    private static final LRUCache<String, VerifiedToken> VERIFIED_TOKENS = CacheUtil.newLRUCache(10000);
+
+    /**
+     * token验证结果
+     */
+    private record VerifiedToken(Long userId, long expiresAt) {
+    }
+
     @Value("${jwt.secret}")
     public void setSecret(String secret) {
-        JwtUtils.secret = secret;
+        SecretKey secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        JwtUtils.key = secretKey;
+        JwtUtils.parser = Jwts.parser().verifyWith(secretKey).build();
+        VERIFIED_TOKENS.clear();
     }
 
     @Value("${jwt.expiration}")
@@ -38,8 +61,6 @@ public class JwtUtils {
     public static String generateToken(Long userId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
-        
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
 
         return Jwts.builder()
                 .subject(userId.toString())
@@ -49,22 +70,55 @@ public class JwtUtils {
                 .compact();
     }
 
+    /**
+     * 验证token并返回用户ID，一次完成验证和解析
+     *
+     * @param token token
+     * @return 用户ID，token无效或已过期时返回null
+     */
+    public static Long verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String digest = DigestUtil.sha256Hex(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = VERIFIED_TOKENS.get(digest);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return cached.userId();
+            }
+            VERIFIED_TOKENS.remove(digest);
+            return null;
+        }
+
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Long userId = Long.parseLong(claims.getSubject());
+            Date expiryDate = claims.getExpiration();
+            if (expiryDate != null) {
+                // 缓存条目随token一起过期，没有过期时间的token不缓存
+                VERIFIED_TOKENS.put(digest, new VerifiedToken(userId, expiryDate.getTime()), expiryDate.getTime() - now);
+            }
+            return userId;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * 从token中获取用户ID
      *
      * @param token token
      * @return 用户ID
+     * @throws IllegalArgumentException token无效时抛出异常
      */
     public static Long getUserId(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return Long.parseLong(claims.getSubject());
+        Long userId = verify(token);
+        if (userId == null) {
+            throw new IllegalArgumentException("token无效");
+        }
+        return userId;
     }
 
     /**
@@ -74,15 +128,6 @@ public class JwtUtils {
      * @return 是否有效
      */
     public static boolean validateToken(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return verify(token) != null;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package com.gjq.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求耗时分解
+ * <p>
+ * 每个HTTP请求在处理线程上记录SQL、文件服务、算法服务等各类调用的次数和耗时，慢请求日志据此输出耗时分解。
+ * 只统计请求线程上的调用，提交到线程池异步执行的操作不计入。
+ */
+public final class RequestProfile {
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private final long startTime = System.nanoTime();
+
+    private final Map<String, Segment> segments = new LinkedHashMap<>();
+
+    /**
+     * 一类调用的统计
+     */
+    private static class Segment {
+        private int count;
+        private long totalNanos;
+        private long maxNanos;
+        private String slowest;
+    }
+
+    private RequestProfile() {
+    }
+
+    /**
+     * 在当前线程开始记录
+     */
+    public static void start() {
+        CURRENT.set(new RequestProfile());
+    }
+
+    /**
+     * 结束当前线程的记录
+     *
+     * @return 本次请求的记录，未开始时返回null
+     */
+    public static RequestProfile finish() {
+        RequestProfile profile = CURRENT.get();
+        CURRENT.remove();
+        return profile;
+    }
+
+    /**
+     * 记录一次调用，当前线程没有在记录时忽略
+     *
+     * @param category 调用类别，如sql、file、algorithm
+     * @param detail 调用说明，如语句ID、请求路径
+     * @param nanos 耗时(纳秒)
+     */
+    public static void record(String category, String detail, long nanos) {
+        RequestProfile profile = CURRENT.get();
+        if (profile == null) {
+            return;
+        }
+        Segment segment = profile.segments.computeIfAbsent(category, k -> new Segment());
+        segment.count++;
+        segment.totalNanos += nanos;
+        if (nanos > segment.maxNanos) {
+            segment.maxNanos = nanos;
+            segment.slowest = detail;
+        }
+    }
+
+    /**
+     * 从开始记录到现在的耗时(毫秒)
+     */
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    /**
+     * 耗时分解，如 "sql: 12次 共340ms 最慢85ms(com.gjq.mapper.ModelMapper.selectModelDetail); 其他: 20ms"
+     */
+    public String summary() {
+        long elapsed = System.nanoTime() - startTime;
+        long accounted = 0;
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Segment> entry : segments.entrySet()) {
+            Segment segment = entry.getValue();
+            accounted += segment.totalNanos;
+            builder.append(entry.getKey()).append(": ")
+                    .append(segment.count).append("次 共").append(toMillis(segment.totalNanos)).append("ms 最慢")
+                    .append(toMillis(segment.maxNanos)).append("ms(").append(segment.slowest).append("); ");
+        }
+        builder.append("其他: ").append(toMillis(Math.max(elapsed - accounted, 0))).append("ms");
+        return builder.toString();
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
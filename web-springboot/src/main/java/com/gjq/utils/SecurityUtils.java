@@ -2,7 +2,8 @@ package com.gjq.utils;
 
 import com.gjq.common.exception.BusinessException;
 import com.gjq.entity.User;
-import com.gjq.service.UserService;
+import com.gjq.service.support.UserCache;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -24,14 +25,22 @@ public class SecurityUtils implements ApplicationContextAware {
     }
 
     /**
-     * 获取当前登录用户
+     * 请求属性：当前登录用户，由TokenInterceptor在鉴权时写入
+     */
+    public static final String CURRENT_USER_ATTRIBUTE = "currentUser";
+
+    /**
+     * 获取当前登录用户（不含密码），同一请求内只解析一次
      */
     public static User getCurrentUser() {
-        Long userId = getUserId();
-        UserService userService = applicationContext.getBean(UserService.class);
-        User user = userService.getById(userId);
+        HttpServletRequest request = getRequest();
+        User user = (User) request.getAttribute(CURRENT_USER_ATTRIBUTE);
         if (user == null) {
-            throw new BusinessException("用户不存在");
+            user = applicationContext.getBean(UserCache.class).get(getUserId());
+            if (user == null) {
+                throw new BusinessException("用户不存在");
+            }
+            request.setAttribute(CURRENT_USER_ATTRIBUTE, user);
         }
         return user;
     }
@@ -40,8 +49,7 @@ public class SecurityUtils implements ApplicationContextAware {
      * 获取当前登录用户ID
      */
     public static Long getUserId() {
-        Long userId = (Long) ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
-                .getRequest().getAttribute("userId");
+        Long userId = (Long) getRequest().getAttribute("userId");
         if (userId == null) {
             throw new BusinessException(401, "用户未登录");
         }
@@ -55,4 +63,8 @@ public class SecurityUtils implements ApplicationContextAware {
         User user = getCurrentUser();
         return user != null && user.getRole() == 1;
     }
+
+    private static HttpServletRequest getRequest() {
+        return ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.gjq.vo;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 游标分页结果VO
+ * <p>
+ * 按(create_time, id)倒序翻页，下一页从上一页最后一条记录之后开始查询，翻到任何位置的开销都和第一页相同。
+ */
+@Data
+@Schema(description = "游标分页结果VO")
+public class CursorPageVO<T> {
+    
+    /**
+     * 数据列表
+     */
+    @Schema(description = "数据列表")
+    private List<T> records;
+    
+    /**
+     * 下一页游标，没有更多数据时为空
+     */
+    @Schema(description = "下一页游标，没有更多数据时为空")
+    private String nextCursor;
+    
+    /**
+     * 是否还有更多数据
+     */
+    @Schema(description = "是否还有更多数据")
+    private Boolean hasMore;
+    
+    /**
+     * 总条数，未要求统计时为空
+     */
+    @Schema(description = "总条数，未要求统计时为空")
+    private Long total;
+}
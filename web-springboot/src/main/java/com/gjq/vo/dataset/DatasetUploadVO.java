@@ -0,0 +1,38 @@
+package com.gjq.vo.dataset;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 数据集分片上传会话VO
+ */
+@Data
+@Schema(description = "数据集分片上传会话VO")
+public class DatasetUploadVO {
+    
+    /**
+     * 上传ID
+     */
+    @Schema(description = "上传ID")
+    private Long uploadId;
+    
+    /**
+     * 分片大小(字节)，最后一个分片可以小于该值
+     */
+    @Schema(description = "分片大小(字节)")
+    private Long partSize;
+    
+    /**
+     * 分片总数
+     */
+    @Schema(description = "分片总数")
+    private Integer totalParts;
+    
+    /**
+     * 已接收的分片序号
+     */
+    @Schema(description = "已接收的分片序号")
+    private List<Integer> uploadedParts;
+}
@@ -0,0 +1,31 @@
+package com.gjq.vo.event;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 状态变更事件视图对象
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "状态变更事件视图对象")
+public class StatusEventVO {
+
+    public static final String TYPE_DATASET = "dataset";
+    public static final String TYPE_MODEL = "model";
+
+    @Schema(description = "资源类型(dataset/model)")
+    private String type;
+
+    @Schema(description = "资源ID")
+    private Long id;
+
+    @Schema(description = "状态")
+    private Integer status;
+
+    @Schema(description = "错误信息")
+    private String errorMsg;
+}
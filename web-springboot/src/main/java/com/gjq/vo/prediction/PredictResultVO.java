@@ -0,0 +1,53 @@
+package com.gjq.vo.prediction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 图像分割预测结果VO，字段与算法服务返回的结果一致
+ */
+@Data
+@Schema(description = "图像分割预测结果VO")
+public class PredictResultVO {
+    
+    /**
+     * 预处理后的原图
+     */
+    @Schema(description = "预处理后的原图")
+    private ImageObject processedOrigImg;
+    
+    /**
+     * 预测掩码图
+     */
+    @Schema(description = "预测掩码图")
+    private ImageObject predictionMask;
+    
+    /**
+     * 叠加图
+     */
+    @Schema(description = "叠加图")
+    private ImageObject overlayImage;
+    
+    /**
+     * 操作历史ID，未保存操作历史时为空
+     */
+    @Schema(description = "操作历史ID")
+    private Long historyId;
+    
+    /**
+     * 图片存储信息
+     */
+    @Data
+    @Schema(description = "图片存储信息")
+    public static class ImageObject {
+        
+        @Schema(description = "桶名称")
+        private String bucket;
+        
+        @Schema(description = "对象键")
+        private String objectKey;
+        
+        @Schema(description = "访问地址")
+        private String url;
+    }
+}
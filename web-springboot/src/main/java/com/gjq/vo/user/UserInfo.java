@@ -1,10 +1,9 @@
 package com.gjq.vo.user;
 
-import com.gjq.client.FileClient;
+import com.gjq.service.support.DownloadUrlSigner;
 import com.gjq.entity.User;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.util.StringUtils;
 
 /**
  * 用户信息
@@ -62,7 +61,7 @@ public class UserInfo {
      */
     private Integer status;
 
-    public UserInfo(User user, FileClient fileClient) {
+    public UserInfo(User user, DownloadUrlSigner downloadUrlSigner) {
         this.id = user.getId();
         this.username = user.getUsername();
         this.realName = user.getRealName();
@@ -70,9 +69,7 @@ public class UserInfo {
         this.email = user.getEmail();
         this.avatarBucket = user.getAvatarBucket();
         this.avatarObjectKey = user.getAvatarObjectKey();
-        if (StringUtils.hasText(user.getAvatarBucket()) && StringUtils.hasText(user.getAvatarObjectKey())) {
-            this.avatarUrl = fileClient.getFileUrl(user.getAvatarBucket(), user.getAvatarObjectKey());
-        }
+        this.avatarUrl = downloadUrlSigner.signImageUrl(user.getAvatarBucket(), user.getAvatarObjectKey());
         this.role = user.getRole();
         this.status = user.getStatus();
     }
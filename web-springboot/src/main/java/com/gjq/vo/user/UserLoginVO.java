@@ -1,6 +1,6 @@
 package com.gjq.vo.user;
 
-import com.gjq.client.FileClient;
+import com.gjq.service.support.DownloadUrlSigner;
 import com.gjq.entity.User;
 import lombok.Data;
 
@@ -19,8 +19,8 @@ public class UserLoginVO {
      */
     private String token;
 
-    public UserLoginVO(User user, String token, FileClient fileClient) {
-        this.userInfo = new UserInfo(user, fileClient);
+    public UserLoginVO(User user, String token, DownloadUrlSigner downloadUrlSigner) {
+        this.userInfo = new UserInfo(user, downloadUrlSigner);
         this.token = token;
     }
 } 
\ No newline at end of file
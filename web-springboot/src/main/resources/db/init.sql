@@ -17,7 +17,8 @@ CREATE TABLE IF NOT EXISTS `user` (
     `status` TINYINT NOT NULL DEFAULT 1 COMMENT '状态(0:禁用 1:启用)',
     `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    UNIQUE KEY `uk_username` (`username`)
+    UNIQUE KEY `uk_username` (`username`),
+    KEY `idx_avatar` (`avatar_bucket`, `avatar_object_key`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户表';
 
 -- 初始化管理员用户(初始密码：123456)
@@ -35,6 +36,7 @@ CREATE TABLE IF NOT EXISTS `dataset` (
     `description` VARCHAR(500) DEFAULT NULL COMMENT '数据集描述',
     `bucket` VARCHAR(50) DEFAULT NULL COMMENT '存储桶',
     `object_key` VARCHAR(255) DEFAULT NULL COMMENT '对象键',
+    `content_hash` VARCHAR(64) DEFAULT NULL COMMENT '文件内容SHA-256',
     `train_count` INT DEFAULT 0 COMMENT '训练集样例数量',
     `val_count` INT DEFAULT 0 COMMENT '验证集样例数量',
     `status` TINYINT NOT NULL DEFAULT 0 COMMENT '状态(0:未验证 1:验证中 2:验证成功 3:验证失败)',
@@ -42,7 +44,8 @@ CREATE TABLE IF NOT EXISTS `dataset` (
     `create_user_id` BIGINT NOT NULL COMMENT '创建用户ID',
     `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    UNIQUE KEY `uk_name` (`name`)
+    UNIQUE KEY `uk_name` (`name`),
+    KEY `idx_object` (`bucket`, `object_key`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='数据集表'; 
 
 -- 模型表
@@ -54,6 +57,7 @@ CREATE TABLE IF NOT EXISTS `model` (
   `dataset_id` bigint NOT NULL COMMENT '训练数据集ID',
   `dataset_bucket` varchar(100) DEFAULT NULL COMMENT '训练数据集存储桶(复制的数据集文件)',
   `dataset_object_key` varchar(200) DEFAULT NULL COMMENT '训练数据集对象键(复制的数据集文件)',
+  `dataset_hash` varchar(64) DEFAULT NULL COMMENT '训练数据集副本内容哈希(对应model_dataset_blob，为空表示模型独占的副本)',
   `model_bucket` varchar(100) DEFAULT NULL COMMENT '模型权重存储桶',
   `model_object_key` varchar(200) DEFAULT NULL COMMENT '模型权重对象键',
   `status` tinyint DEFAULT 0 COMMENT '状态：0-未训练，1-训练中，2-训练成功，3-训练失败，4-已发布',
@@ -65,9 +69,75 @@ CREATE TABLE IF NOT EXISTS `model` (
   `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
   KEY `idx_dataset_id` (`dataset_id`),
+  KEY `idx_model_object` (`model_bucket`, `model_object_key`),
+  KEY `idx_dataset_object` (`dataset_bucket`, `dataset_object_key`),
   UNIQUE KEY `uk_name` (`name`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='模型表';
 
+-- 数据集分片上传会话表
+DROP TABLE IF EXISTS `dataset_upload_session`;
+CREATE TABLE IF NOT EXISTS `dataset_upload_session` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键(上传ID)',
+  `dataset_id` bigint NOT NULL COMMENT '数据集ID',
+  `user_id` bigint NOT NULL COMMENT '上传用户ID',
+  `file_name` varchar(255) NOT NULL COMMENT '文件名',
+  `file_size` bigint NOT NULL COMMENT '文件总大小(字节)',
+  `fingerprint` varchar(128) NOT NULL COMMENT '客户端提供的文件指纹(续传时匹配)',
+  `part_size` bigint NOT NULL COMMENT '分片大小(字节)',
+  `total_parts` int NOT NULL COMMENT '分片总数',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间(最后一次收到分片的时间)',
+  PRIMARY KEY (`id`),
+  KEY `idx_dataset_user` (`dataset_id`, `user_id`),
+  KEY `idx_update_time` (`update_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='数据集分片上传会话表';
+
+-- 数据集分片上传分片表
+DROP TABLE IF EXISTS `dataset_upload_part`;
+CREATE TABLE IF NOT EXISTS `dataset_upload_part` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `session_id` bigint NOT NULL COMMENT '上传会话ID',
+  `part_number` int NOT NULL COMMENT '分片序号，从1开始',
+  `size` bigint NOT NULL COMMENT '分片大小(字节)',
+  `sha256` varchar(64) NOT NULL COMMENT '分片内容SHA-256',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_session_part` (`session_id`, `part_number`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='数据集分片上传分片表';
+
+-- 模型训练数据集副本表(按内容哈希去重，多个模型共享同一份副本)
+DROP TABLE IF EXISTS `model_dataset_blob`;
+CREATE TABLE IF NOT EXISTS `model_dataset_blob` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `content_hash` varchar(64) NOT NULL COMMENT '数据集文件内容SHA-256',
+  `bucket` varchar(100) NOT NULL COMMENT '副本存储桶',
+  `object_key` varchar(200) NOT NULL COMMENT '副本对象键',
+  `ref_count` int NOT NULL DEFAULT 0 COMMENT '引用该副本的模型数量',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_content_hash` (`content_hash`),
+  KEY `idx_object` (`bucket`, `object_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='模型训练数据集副本表';
+
+-- 算法任务表(模型训练、数据集验证任务队列)
+DROP TABLE IF EXISTS `algorithm_job`;
+CREATE TABLE IF NOT EXISTS `algorithm_job` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `job_type` varchar(20) NOT NULL COMMENT '任务类型：TRAIN-模型训练，VALIDATE-数据集验证',
+  `resource_id` bigint NOT NULL COMMENT '资源ID(训练任务为模型ID，验证任务为数据集ID)',
+  `priority` int NOT NULL DEFAULT 0 COMMENT '优先级，数值越大越先执行',
+  `status` tinyint NOT NULL DEFAULT 0 COMMENT '状态：0-排队中，1-执行中，2-已完成，3-失败',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已分发次数',
+  `error_msg` varchar(255) DEFAULT NULL COMMENT '错误信息',
+  `start_time` datetime DEFAULT NULL COMMENT '开始执行时间',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_type_status_priority` (`job_type`, `status`, `priority`, `id`),
+  KEY `idx_resource` (`resource_id`, `job_type`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='算法任务表';
+
 -- 评估反馈表
 DROP TABLE IF EXISTS `feedback`;
 CREATE TABLE IF NOT EXISTS `feedback` (
@@ -86,8 +156,12 @@ CREATE TABLE IF NOT EXISTS `feedback` (
   `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
-  KEY `idx_model_id` (`model_id`),
-  KEY `idx_create_user_id` (`create_user_id`)
+  KEY `idx_model_time` (`model_id`, `create_time`, `id`),
+  KEY `idx_user_time` (`create_user_id`, `create_time`, `id`),
+  KEY `idx_create_time` (`create_time`, `id`),
+  KEY `idx_original_image` (`original_image_bucket`, `original_image_key`),
+  KEY `idx_label_image` (`label_image_bucket`, `label_image_key`),
+  KEY `idx_overlay_image` (`overlay_image_bucket`, `overlay_image_key`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='评估反馈表';
 
 -- 操作历史表
@@ -105,6 +179,27 @@ CREATE TABLE IF NOT EXISTS `operation_history` (
   `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
-  KEY `idx_model_id` (`model_id`),
-  KEY `idx_create_user_id` (`create_user_id`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='操作历史表';
\ No newline at end of file
+  KEY `idx_model_time` (`model_id`, `create_time`, `id`),
+  KEY `idx_user_time` (`create_user_id`, `create_time`, `id`),
+  KEY `idx_create_time` (`create_time`, `id`),
+  KEY `idx_original_image` (`original_image_bucket`, `original_image_key`),
+  KEY `idx_result_image` (`result_image_bucket`, `result_image_key`),
+  KEY `idx_overlay_image` (`overlay_image_bucket`, `overlay_image_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='操作历史表';
+
+-- 文件清理任务表
+DROP TABLE IF EXISTS `file_cleanup_task`;
+CREATE TABLE IF NOT EXISTS `file_cleanup_task` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `bucket` varchar(100) NOT NULL COMMENT '存储桶名称',
+  `object_key` varchar(255) NOT NULL COMMENT '对象键',
+  `status` tinyint NOT NULL DEFAULT 0 COMMENT '状态 0:等待删除 1:删除失败(不再重试)',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已尝试删除次数',
+  `next_attempt_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次尝试删除的时间',
+  `error_msg` varchar(255) DEFAULT NULL COMMENT '最近一次删除失败的错误信息',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_next_attempt_time` (`status`, `next_attempt_time`),
+  KEY `idx_object` (`bucket`, `object_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='文件清理任务表';
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.gjq.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 平台线程池与虚拟线程执行器的压测对比
+ * <p>
+ * 用预测分发线程池的配置（并发上限、队列容量、拒绝后由提交方重试）提交一批模拟阻塞调用的任务，
+ * 记录总耗时、吞吐量、任务从提交到完成耗时的P50/P99、拒绝次数和JVM平台线程峰值。
+ * 虚拟线程需要JDK 21，低版本JDK下只运行平台线程一组。默认跳过，需要时运行：
+ * <pre>
+ * mvn test -Dtest=AsyncConfigLoadTest -Dbenchmark=true
+ * </pre>
+ * 可通过-Dload.tasks、-Dload.concurrency、-Dload.io-millis调整任务数、并发上限和每个任务的阻塞时间。
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AsyncConfigLoadTest {
+
+    private static final int TASKS = Integer.getInteger("load.tasks", 5000);
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 200);
+
+    private static final int QUEUE_CAPACITY = 1000;
+
+    private static final long IO_MILLIS = Long.getLong("load.io-millis", 20);
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void blockingTasks(boolean virtualThreads) throws InterruptedException {
+        Assumptions.assumeTrue(!virtualThreads || Runtime.version().feature() >= 21, "虚拟线程需要JDK 21");
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AsyncConfig asyncConfig = new AsyncConfig();
+        ReflectionTestUtils.setField(asyncConfig, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(asyncConfig, "virtualThreads", virtualThreads);
+        Executor executor = asyncConfig.predictionExecutor(CONCURRENCY, CONCURRENCY, QUEUE_CAPACITY);
+
+        if (virtualThreads) {
+            // 虚拟线程执行器自行注册与线程池相同的监控指标
+            assertNotNull(meterRegistry.find("executor.active").tag("name", "predictionExecutor").gauge());
+            assertNotNull(meterRegistry.find("executor.queued").tag("name", "predictionExecutor").gauge());
+        }
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        threadMXBean.resetPeakThreadCount();
+        long[] latencies = new long[TASKS];
+        AtomicInteger rejections = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(TASKS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            int index = i;
+            long submitTime = System.nanoTime();
+            Runnable task = () -> {
+                try {
+                    Thread.sleep(IO_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latencies[index] = System.nanoTime() - submitTime;
+                    done.countDown();
+                }
+            };
+            // 与调用方一致：被拒绝后稍后重新提交
+            while (true) {
+                try {
+                    executor.execute(task);
+                    break;
+                } catch (RejectedExecutionException e) {
+                    rejections.incrementAndGet();
+                    Thread.sleep(1);
+                }
+            }
+        }
+        assertTrue(done.await(5, TimeUnit.MINUTES), "压测任务未在5分钟内完成");
+        long elapsed = System.nanoTime() - start;
+
+        if (virtualThreads) {
+            Gauge active = meterRegistry.find("executor.active").tag("name", "predictionExecutor").gauge();
+            assertEquals(0, active.value());
+        }
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+
+        Arrays.sort(latencies);
+        log.info("{}: {} 个任务, 并发上限 {}, 阻塞 {} ms, 总耗时 {} ms, 吞吐量 {} 个/秒, P50 {} ms, P99 {} ms, 拒绝 {} 次, 平台线程峰值 {}",
+                virtualThreads ? "虚拟线程" : "平台线程", TASKS, CONCURRENCY, IO_MILLIS,
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                String.format("%.0f", TASKS * 1_000_000_000.0 / elapsed),
+                TimeUnit.NANOSECONDS.toMillis(latencies[TASKS / 2]),
+                TimeUnit.NANOSECONDS.toMillis(latencies[TASKS * 99 / 100]),
+                rejections.get(), threadMXBean.getPeakThreadCount());
+    }
+}
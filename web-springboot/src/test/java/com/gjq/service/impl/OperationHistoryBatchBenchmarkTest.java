@@ -0,0 +1,108 @@
+package com.gjq.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.gjq.dto.history.OperationHistoryCreateDTO;
+import com.gjq.entity.Model;
+import com.gjq.mapper.ModelMapper;
+import com.gjq.service.OperationHistoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 操作历史批量创建吞吐量基准，对比批量插入和逐条插入1、100、10000条记录的吞吐量
+ * <p>
+ * 批量插入的收益来自MySQL驱动的rewriteBatchedStatements改写，只有连接真实数据库时结果才有意义，
+ * 默认跳过。需要时使用application.yml中配置的数据库运行：
+ * <pre>
+ * mvn test -Dtest=OperationHistoryBatchBenchmarkTest -Dbenchmark=true
+ * </pre>
+ * 每轮在事务中插入后回滚，不会在数据库中留下记录；数据库中至少需要有一个模型。
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OperationHistoryBatchBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private static final int MEASURE_ROUNDS = 10;
+
+    @Autowired
+    private OperationHistoryService operationHistoryService;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10000})
+    void batchCreateThroughput(int size) {
+        Model model = modelMapper.selectOne(new LambdaQueryWrapper<Model>()
+                .select(Model::getId, Model::getCreateUserId)
+                .last("LIMIT 1"));
+        Assumptions.assumeTrue(model != null, "数据库中没有模型");
+        List<OperationHistoryCreateDTO> records = buildRecords(model.getId(), size);
+
+        double batchThroughput = measure(size,
+                () -> operationHistoryService.batchCreateHistories(records, model.getCreateUserId()));
+        double singleThroughput = measure(size,
+                () -> records.forEach(record -> operationHistoryService.createHistory(record, model.getCreateUserId())));
+        log.info("{} 条记录: 批量插入 {} 条/秒, 逐条插入 {} 条/秒, 提升 {} 倍", size,
+                String.format("%.0f", batchThroughput), String.format("%.0f", singleThroughput),
+                String.format("%.1f", batchThroughput / singleThroughput));
+
+        // 单条记录时两者都是一次INSERT，只比较多条记录的情况
+        if (size >= 100) {
+            assertTrue(batchThroughput > singleThroughput, "批量插入吞吐量应高于逐条插入");
+        }
+    }
+
+    /**
+     * 预热后执行多轮，返回每秒插入的记录数
+     */
+    private double measure(int size, Runnable action) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runAndRollback(transactionTemplate, action);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            runAndRollback(transactionTemplate, action);
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) size * MEASURE_ROUNDS * 1_000_000_000L / elapsed;
+    }
+
+    private void runAndRollback(TransactionTemplate transactionTemplate, Runnable action) {
+        transactionTemplate.executeWithoutResult(status -> {
+            action.run();
+            status.setRollbackOnly();
+        });
+    }
+
+    private List<OperationHistoryCreateDTO> buildRecords(Long modelId, int size) {
+        List<OperationHistoryCreateDTO> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            OperationHistoryCreateDTO createDTO = new OperationHistoryCreateDTO();
+            createDTO.setModelId(modelId);
+            createDTO.setOriginalImageBucket("benchmark");
+            createDTO.setOriginalImageKey("benchmark/original_" + i + ".png");
+            records.add(createDTO);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,38 @@
+package com.gjq.service.impl;
+
+import com.gjq.common.exception.BusinessException;
+import com.gjq.dto.history.OperationHistoryCreateDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 操作历史服务参数校验，校验在访问数据库之前完成，不需要启动容器
+ */
+class OperationHistoryServiceImplTest {
+
+    private final OperationHistoryServiceImpl operationHistoryService = new OperationHistoryServiceImpl();
+
+    @Test
+    void batchCreateRejectsNullRecord() {
+        OperationHistoryCreateDTO createDTO = new OperationHistoryCreateDTO();
+        createDTO.setModelId(1L);
+        List<OperationHistoryCreateDTO> records = Arrays.asList(createDTO, null);
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> operationHistoryService.batchCreateHistories(records, 1L));
+        assertEquals("操作历史记录不能包含空记录", e.getMessage());
+    }
+
+    @Test
+    void batchCreateRejectsEmptyRecords() {
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> operationHistoryService.batchCreateHistories(Collections.emptyList(), 1L));
+        assertEquals("操作历史记录不能为空", e.getMessage());
+    }
+}
@@ -0,0 +1,90 @@
+package com.gjq.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT验证JMH基准，对比三种验证方式的单次耗时：
+ * <ul>
+ *     <li>每次重建密钥和解析器，先validateToken再getUserId，验证两次（优化前拦截器的做法）</li>
+ *     <li>使用预先构建的解析器验证一次（缓存未命中时的开销）</li>
+ *     <li>{@link JwtUtils#verify}命中已验证token缓存</li>
+ * </ul>
+ * 默认跳过，需要时运行：
+ * <pre>
+ * mvn test -Dtest=JwtUtilsBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmarkTest {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private String token;
+
+    private JwtParser parser;
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = new JwtUtils();
+        jwtUtils.setSecret(SECRET);
+        jwtUtils.setExpiration(TimeUnit.HOURS.toMillis(1));
+        token = JwtUtils.generateToken(1L);
+        parser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8))).build();
+        // 预先写入已验证token缓存
+        JwtUtils.verify(token);
+    }
+
+    @Benchmark
+    public Long rebuildParserTwice() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        return Long.parseLong(claims.getSubject());
+    }
+
+    @Benchmark
+    public Long prebuiltParser() {
+        return Long.parseLong(parser.parseSignedClaims(token).getPayload().getSubject());
+    }
+
+    @Benchmark
+    public Long cachedVerify() {
+        return JwtUtils.verify(token);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtUtilsBenchmarkTest.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,7 +1,7 @@
-import type { DatasetAddDTO, DatasetQueryDTO, DatasetVO } from '@/types/dataset'
+import type { DatasetAddDTO, DatasetQueryDTO, DatasetUploadVO, DatasetVO } from '@/types/dataset'
 import type { PageVO, Result } from '@/types/common'
 import { request } from './request'
-import { fileRequest } from './file_request'
+import { downloadFile } from '@/utils/download'
 
 /**
  * 添加数据集
@@ -29,6 +29,60 @@ export const uploadDataset = (id: number, formData: FormData, config = {}) => {
   })
 }
 
+/**
+ * 初始化数据集分片上传，存在未完成的相同文件上传时返回已接收的分片用于续传
+ * @param id 数据集ID
+ * @param data 文件名、文件大小、文件指纹和期望的分片大小
+ * @param config 请求配置
+ * @returns Promise<Result<DatasetUploadVO>>
+ */
+export const initDatasetUpload = (id: number, data: { fileName: string; fileSize: number; fingerprint: string; partSize?: number }, config = {}) => {
+  return request.post<DatasetUploadVO>(`/dataset/upload/${id}/init`, data, config)
+}
+
+/**
+ * 上传数据集文件分片
+ * @param id 数据集ID
+ * @param uploadId 上传ID
+ * @param partNumber 分片序号，从1开始
+ * @param part 分片内容
+ * @param sha256 分片内容SHA-256，为空时服务端不校验
+ * @param config 请求配置
+ * @returns Promise<Result<boolean>>
+ */
+export const uploadDatasetPart = (id: number, uploadId: number, partNumber: number, part: Blob, sha256?: string, config = {}) => {
+  return request.put<boolean>(`/dataset/upload/${id}/part/${uploadId}/${partNumber}`, part, {
+    timeout: 120000,
+    ...config,
+    headers: {
+      'Content-Type': 'application/octet-stream',
+      ...(sha256 ? { 'X-Content-SHA256': sha256 } : {})
+    }
+  })
+}
+
+/**
+ * 查询已接收的数据集文件分片
+ * @param id 数据集ID
+ * @param uploadId 上传ID
+ * @param config 请求配置
+ * @returns Promise<Result<number[]>>
+ */
+export const listDatasetUploadParts = (id: number, uploadId: number, config = {}) => {
+  return request.get<number[]>(`/dataset/upload/${id}/part/${uploadId}`, config)
+}
+
+/**
+ * 完成数据集分片上传，服务端合并分片后上传到文件服务
+ * @param id 数据集ID
+ * @param uploadId 上传ID
+ * @param config 请求配置
+ * @returns Promise<Result<boolean>>
+ */
+export const completeDatasetUpload = (id: number, uploadId: number, config = {}) => {
+  return request.post<boolean>(`/dataset/upload/${id}/complete/${uploadId}`, {}, { timeout: 0, ...config })
+}
+
 /**
  * 删除数据集
  * @param id 数据集ID
@@ -86,27 +140,8 @@ export const validateDataset = (id: number, config = {}) => {
  * @returns Promise<void>
  */
 export const downloadDataset = async (bucket: string, objectKey: string, fileName: string) => {
-  try {
-    // 使用fileRequest.get获取文件内容
-    const blob = await fileRequest.get(bucket, objectKey)
-    
-    // 创建下载链接
-    const downloadUrl = URL.createObjectURL(blob)
-    const link = document.createElement('a')
-    link.href = downloadUrl
-    link.download = fileName ? `${fileName}.zip` : 'dataset.zip'
-    
-    // 触发下载
-    document.body.appendChild(link)
-    link.click()
-    
-    // 清理
-    document.body.removeChild(link)
-    URL.revokeObjectURL(downloadUrl)
-  } catch (error) {
-    console.error('下载数据集文件失败', error)
-    throw error
-  }
+  // 由浏览器通过下载代理直接下载，不在页面内存中缓存整个文件
+  await downloadFile(bucket, objectKey, fileName ? `${fileName}.zip` : 'dataset.zip')
 }
 
 /**
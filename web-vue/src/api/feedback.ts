@@ -1,5 +1,5 @@
 import { request } from '@/api/request'
-import type { PageVO } from '@/types/common'
+import type { CursorPageVO, PageVO } from '@/types/common'
 
 /**
  * 评估反馈接口类型定义
@@ -69,6 +69,23 @@ export function pageFeedbacks(params: FeedbackQueryParams) {
   return request.get<PageVO<FeedbackVO>>('/feedback/page', { params })
 }
 
+// 游标分页查询参数
+export interface FeedbackCursorParams {
+  cursor?: string; // 上一页返回的游标，第一页不传
+  size: number; // 每页大小
+  modelId?: number; // 模型ID
+  withTotal?: boolean; // 是否统计总条数
+}
+
+/**
+ * 游标分页查询评估反馈，逐页前后翻动
+ * @param params 查询参数
+ * @returns 游标分页结果
+ */
+export function cursorFeedbacks(params: FeedbackCursorParams) {
+  return request.get<CursorPageVO<FeedbackVO>>('/feedback/cursor', { params })
+}
+
 /**
  * 删除评估反馈
  * @param id 评估反馈ID
@@ -1,4 +1,5 @@
 import { request } from './request'
+import type { CursorPageVO } from '@/types/common'
 
 /**
  * 操作历史接口类型定义
@@ -68,6 +69,24 @@ export function pageHistories(params: HistoryQueryParams) {
   return request.get('/operation-history/page', { params })
 }
 
+// 游标分页查询参数
+export interface HistoryCursorParams {
+  cursor?: string; // 上一页返回的游标，第一页不传
+  size: number; // 每页大小
+  modelId?: number; // 模型ID
+  createUsername?: string; // 创建用户名
+  withTotal?: boolean; // 是否统计总条数
+}
+
+/**
+ * 游标分页查询操作历史，逐页前后翻动
+ * @param params 查询参数
+ * @returns 游标分页结果
+ */
+export function cursorHistories(params: HistoryCursorParams) {
+  return request.get<CursorPageVO<OperationHistoryVO>>('/operation-history/cursor', { params })
+}
+
 /**
  * 删除操作历史
  * @param id 操作历史ID
@@ -179,16 +179,17 @@ export function evaluateModel(params: {
 }
 
 /**
- * 图像分割预测
- * @param params 预测参数
+ * 图像分割预测，经业务端与同一模型的其他预测请求合并后批量推理
+ * @param params 预测参数，saveHistory为true时预测成功后由业务端保存操作历史
  * @returns 预测结果
  */
 export function predictImage(params: {
   modelId: string | number
   imageBucket: string
   imageKey: string
+  saveHistory?: boolean
 }) {
-  return algoRequest.post<{
+  return request.post<{
     processedOrigImg: {
       bucket: string
       objectKey: string
@@ -203,6 +204,7 @@ export function predictImage(params: {
       bucket: string
       objectKey: string
       url: string
-    }
-  }>('/prediction/predict', params)
+    },
+    historyId?: number
+  }>('/prediction/predict', params, { timeout: 120000 })
 }
\ No newline at end of file
@@ -13,6 +13,14 @@ export interface PageVO<T> {
   pages: number // 总页数
 }
 
+// 游标分页结果，按创建时间倒序，翻到任何位置的开销都和第一页相同
+export interface CursorPageVO<T> {
+  records: T[] // 数据列表
+  nextCursor?: string | null // 下一页游标，没有更多数据时为空
+  hasMore: boolean // 是否还有更多数据
+  total?: number | null // 总条数，未要求统计时为空
+}
+
 // 通用响应结果
 export interface Result<T> {
   code: number // 状态码
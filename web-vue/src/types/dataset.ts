@@ -118,4 +118,28 @@ export interface DatasetQueryDTO {
    * 创建用户ID
    */
   createUserId?: number
-} 
\ No newline at end of file
+} 
+/**
+ * 数据集分片上传会话VO
+ */
+export interface DatasetUploadVO {
+  /**
+   * 上传ID
+   */
+  uploadId: number
+  
+  /**
+   * 分片大小(字节)，最后一个分片可以小于该值
+   */
+  partSize: number
+  
+  /**
+   * 分片总数
+   */
+  totalParts: number
+  
+  /**
+   * 已接收的分片序号
+   */
+  uploadedParts: number[]
+}
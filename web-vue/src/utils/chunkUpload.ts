@@ -0,0 +1,72 @@
+// 数据集分片上传：多个分片并行上传，失败的分片单独重试，中断后重新选择同一文件即可续传
+import { initDatasetUpload, uploadDatasetPart, completeDatasetUpload } from '@/api/dataset'
+
+export interface ChunkUploadOptions {
+  concurrency?: number                 // 并行上传的分片数
+  retries?: number                     // 单个分片失败后的重试次数
+  onProgress?: (percent: number) => void
+}
+
+const sha256Hex = async (blob: Blob): Promise<string | undefined> => {
+  // crypto.subtle只在HTTPS或localhost下可用，不可用时由服务端跳过校验
+  if (!window.crypto?.subtle) return undefined
+  const digest = await window.crypto.subtle.digest('SHA-256', await blob.arrayBuffer())
+  return Array.from(new Uint8Array(digest)).map(b => b.toString(16).padStart(2, '0')).join('')
+}
+
+// 文件指纹：修改时间加文件开头1MB内容的哈希，同名同大小的不同文件不会续传到彼此的分片上
+const fingerprintOf = async (file: File): Promise<string> => {
+  const headHash = await sha256Hex(file.slice(0, 1024 * 1024))
+  return `${file.lastModified}:${headHash ?? ''}`
+}
+
+/**
+ * 分片上传数据集文件
+ *
+ * @param datasetId 数据集ID
+ * @param file 文件
+ * @param options 上传选项
+ * @returns 是否上传成功
+ */
+export async function uploadDatasetInChunks(datasetId: number, file: File, options: ChunkUploadOptions = {}) {
+  const { concurrency = 3, retries = 3, onProgress } = options
+  const fingerprint = await fingerprintOf(file)
+  const session = await initDatasetUpload(datasetId, { fileName: file.name, fileSize: file.size, fingerprint })
+
+  const uploaded = new Set(session.uploadedParts)
+  const pending: number[] = []
+  for (let partNumber = 1; partNumber <= session.totalParts; partNumber++) {
+    if (!uploaded.has(partNumber)) pending.push(partNumber)
+  }
+
+  let done = uploaded.size
+  onProgress?.(Math.floor(done * 100 / session.totalParts))
+
+  const uploadPart = async (partNumber: number) => {
+    const start = (partNumber - 1) * session.partSize
+    const part = file.slice(start, Math.min(start + session.partSize, file.size))
+    const sha256 = await sha256Hex(part)
+    for (let attempt = 0; ; attempt++) {
+      try {
+        await uploadDatasetPart(datasetId, session.uploadId, partNumber, part, sha256)
+        break
+      } catch (error) {
+        if (attempt >= retries) throw error
+        await new Promise(resolve => setTimeout(resolve, 1000 * (attempt + 1)))
+      }
+    }
+    done++
+    onProgress?.(Math.floor(done * 100 / session.totalParts))
+  }
+
+  // 固定数量的worker依次领取待上传分片
+  const workers = Array.from({ length: Math.min(concurrency, pending.length) }, async () => {
+    let partNumber: number | undefined
+    while ((partNumber = pending.shift()) !== undefined) {
+      await uploadPart(partNumber)
+    }
+  })
+  await Promise.all(workers)
+
+  return completeDatasetUpload(datasetId, session.uploadId)
+}
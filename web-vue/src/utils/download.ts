@@ -0,0 +1,31 @@
+// 通过后端下载代理下载文件：由浏览器直接下载，不在页面内存中缓存整个文件，中断后浏览器可以断点续传
+import { request } from '@/api/request'
+
+/**
+ * 获取文件下载地址：先通过已登录的接口申请带签名的短期地址，地址中不包含token
+ *
+ * @param bucket 存储桶名称
+ * @param objectKey 对象键
+ * @param fileName 下载文件名，不传则浏览器直接展示
+ * @returns 下载地址
+ */
+export async function getDownloadUrl(bucket: string, objectKey: string, fileName?: string) {
+  const path = await request.get<string>('/file/download-url', { params: { bucket, objectKey, fileName } })
+  return `${import.meta.env.VITE_API_URL}${path}`
+}
+
+/**
+ * 下载文件
+ *
+ * @param bucket 存储桶名称
+ * @param objectKey 对象键
+ * @param fileName 下载文件名
+ */
+export async function downloadFile(bucket: string, objectKey: string, fileName: string) {
+  const link = document.createElement('a')
+  link.href = await getDownloadUrl(bucket, objectKey, fileName)
+  link.download = fileName
+  document.body.appendChild(link)
+  link.click()
+  document.body.removeChild(link)
+}
@@ -0,0 +1,66 @@
+// 数据集验证、模型训练状态推送(SSE)
+export interface StatusEvent {
+  type: 'dataset' | 'model'
+  id: number
+  status: number
+  errorMsg?: string | null
+}
+
+export interface StatusSubscribeOptions {
+  type?: 'dataset' | 'model'  // 资源类型，不传则订阅全部
+  id?: number                 // 资源ID，不传则订阅该类型全部资源
+}
+
+// 浏览器断线后EventSource会自动重连，这里只处理服务端主动拒绝(如token失效)的情况
+const RETRY_DELAY = 5000
+
+/**
+ * 订阅状态变更事件
+ *
+ * @param handler 事件处理函数
+ * @param options 订阅过滤条件
+ * @returns 取消订阅函数
+ */
+export function subscribeStatus(handler: (event: StatusEvent) => void, options: StatusSubscribeOptions = {}) {
+  let source: EventSource | null = null
+  let retryTimer: number | null = null
+  let closed = false
+
+  const connect = () => {
+    const userInfo = localStorage.getItem('userInfo')
+    const token = userInfo ? JSON.parse(userInfo).token : ''
+    if (!token || closed) return
+
+    const params = new URLSearchParams({ token })
+    if (options.type) params.append('type', options.type)
+    if (options.id !== undefined) params.append('id', String(options.id))
+
+    source = new EventSource(`${import.meta.env.VITE_API_URL}/event/subscribe?${params.toString()}`)
+    source.addEventListener('status', (e: MessageEvent) => {
+      try {
+        handler(JSON.parse(e.data) as StatusEvent)
+      } catch (error) {
+        console.error('状态事件解析失败:', error)
+      }
+    })
+    source.onerror = () => {
+      // CLOSED表示浏览器不会再自动重连，稍后手动重连
+      if (source?.readyState === EventSource.CLOSED && !closed) {
+        source = null
+        retryTimer = window.setTimeout(connect, RETRY_DELAY)
+      }
+    }
+  }
+
+  connect()
+
+  return () => {
+    closed = true
+    if (retryTimer !== null) {
+      window.clearTimeout(retryTimer)
+      retryTimer = null
+    }
+    source?.close()
+    source = null
+  }
+}